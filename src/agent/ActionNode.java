@@ -3,8 +3,7 @@ package agent;
 import game.GameAction;
 import game.GameModel;
 import game.GameModel.GameState;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Class ini merepresentasikan sebuah aksi yang dapat dipilih dari state
@@ -14,17 +13,34 @@ import java.util.Map;
  */
 public abstract class ActionNode {
 
+    private static final AtomicIntegerFieldUpdater<ActionNode> VISIT_COUNT
+            = AtomicIntegerFieldUpdater.newUpdater(ActionNode.class, "visitCount");
+
     public final GameAction action;
-    protected Map<GameState, StateNode> children;
+    //Pada pohon bersama, map ini tidak pernah diubah setelah dipasang,
+    //melainkan diganti dengan salinan yang berisi child baru (lihat
+    //simulateActionShared()), sehingga dapat dibaca tanpa lock
+    protected volatile ChanceChildMap children;
     public final StateNode parent;
-    private int visitCount = 0;
-    public double localLowerBound = Double.POSITIVE_INFINITY;
-    public double localUpperBound = Double.NEGATIVE_INFINITY;
+    //Diperbarui secara atomik supaya pohon dapat dipakai bersama oleh beberapa
+    //thread
+    private volatile int visitCount = 0;
+    //Dibaca tanpa lock, tetapi diperlebar sambil memegang lock dari node ini
+    //(lihat widenBounds()) supaya tidak ada pelebaran yang hilang
+    private volatile double localLowerBound = Double.POSITIVE_INFINITY;
+    private volatile double localUpperBound = Double.NEGATIVE_INFINITY;
+    /**
+     * State hasil pergeseran tile oleh aksi ini sebelum tile baru muncul.
+     * Dihitung saat node ini pertama kali dikunjungi. volatile supaya
+     * afterstate yang dihitung satu thread pada pohon bersama terlihat utuh
+     * oleh thread lain.
+     */
+    private volatile GameState afterstate;
 
     public ActionNode(GameAction action, StateNode parent) {
         this.action = action;
         this.parent = parent;
-        children = new HashMap<>();
+        children = new ChanceChildMap();
     }
 
     public int getVisitCount() {
@@ -32,7 +48,15 @@ public abstract class ActionNode {
     }
 
     public void incrementVisitCount() {
-        visitCount++;
+        VISIT_COUNT.incrementAndGet(this);
+    }
+
+    /**
+     * Menambahkan sejumlah visit sekaligus, misalnya saat menggabungkan
+     * statistik dari beberapa pohon pencarian.
+     */
+    protected void addVisitCount(int count) {
+        VISIT_COUNT.addAndGet(this, count);
     }
 
     public double getLowerBound() {
@@ -43,6 +67,67 @@ public abstract class ActionNode {
         return localUpperBound;
     }
 
+    /**
+     * Memperlebar local bound dari node ini supaya mencakup nilai tertentu.
+     * Aman dipanggil oleh beberapa thread sekaligus, termasuk oleh child dari
+     * node-node aksi yang berbeda.
+     *
+     * @param value Nilai yang harus tercakup oleh local bound
+     */
+    public void widenBounds(double value) {
+        if (value < localLowerBound || value > localUpperBound) {
+            synchronized (this) {
+                if (value < localLowerBound) {
+                    localLowerBound = value;
+                }
+                if (value > localUpperBound) {
+                    localUpperBound = value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Mengembalikan afterstate dari aksi ini. Karena pergeseran tile bersifat
+     * deterministik, afterstate hanya dihitung sekali lalu disimpan.
+     *
+     * @param model Forward model dari permainan 2048
+     * @return Afterstate dari aksi ini
+     */
+    public GameState getAfterstate(GameModel model) {
+        if (afterstate == null) {
+            afterstate = model.applySlide(parent.state, action);
+        }
+        return afterstate;
+    }
+
+    /**
+     * Mencari child dari aksi ini yang merepresentasikan state tertentu.
+     * Child hasil tabel transposisi simetris yang state-nya hanya simetris
+     * dengan state yang dicari tidak dikembalikan.
+     *
+     * @param state State yang dicari
+     * @return Child dengan state tersebut, atau null jika belum pernah
+     * dikunjungi
+     */
+    public StateNode getChildNode(GameState state) {
+        StateNode child = children.get(state.getPackedBoard());
+        return (child != null && child.state.equals(state)) ? child : null;
+    }
+
+    /**
+     * Mensimulasikan aksi ini dengan memunculkan tile baru secara acak pada
+     * afterstate-nya, tanpa membuat objek state. Skor dari papan yang
+     * dihasilkan sama dengan skor afterstate. Memakai 1 tick dari model.
+     *
+     * @param model Forward model dari permainan 2048
+     * @return Papan selanjutnya dalam bentuk bitboard, atau 0 jika tick model
+     * sudah habis
+     */
+    public long sampleNextBoard(GameModel model) {
+        return model.sampleSpawn(getAfterstate(model).getPackedBoard());
+    }
+
     /**
      * Menerapkan aksi ini untuk mendapatkan node state selanjutnya. Jika state
      * yang dihasilkan sudah pernah dikunjungi sebelumnya, maka method ini akan
@@ -52,7 +137,133 @@ public abstract class ActionNode {
      * @return Node yang merepresentasikan state yang dikunjungi jika aksi ini
      * dilakukan
      */
-    public abstract StateNode simulateAction(GameModel model);
+    public StateNode simulateAction(GameModel model) {
+        return simulateAction(model, null);
+    }
+
+    /**
+     * Sama seperti simulateAction(GameModel), tetapi jika state yang
+     * dihasilkan belum menjadi child dari aksi ini, node dari state tersebut
+     * dicari dulu di tabel transposisi sebelum node baru dibuat. Pada pohon
+     * yang berbentuk DAG, sebuah node dapat memiliki beberapa parent, sehingga
+     * parent dari node yang dikembalikan diarahkan ke aksi ini. Dengan begitu,
+     * backpropagation yang mengikuti parent selalu menelusuri jalur yang baru
+     * saja dilalui. Karena itu, tabel transposisi tidak dapat dipakai pada
+     * pohon bersama.
+     *
+     * @param model Forward model dari permainan 2048
+     * @param table Tabel transposisi, atau null jika tidak dipakai
+     * @return Node yang merepresentasikan state yang dikunjungi jika aksi ini
+     * dilakukan
+     */
+    public StateNode simulateAction(GameModel model, TranspositionTable table) {
+        return simulateAction(model, table, null);
+    }
+
+    /**
+     * Sama seperti simulateAction(GameModel, TranspositionTable), tetapi node
+     * baru hanya disimpan di pohon jika batas jumlah node belum tercapai.
+     * Jika sudah tercapai, node baru tetap dikembalikan (dengan parent aksi
+     * ini) supaya iterasi dapat diselesaikan, tetapi tidak disimpan sebagai
+     * child maupun di tabel transposisi.
+     *
+     * @param model Forward model dari permainan 2048
+     * @param table Tabel transposisi, atau null jika tidak dipakai
+     * @param budget Batas jumlah node, atau null jika tidak dibatasi
+     * @return Node yang merepresentasikan state yang dikunjungi jika aksi ini
+     * dilakukan
+     */
+    public StateNode simulateAction(GameModel model, TranspositionTable table, NodeBudget budget) {
+        long board = sampleNextBoard(model);
+        StateNode child = getOrCreateChildNode(board, table, budget);
+        if (child == null) {
+            child = createChildNode(new GameState(board, afterstate.getScore()));
+        }
+        return child;
+    }
+
+    /**
+     * Mencari child dari aksi ini dengan papan tertentu, lalu mencarinya di
+     * tabel transposisi atau membuatnya jika belum ada. Seperti pada
+     * simulateAction(GameModel, TranspositionTable), parent dari child yang
+     * dikembalikan diarahkan ke aksi ini jika tabel transposisi dipakai.
+     * Method ini tidak melakukan alokasi jika child sudah ada atau jika batas
+     * node sudah tercapai.
+     *
+     * @param board Papan hasil sampleNextBoard()
+     * @param table Tabel transposisi, atau null jika tidak dipakai
+     * @param budget Batas jumlah node, atau null jika tidak dibatasi
+     * @return Child dengan papan tersebut, atau null jika child belum ada dan
+     * batas jumlah node sudah tercapai
+     */
+    public StateNode getOrCreateChildNode(long board, TranspositionTable table, NodeBudget budget) {
+        StateNode child = children.get(board);
+        if (child == null && table != null) {
+            child = table.get(board, afterstate.getScore());
+            if (child != null) {
+                children.put(board, child);
+            }
+        }
+        if (child == null) {
+            if (budget != null && !budget.tryAllocate()) {
+                return null;
+            }
+            child = createChildNode(new GameState(board, afterstate.getScore()));
+            children.put(board, child);
+            if (table != null) {
+                table.put(child);
+            }
+        }
+        if (table != null) {
+            child.parent = this;
+        }
+        return child;
+    }
+
+    /**
+     * Versi simulateAction() untuk pohon yang dipakai bersama oleh beberapa
+     * thread. Tile baru dimunculkan dan child dicari tanpa lock. Lock dari
+     * node aksi ini hanya diambil jika child belum ada, lalu child baru
+     * dipasang pada salinan map sehingga thread lain yang sedang mencari
+     * tetap membaca map lama yang utuh. Satu aksi paling banyak memiliki 32
+     * child, jadi penyalinan hanya terjadi beberapa kali.
+     *
+     * @param model Forward model dari permainan 2048, milik thread pemanggil
+     * @param budget Batas jumlah node yang dipakai bersama oleh semua thread,
+     * atau null jika tidak dibatasi
+     * @return Node yang merepresentasikan state yang dikunjungi. Jika batas
+     * node sudah tercapai, node baru tetap dikembalikan tetapi tidak disimpan
+     * di pohon.
+     */
+    public StateNode simulateActionShared(GameModel model, NodeBudget budget) {
+        long board = sampleNextBoard(model);
+        StateNode child = children.get(board);
+        if (child != null) {
+            return child;
+        }
+        synchronized (this) {
+            ChanceChildMap current = children;
+            child = current.get(board);
+            if (child != null) {
+                return child;
+            }
+            child = createChildNode(new GameState(board, afterstate.getScore()));
+            if (budget == null || budget.tryAllocate()) {
+                ChanceChildMap copy = current.copy();
+                copy.put(board, child);
+                children = copy;
+            }
+            return child;
+        }
+    }
+
+    /**
+     * Membuat node state baru sebagai child dari aksi ini.
+     *
+     * @param state State dari node baru
+     * @return Node baru
+     */
+    protected abstract StateNode createChildNode(GameState state);
 
     /**
      * Memperbarui informasi utilitas yang tercatat pada simpul ini, termasuk
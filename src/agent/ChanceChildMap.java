@@ -0,0 +1,162 @@
+package agent;
+
+/**
+ * Map khusus untuk menyimpan child dari sebuah ActionNode, yaitu StateNode
+ * yang dapat dicapai dari afterstate aksi tersebut setelah tile baru muncul.
+ * Kunci map adalah papan dalam bentuk bitboard (lihat
+ * GameState.getPackedBoard()). Semua child dari satu ActionNode memiliki skor
+ * yang sama, sehingga papan saja sudah cukup untuk membedakan child.
+ *
+ * Map ini memakai open addressing dengan linear probing pada array primitif,
+ * sehingga pencarian tidak melakukan boxing maupun alokasi. Satu afterstate
+ * paling banyak memiliki 2 x 16 kemungkinan child, jadi ukuran tabel tidak
+ * akan melebihi 64 slot.
+ *
+ * @author Jiang Han
+ */
+public final class ChanceChildMap {
+
+    private static final int INITIAL_CAPACITY = 4;
+    // Papan kosong tidak mungkin menjadi child karena selalu ada tile baru
+    private static final long EMPTY_KEY = 0L;
+
+    private long[] keys;
+    private StateNode[] values;
+    private int size;
+
+    public ChanceChildMap() {
+        keys = new long[INITIAL_CAPACITY];
+        values = new StateNode[INITIAL_CAPACITY];
+    }
+
+    private ChanceChildMap(long[] keys, StateNode[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Membuat salinan dari map ini. Dipakai untuk menambah child secara
+     * copy-on-write pada pohon bersama.
+     *
+     * @return Map baru dengan isi yang sama
+     */
+    public ChanceChildMap copy() {
+        return new ChanceChildMap(keys.clone(), values.clone(), size);
+    }
+
+    /**
+     * Mencari child dengan papan tertentu.
+     *
+     * @param board Papan dalam bentuk bitboard
+     * @return Child dengan papan tersebut, atau null jika belum ada
+     */
+    public StateNode get(long board) {
+        int mask = keys.length - 1;
+        for (int i = slot(board, mask); keys[i] != EMPTY_KEY; i = (i + 1) & mask) {
+            if (keys[i] == board) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Menyimpan child dengan papan tertentu. Jika papan tersebut sudah ada,
+     * child lamanya akan diganti.
+     *
+     * @param board Papan dalam bentuk bitboard, tidak boleh 0
+     * @param node Child yang ingin disimpan
+     */
+    public void put(long board, StateNode node) {
+        // Load factor dijaga paling besar 0.5 supaya probing tetap pendek
+        if (2 * (size + 1) > keys.length) {
+            resize(2 * keys.length);
+        }
+        int mask = keys.length - 1;
+        int i = slot(board, mask);
+        while (keys[i] != EMPTY_KEY && keys[i] != board) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == EMPTY_KEY) {
+            keys[i] = board;
+            size++;
+        }
+        values[i] = node;
+    }
+
+    /**
+     * @return Banyaknya child yang tersimpan
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Jumlah slot dalam tabel, untuk menelusuri child dengan
+     * valueAt()
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * @param slot Nomor slot, antara 0 dan capacity() - 1
+     * @return Child pada slot tersebut, atau null jika slot kosong
+     */
+    public StateNode valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Menghapus semua child yang visit count-nya tidak lebih dari batas
+     * tertentu (lihat NodeBudget.evict()).
+     *
+     * @param maxVisitCount Visit count terbesar dari child yang dihapus
+     * @return Jumlah child yang dihapus
+     */
+    public int removeLeastVisited(int maxVisitCount) {
+        int removed = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY_KEY && values[i].getVisitCount() <= maxVisitCount) {
+                keys[i] = EMPTY_KEY;
+                values[i] = null;
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            // Linear probing tidak mengizinkan lubang di tengah rantai,
+            // sehingga sisa child dimasukkan ulang
+            size -= removed;
+            resize(keys.length);
+        }
+        return removed;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        StateNode[] oldValues = values;
+        keys = new long[capacity];
+        values = new StateNode[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != EMPTY_KEY) {
+                int i = slot(oldKeys[j], mask);
+                while (keys[i] != EMPTY_KEY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int slot(long board, int mask) {
+        // Child hanya berbeda di 1 nibble yang posisinya bisa di mana saja,
+        // sehingga semua bit perlu diaduk (finalizer MurmurHash3)
+        long hash = board ^ (board >>> 33);
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return (int) hash & mask;
+    }
+}
@@ -0,0 +1,348 @@
+package agent;
+
+import game.GameAction;
+import game.GameModel;
+import game.GameModel.GameState;
+
+/**
+ * Penyimpanan pohon pencarian alternatif yang menyimpan data node dalam
+ * array-array primitif yang dialokasikan sekali di awal (struct of arrays).
+ * Node tidak direpresentasikan sebagai objek, melainkan sebagai handle berupa
+ * bilangan bulat. Arena cukup direset (tidak dialokasikan ulang) di antara
+ * pemanggilan selectAction(), sehingga pencarian tidak membebani garbage
+ * collector.
+ *
+ * Handle dari node state adalah nomor urut alokasinya (0 sampai kapasitas -
+ * 1). Setiap node state memiliki tempat untuk semua aksi, dan handle dari node
+ * aksi adalah state * ACTION_COUNT + id aksi. Child dari sebuah node aksi
+ * disimpan sebagai linked list melalui nextSibling.
+ *
+ * @author Jiang Han
+ */
+public final class NodeArena {
+
+    /**
+     * Handle yang menandakan node tidak ada.
+     */
+    public static final int NO_NODE = -1;
+    public static final int ACTION_COUNT = GameAction.values().length;
+
+    // Ukuran data per node state dan per node aksi, dalam byte
+    private static final int STATE_NODE_BYTES
+            = Long.BYTES // board
+            + Integer.BYTES // score
+            + Integer.BYTES // visitCount
+            + Byte.BYTES // actionMask
+            + Integer.BYTES // parent
+            + Integer.BYTES; // nextSibling
+    private static final int ACTION_NODE_BYTES
+            = Integer.BYTES // visitCount
+            + Double.BYTES // value
+            + Double.BYTES // lowerBound
+            + Double.BYTES // upperBound
+            + Long.BYTES // afterBoard
+            + Integer.BYTES // afterScore
+            + Integer.BYTES; // firstChild
+
+    private final int capacity;
+    private int size;
+
+    // Data node state, diakses dengan handle state
+    private final long[] stateBoard;
+    private final int[] stateScore;
+    private final int[] stateVisitCount;
+    private final byte[] stateActionMask;
+    private final int[] stateParent;
+    private final int[] stateNextSibling;
+
+    // Data node aksi, diakses dengan handle aksi
+    private final int[] actionVisitCount;
+    /**
+     * Nilai utilitas yang disimpan agen. Artinya bergantung pada agen,
+     * misalnya total utilitas (MCTS) atau estimasi utilitas (TDTS).
+     */
+    private final double[] actionValue;
+    private final double[] actionLowerBound;
+    private final double[] actionUpperBound;
+    // Afterstate dari aksi, 0 jika belum dihitung
+    private final long[] actionAfterBoard;
+    private final int[] actionAfterScore;
+    private final int[] actionFirstChild;
+
+    /**
+     * Membuat arena yang dapat menampung sejumlah node state (beserta semua
+     * node aksinya).
+     *
+     * @param capacity Jumlah node state maksimum
+     */
+    public NodeArena(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Arena capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        stateBoard = new long[capacity];
+        stateScore = new int[capacity];
+        stateVisitCount = new int[capacity];
+        stateActionMask = new byte[capacity];
+        stateParent = new int[capacity];
+        stateNextSibling = new int[capacity];
+
+        int actionCapacity = capacity * ACTION_COUNT;
+        actionVisitCount = new int[actionCapacity];
+        actionValue = new double[actionCapacity];
+        actionLowerBound = new double[actionCapacity];
+        actionUpperBound = new double[actionCapacity];
+        actionAfterBoard = new long[actionCapacity];
+        actionAfterScore = new int[actionCapacity];
+        actionFirstChild = new int[actionCapacity];
+    }
+
+    /**
+     * Mengosongkan arena tanpa mengalokasikan ulang array-nya. Semua handle
+     * yang pernah dikembalikan menjadi tidak valid.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * Membuat node root baru dari sebuah state.
+     *
+     * @param state State pada root
+     * @return Handle dari root, atau NO_NODE jika arena penuh
+     */
+    public int newRoot(GameState state) {
+        return allocate(state.getPackedBoard(), state.getScore(), NO_NODE);
+    }
+
+    /**
+     * Membuat child baru dari sebuah node aksi. Skor dari child sama dengan
+     * skor afterstate aksi tersebut.
+     *
+     * @param action Handle dari node aksi
+     * @param board Papan child dalam bentuk bitboard
+     * @return Handle dari child, atau NO_NODE jika arena penuh
+     */
+    public int addChild(int action, long board) {
+        int child = allocate(board, getAfterScore(action), action);
+        if (child != NO_NODE) {
+            stateNextSibling[child] = actionFirstChild[action];
+            actionFirstChild[action] = child;
+        }
+        return child;
+    }
+
+    /**
+     * Mencari child dari sebuah node aksi yang memiliki papan tertentu.
+     *
+     * @param action Handle dari node aksi
+     * @param board Papan dalam bentuk bitboard
+     * @return Handle dari child, atau NO_NODE jika belum ada
+     */
+    public int findChild(int action, long board) {
+        for (int child = actionFirstChild[action]; child != NO_NODE; child = stateNextSibling[child]) {
+            if (stateBoard[child] == board) {
+                return child;
+            }
+        }
+        return NO_NODE;
+    }
+
+    private int allocate(long board, int score, int parent) {
+        if (size == capacity) {
+            return NO_NODE;
+        }
+        int state = size++;
+        stateBoard[state] = board;
+        stateScore[state] = score;
+        stateVisitCount[state] = 0;
+        stateActionMask[state] = (byte) GameModel.availableActionMask(board);
+        stateParent[state] = parent;
+        stateNextSibling[state] = NO_NODE;
+
+        for (int action = state * ACTION_COUNT; action < (state + 1) * ACTION_COUNT; action++) {
+            actionVisitCount[action] = 0;
+            actionValue[action] = 0;
+            actionLowerBound[action] = Double.POSITIVE_INFINITY;
+            actionUpperBound[action] = Double.NEGATIVE_INFINITY;
+            actionAfterBoard[action] = 0L;
+            actionFirstChild[action] = NO_NODE;
+        }
+        return state;
+    }
+
+    /**
+     * Memeriksa apakah arena masih dapat menampung sejumlah node state lagi.
+     *
+     * @param nodes Jumlah node state yang ingin ditambahkan
+     * @return True jika masih cukup
+     */
+    public boolean hasRoom(int nodes) {
+        return size + nodes <= capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Mengembalikan handle dari node aksi tertentu pada sebuah node state.
+     */
+    public static int actionOf(int state, GameAction action) {
+        return state * ACTION_COUNT + action.id;
+    }
+
+    /**
+     * Mengembalikan handle dari node state yang memiliki node aksi tertentu.
+     */
+    public static int stateOf(int action) {
+        return action / ACTION_COUNT;
+    }
+
+    /**
+     * Mengembalikan aksi yang direpresentasikan oleh node aksi tertentu.
+     */
+    public static GameAction gameActionOf(int action) {
+        return GameAction.fromId(action % ACTION_COUNT);
+    }
+
+    public long getBoard(int state) {
+        return stateBoard[state];
+    }
+
+    public int getScore(int state) {
+        return stateScore[state];
+    }
+
+    /**
+     * @return State dari node state tertentu dalam bentuk objek GameState
+     */
+    public GameState getState(int state) {
+        return new GameState(stateBoard[state], stateScore[state]);
+    }
+
+    public int getActionMask(int state) {
+        return stateActionMask[state];
+    }
+
+    public boolean isTerminal(int state) {
+        return stateActionMask[state] == 0;
+    }
+
+    /**
+     * @return Handle dari node aksi parent, atau NO_NODE jika state adalah root
+     */
+    public int getParent(int state) {
+        return stateParent[state];
+    }
+
+    public int getStateVisitCount(int state) {
+        return stateVisitCount[state];
+    }
+
+    public void incrementStateVisitCount(int state) {
+        stateVisitCount[state]++;
+    }
+
+    public int getActionVisitCount(int action) {
+        return actionVisitCount[action];
+    }
+
+    public void incrementActionVisitCount(int action) {
+        actionVisitCount[action]++;
+    }
+
+    public double getValue(int action) {
+        return actionValue[action];
+    }
+
+    public void setValue(int action, double value) {
+        actionValue[action] = value;
+    }
+
+    public double getLowerBound(int action) {
+        return actionLowerBound[action];
+    }
+
+    public double getUpperBound(int action) {
+        return actionUpperBound[action];
+    }
+
+    /**
+     * Memperluas local bound dari node aksi supaya mencakup nilai tertentu.
+     *
+     * @param action Handle dari node aksi
+     * @param value Nilai yang harus tercakup
+     */
+    public void updateBounds(int action, double value) {
+        actionLowerBound[action] = Math.min(actionLowerBound[action], value);
+        actionUpperBound[action] = Math.max(actionUpperBound[action], value);
+    }
+
+    /**
+     * Mengembalikan papan afterstate dari node aksi. Afterstate dihitung saat
+     * pertama kali dibutuhkan lalu disimpan.
+     *
+     * @param action Handle dari node aksi
+     * @return Papan afterstate dalam bentuk bitboard
+     */
+    public long getAfterBoard(int action) {
+        if (actionAfterBoard[action] == 0L) {
+            int state = stateOf(action);
+            GameAction gameAction = gameActionOf(action);
+            actionAfterBoard[action] = GameModel.slideBoard(stateBoard[state], gameAction);
+            actionAfterScore[action] = stateScore[state] + GameModel.slideScore(stateBoard[state], gameAction);
+        }
+        return actionAfterBoard[action];
+    }
+
+    /**
+     * @return Skor afterstate dari node aksi
+     */
+    public int getAfterScore(int action) {
+        getAfterBoard(action);
+        return actionAfterScore[action];
+    }
+
+    /**
+     * Menghitung ukuran data dari satu node state beserta semua node aksinya.
+     *
+     * @return Ukuran data per node state dalam byte
+     */
+    public static int bytesPerNode() {
+        return STATE_NODE_BYTES + ACTION_COUNT * ACTION_NODE_BYTES;
+    }
+
+    /**
+     * Menghitung ukuran seluruh array dari arena dengan kapasitas tertentu
+     * (tanpa header array).
+     *
+     * @param capacity Jumlah node state
+     * @return Ukuran arena dalam byte
+     */
+    public static long bytesForCapacity(int capacity) {
+        return (long) capacity * bytesPerNode();
+    }
+
+    /**
+     * Mengembalikan laporan pemakaian memori dari arena ini.
+     *
+     * @return Laporan dalam bentuk teks
+     */
+    public String getMemoryReport() {
+        return String.format(
+                "Node arena: %d/%d nodes, %d bytes/node (%d state + %d x %d action), %.2f MB allocated",
+                size,
+                capacity,
+                bytesPerNode(),
+                STATE_NODE_BYTES,
+                ACTION_COUNT,
+                ACTION_NODE_BYTES,
+                bytesForCapacity(capacity) / (1024.0 * 1024.0)
+        );
+    }
+}
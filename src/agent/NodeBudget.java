@@ -0,0 +1,226 @@
+package agent;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Batas jumlah node state dari sebuah pohon pencarian berbentuk objek. Jika
+ * batas sudah tercapai, ActionNode.simulateAction() tetap mengembalikan node
+ * baru tetapi tidak menyimpannya di pohon. Node sementara tersebut hanya
+ * dipakai selama 1 iterasi (sebagai titik awal simulasi dan jalur
+ * backpropagation), lalu dapat di-garbage collect. Dengan begitu pencarian
+ * tetap berjalan hingga tick habis tanpa menambah memori pohon. Agen yang
+ * tidak memakai pohon bersama cukup memakai
+ * ActionNode.getOrCreateChildNode(long, TranspositionTable, NodeBudget), yang
+ * mengembalikan null alih-alih membuat node sementara.
+ *
+ * Selain berhenti menambah node, pohon juga dapat dipangkas dengan evict():
+ * subpohon-subpohon dengan visit count paling kecil dilepas dari pohon
+ * sehingga tempatnya dapat dipakai oleh node baru. Karena visit count sebuah
+ * node tidak pernah lebih besar dari visit count parent-nya, subpohon yang
+ * dilepas selalu berisi node-node yang paling jarang dikunjungi.
+ *
+ * Jumlah node dihitung secara atomik supaya batas dapat dipakai bersama oleh
+ * beberapa thread pada pohon bersama. Batas juga dapat dinyatakan dalam byte
+ * (lihat limitForBytes()), dengan perkiraan ukuran per node BYTES_PER_NODE.
+ *
+ * @author Jiang Han
+ */
+public final class NodeBudget {
+
+    /**
+     * Perkiraan ukuran satu node state di heap, dalam byte, termasuk
+     * GameState-nya, slot di ChanceChildMap parent-nya, dan bagiannya dari
+     * node aksi. Pada pohon MCTS dan TDTS yang besar (JVM 64-bit dengan
+     * compressed oops) terukur sekitar 210 byte per node, lalu dibulatkan ke
+     * atas.
+     */
+    public static final int BYTES_PER_NODE = 256;
+
+    // Bagian dari batas yang tersisa setelah pohon dipangkas, supaya
+    // pemangkasan tidak dilakukan di setiap iterasi
+    private static final double EVICTION_TARGET = 0.75;
+
+    private final int limit;
+    private final AtomicInteger size = new AtomicInteger();
+    private long evictedCount;
+
+    /**
+     * @param limit Jumlah node state maksimum, termasuk root
+     */
+    public NodeBudget(int limit) {
+        if (limit < 2) {
+            throw new IllegalArgumentException("Node budget must be at least 2: " + limit);
+        }
+        this.limit = limit;
+    }
+
+    /**
+     * Mengubah batas memori menjadi batas jumlah node dengan perkiraan
+     * BYTES_PER_NODE.
+     *
+     * @param bytes Memori maksimum untuk pohon, dalam byte
+     * @return Jumlah node state maksimum
+     */
+    public static int limitForBytes(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Memory budget must not be negative: " + bytes);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes / BYTES_PER_NODE);
+    }
+
+    /**
+     * Mencatat 1 node baru jika batas belum tercapai.
+     *
+     * @return True jika node baru boleh disimpan di pohon
+     */
+    public boolean tryAllocate() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * @return True jika pohon sudah tidak boleh ditambah node lagi
+     */
+    public boolean isFull() {
+        return size.get() >= limit;
+    }
+
+    /**
+     * Menghitung ulang jumlah node dari pohon dengan root tertentu, misalnya
+     * setelah subpohon dari pencarian sebelumnya dipakai ulang. Dengan tabel
+     * transposisi, pohon tersebut adalah DAG, sehingga node yang dapat
+     * dicapai lewat beberapa jalur tetap dihitung sekali.
+     *
+     * @param root Root dari pohon pencarian
+     */
+    public void reset(StateNode root) {
+        size.set(count(root));
+    }
+
+    /**
+     * Memangkas pohon hingga jumlah node-nya paling banyak EVICTION_TARGET
+     * dari batas, dengan melepas subpohon-subpohon yang visit count-nya paling
+     * kecil. Root tidak pernah dilepas. Tidak boleh dipanggil saat pohon
+     * sedang dipakai oleh thread lain.
+     *
+     * @param root Root dari pohon pencarian
+     */
+    public void evict(StateNode root) {
+        int target = (int) (limit * EVICTION_TARGET);
+        int[] visitCounts = new int[size.get()];
+        int n = 0;
+        ArrayDeque<StateNode> stack = new ArrayDeque<>();
+        Set<StateNode> visited = newVisitedSet(root);
+        pushChildren(root, stack, visited);
+        while (!stack.isEmpty()) {
+            StateNode node = stack.pop();
+            if (n == visitCounts.length) {
+                visitCounts = Arrays.copyOf(visitCounts, 2 * n + 1);
+            }
+            visitCounts[n++] = node.getVisitCount();
+            pushChildren(node, stack, visited);
+        }
+        // Root selalu dipertahankan, sehingga paling banyak target - 1 node
+        // lain yang boleh tersisa
+        int removed = n - (target - 1);
+        if (removed <= 0) {
+            size.set(n + 1);
+            return;
+        }
+        Arrays.sort(visitCounts, 0, n);
+        int threshold = visitCounts[removed - 1];
+
+        visited = newVisitedSet(root);
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            StateNode node = stack.pop();
+            if (node.children == null) {
+                continue;
+            }
+            for (ActionNode action : node.children) {
+                if (action != null) {
+                    action.children.removeLeastVisited(threshold);
+                }
+            }
+            pushChildren(node, stack, visited);
+        }
+        int remaining = count(root);
+        evictedCount += n + 1 - remaining;
+        size.set(remaining);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return Perkiraan memori dari pohon yang mencapai batas ini, dalam byte
+     */
+    public long getEstimatedBytes() {
+        return (long) limit * BYTES_PER_NODE;
+    }
+
+    /**
+     * @return Jumlah node yang pernah dilepas oleh evict()
+     */
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+
+    private static int count(StateNode root) {
+        int count = 0;
+        ArrayDeque<StateNode> stack = new ArrayDeque<>();
+        Set<StateNode> visited = newVisitedSet(root);
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            StateNode node = stack.pop();
+            count++;
+            pushChildren(node, stack, visited);
+        }
+        return count;
+    }
+
+    /**
+     * Himpunan node yang sudah ditemukan selama penelusuran. Node dibandingkan
+     * berdasarkan identitas, karena pada DAG node yang sama dapat menjadi
+     * child dari beberapa node aksi.
+     */
+    private static Set<StateNode> newVisitedSet(StateNode root) {
+        Set<StateNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        visited.add(root);
+        return visited;
+    }
+
+    private static void pushChildren(StateNode node, ArrayDeque<StateNode> stack, Set<StateNode> visited) {
+        if (node.children == null) {
+            return;
+        }
+        for (ActionNode action : node.children) {
+            if (action == null) {
+                continue;
+            }
+            ChanceChildMap children = action.children;
+            for (int slot = 0; slot < children.capacity(); slot++) {
+                StateNode child = children.valueAt(slot);
+                if (child != null && visited.add(child)) {
+                    stack.push(child);
+                }
+            }
+        }
+    }
+}
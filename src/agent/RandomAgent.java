@@ -3,8 +3,8 @@ package agent;
 import game.GameAction;
 import game.GameModel;
 import game.GameModel.GameState;
-import java.util.List;
 import java.util.Random;
+import util.FastRandom;
 
 /**
  * GPA Random yang selalu memilih aksi secara acak.
@@ -13,10 +13,22 @@ import java.util.Random;
  */
 public class RandomAgent extends GamePlayingAgent {
 
+    private final Random rand;
+
+    public RandomAgent() {
+        this(new FastRandom());
+    }
+
+    /**
+     * @param rand Random number generator untuk memilih aksi
+     */
+    public RandomAgent(Random rand) {
+        this.rand = rand;
+    }
+
     @Override
     public GameAction selectAction(GameState state, GameModel model) {
-        List<GameAction> actions = state.getAvailableActions();
-        return actions.get((new Random()).nextInt(actions.size()));
+        return state.getRandomAvailableAction(rand);
     }
 
     @Override
@@ -0,0 +1,165 @@
+package agent;
+
+import game.GameAction;
+import game.GameModel;
+import game.TickBudget;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import util.FastRandom;
+
+/**
+ * Random playout yang dipakai oleh agen-agen pencarian. Method statis
+ * simulate() menjalankan 1 playout langsung pada bitboard. Objek dari class
+ * ini menjalankan beberapa playout dari leaf yang sama secara bersamaan (leaf
+ * parallelization): playout pertama dijalankan oleh thread pemanggil, sisanya
+ * oleh SearchExecutor.
+ *
+ * Model, random number generator, dan trajektori dari setiap playout dibuat
+ * sekali lalu dipakai ulang di setiap iterasi. Anggaran tick bersama juga
+ * dipakai ulang selama model pemanggil tidak memakai anggaran bersama sendiri.
+ * Objek ini hanya boleh dipakai oleh 1 thread pemanggil.
+ *
+ * @author Jiang Han
+ */
+public final class RandomPlayouts {
+
+    private final Playout[] playouts;
+    private final Future<?>[] futures;
+    // Anggaran bersama yang dipakai oleh model dari setiap playout
+    private TickBudget budget;
+    // State awal dan jumlah playout dari pemanggilan run() terakhir
+    private long startingBoard;
+    private int startingScore;
+    private int count;
+
+    /**
+     * @param playoutCount Jumlah playout maksimum yang dijalankan bersamaan
+     * @param rand Random number generator untuk menurunkan seed setiap playout
+     * @param recordTrajectory True jika riwayat skor setiap playout dicatat
+     */
+    public RandomPlayouts(int playoutCount, Random rand, boolean recordTrajectory) {
+        playouts = new Playout[playoutCount];
+        for (int k = 0; k < playoutCount; k++) {
+            playouts[k] = new Playout(new FastRandom(rand.nextLong()),
+                    recordTrajectory ? new Trajectory() : null);
+        }
+        futures = new Future<?>[playoutCount];
+    }
+
+    /**
+     * Mensimulasikan permainan dengan Random Playout Policy mulai dari state
+     * tertentu hingga mencapai terminal state atau kalau tick model sudah
+     * habis. Simulasi dilakukan langsung pada bitboard sehingga tidak ada
+     * objek yang dibuat.
+     *
+     * @param board Papan dari state dimulainya simulasi
+     * @param score Skor dari state dimulainya simulasi
+     * @param model Forward model dari game ini
+     * @param rand Random number generator untuk memilih aksi
+     * @param trajectory Tempat mencatat riwayat skor selama simulasi (skor
+     * pertama adalah skor dari state dimulainya simulasi), atau null jika
+     * hanya skor akhir yang dibutuhkan
+     * @return Skor akhir dari simulasi
+     */
+    public static int simulate(long board, int score, GameModel model, Random rand, Trajectory trajectory) {
+        if (trajectory != null) {
+            trajectory.clear();
+            trajectory.add(score);
+        }
+        int actionMask = GameModel.availableActionMask(board);
+        while (actionMask != 0 && model.isUsable()) {
+            GameAction chosenAction = GameAction.fromMask(actionMask, rand.nextInt(Integer.bitCount(actionMask)));
+            score += GameModel.slideScore(board, chosenAction);
+            board = model.sampleSpawn(GameModel.slideBoard(board, chosenAction));
+            if (trajectory != null) {
+                trajectory.add(score);
+            }
+            actionMask = GameModel.availableActionMask(board);
+        }
+        return score;
+    }
+
+    /**
+     * Menjalankan beberapa playout dari state yang sama secara bersamaan.
+     * Semua playout mengambil tick dari anggaran bersama, lalu tick yang tidak
+     * terpakai dikembalikan ke model. Hasilnya dapat dibaca dengan getScore()
+     * dan getTrajectory() hingga run() dipanggil lagi.
+     *
+     * @param board Papan dari state dimulainya simulasi
+     * @param score Skor dari state dimulainya simulasi
+     * @param model Forward model dari game ini
+     * @return Jumlah playout yang dijalankan, paling sedikit 1
+     */
+    public int run(long board, int score, GameModel model) {
+        count = Math.max(1, Math.min(playouts.length, model.getTickLeft()));
+        TickBudget sharedBudget = model.share(budget);
+        if (sharedBudget != budget) {
+            budget = sharedBudget;
+            for (Playout playout : playouts) {
+                playout.model = new GameModel(sharedBudget, new FastRandom(playout.rand.nextLong()));
+            }
+        }
+        startingBoard = board;
+        startingScore = score;
+
+        for (int k = 1; k < count; k++) {
+            futures[k] = SearchExecutor.submit(playouts[k]);
+        }
+        playouts[0].call();
+        for (int k = 1; k < count; k++) {
+            SearchExecutor.await(futures[k]);
+            futures[k] = null;
+        }
+        model.reclaim(sharedBudget);
+        return count;
+    }
+
+    /**
+     * @return Jumlah playout dari pemanggilan run() terakhir
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @param k Nomor playout, antara 0 dan getCount() - 1
+     * @return Skor akhir dari playout tersebut
+     */
+    public int getScore(int k) {
+        return playouts[k].finalScore;
+    }
+
+    /**
+     * @param k Nomor playout, antara 0 dan getCount() - 1
+     * @return Riwayat skor dari playout tersebut, null jika riwayat tidak
+     * dicatat
+     */
+    public Trajectory getTrajectory(int k) {
+        return playouts[k].trajectory;
+    }
+
+    /**
+     * Satu jalur playout beserta model, random number generator, dan buffer
+     * miliknya sendiri.
+     */
+    private final class Playout implements Callable<Object> {
+
+        private final Random rand;
+        private final Trajectory trajectory;
+        private GameModel model;
+        private int finalScore;
+
+        private Playout(Random rand, Trajectory trajectory) {
+            this.rand = rand;
+            this.trajectory = trajectory;
+        }
+
+        @Override
+        public Object call() {
+            finalScore = simulate(startingBoard, startingScore, model, rand, trajectory);
+            model.release();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package agent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pool bersama untuk pencarian paralel oleh agen. Pool ini adalah
+ * ForkJoinPool dengan parallelism sebanyak jumlah prosesor, sehingga berapa
+ * pun agen dan permainan yang berjalan bersamaan, tugas pencarian yang aktif
+ * tidak melebihi jumlah prosesor. Tugas yang berlebih menunggu di antrian.
+ *
+ * Tugas boleh mengirim tugas lain lalu menunggunya dengan await(), misalnya
+ * worker pohon bersama yang menjalankan leaf-parallel playout. Selama worker
+ * pool menunggu, ForkJoinPool memakai thread tersebut untuk tugas lain atau
+ * menggantinya sementara dengan thread baru, sehingga tugas bersarang tidak
+ * dapat membuat pool macet.
+ *
+ * Thread dibuat saat dibutuhkan dan berhenti sendiri jika tidak dipakai,
+ * sehingga agen tidak perlu ditutup setelah dipakai. Semua thread adalah
+ * daemon thread agar tidak menahan JVM saat program selesai.
+ *
+ * @author Jiang Han
+ */
+public final class SearchExecutor {
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final ForkJoinPool EXECUTOR = new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(),
+            pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("search-worker-" + THREAD_COUNTER.incrementAndGet());
+                return thread;
+            },
+            null, false);
+
+    private SearchExecutor() {
+    }
+
+    /**
+     * Menjalankan sebuah tugas di thread lain.
+     *
+     * @param task Tugas yang ingin dijalankan
+     * @return Future dari hasil tugas
+     */
+    public static <T> Future<T> submit(Callable<T> task) {
+        return EXECUTOR.submit(task);
+    }
+
+    /**
+     * Menunggu hasil dari sebuah tugas. Exception yang terjadi di dalam tugas
+     * dilempar ulang di thread pemanggil.
+     *
+     * @param future Future dari tugas
+     * @return Hasil tugas
+     */
+    public static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for search worker", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException("Search worker failed", ex.getCause());
+        }
+    }
+}
@@ -2,22 +2,39 @@ package agent;
 
 import game.GameAction;
 import game.GameModel.GameState;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
- * Node pada pohon pencarian yang merepresentasikan state. Semua action node
- * yang valid otomatis ditambahkan sebagai children.
+ * Node pada pohon pencarian yang merepresentasikan state. Action node dari
+ * aksi-aksi yang valid baru dibuat saat pertama kali dibutuhkan oleh
+ * selection atau expansion (lihat getOrCreateChildNode()). Sampai saat itu,
+ * aksi yang valid cukup diketahui dari mask aksi milik state, sehingga node
+ * yang hanya dikunjungi sekali tidak perlu menyimpan action node sama sekali.
  *
  * @author Jiang Han
  */
 public abstract class StateNode {
 
+    private static final AtomicIntegerFieldUpdater<StateNode> VISIT_COUNT
+            = AtomicIntegerFieldUpdater.newUpdater(StateNode.class, "visitCount");
+
     public final GameState state;
 
-    public final ActionNode parent;
-    //Jika action ke-i tidak valid, elemen ke-i nilainya null
-    protected ActionNode[] children;
+    //Bernilai null jika node ini adalah root
+    public ActionNode parent;
+    //Jika action ke-i tidak valid atau belum dibuat, elemen ke-i nilainya
+    //null. Bernilai null jika belum ada action node sama sekali. Array tidak
+    //pernah diubah setelah dipasang, melainkan diganti dengan salinan yang
+    //berisi action node baru, sehingga pembacaan tanpa lock pada pohon
+    //bersama selalu melihat action node yang sudah selesai dibuat.
+    protected volatile ActionNode[] children;
 
-    private int visitCount = 0;
+    //Diperbarui secara atomik supaya pohon dapat dipakai bersama oleh beberapa thread
+    private volatile int visitCount = 0;
 
     public StateNode(GameState state) {
         this(state, null);
@@ -37,17 +54,123 @@ public abstract class StateNode {
     }
 
     public void incrementVisitCount() {
-        visitCount++;
+        VISIT_COUNT.incrementAndGet(this);
     }
 
     /**
      * Mengembalikan node yang merepresentasikan aksi tertentu yang dapat
-     * diambil dari state ini.
+     * diambil dari state ini, tanpa membuat node baru.
      *
-     * @param action
-     * @return
+     * @param action Aksi dari state ini
+     * @return Node dari aksi tersebut, atau null jika aksi tidak valid atau
+     * node-nya belum dibuat
      */
     public ActionNode getChildNode(GameAction action) {
-        return children[action.id];
+        ActionNode[] actions = children;
+        return actions != null ? actions[action.id] : null;
+    }
+
+    /**
+     * Mengembalikan node dari aksi tertentu, dan membuatnya jika belum ada.
+     * Aman dipanggil oleh beberapa thread sekaligus.
+     *
+     * @param action Aksi dari state ini
+     * @return Node dari aksi tersebut, atau null jika aksi tidak valid
+     */
+    public ActionNode getOrCreateChildNode(GameAction action) {
+        ActionNode child = getChildNode(action);
+        if (child != null || !state.isActionValid(action)) {
+            return child;
+        }
+        synchronized (this) {
+            ActionNode[] actions = children;
+            if (actions != null && actions[action.id] != null) {
+                return actions[action.id];
+            }
+            ActionNode[] copy = actions != null
+                    ? actions.clone()
+                    : new ActionNode[GameAction.values().length];
+            child = createActionNode(action);
+            copy[action.id] = child;
+            children = copy;
+            return child;
+        }
+    }
+
+    /**
+     * Mengembalikan bitmask dari aksi yang valid pada state ini (lihat
+     * GameState.availableActionMask()), termasuk aksi yang node-nya belum
+     * dibuat.
+     *
+     * @return Bitmask dari aksi yang valid
+     */
+    public int getActionMask() {
+        return state.availableActionMask();
+    }
+
+    /**
+     * Membuat node baru untuk aksi tertentu dari state ini.
+     *
+     * @param action Aksi yang valid dari state ini
+     * @return Node baru
+     */
+    protected abstract ActionNode createActionNode(GameAction action);
+
+    /**
+     * Mencari node state yang dicapai dari state ini dengan melakukan aksi
+     * tertentu lalu memunculkan tile baru sehingga menjadi state tertentu.
+     *
+     * @param action Aksi yang dilakukan dari state ini
+     * @param nextState State setelah aksi dilakukan dan tile baru muncul
+     * @return Node dari nextState, atau null jika belum pernah dikunjungi
+     */
+    public StateNode getNextStateNode(GameAction action, GameState nextState) {
+        ActionNode actionNode = getChildNode(action);
+        return actionNode != null ? actionNode.getChildNode(nextState) : null;
+    }
+
+    /**
+     * Melepaskan node ini dari parent-nya sehingga node ini menjadi root dari
+     * pohon pencarian. Node lain dari pohon lama tidak lagi direferensikan
+     * oleh subpohon ini sehingga dapat di-garbage collect. Untuk pohon yang
+     * dibuat dengan tabel transposisi, gunakan detachDag().
+     */
+    public void detach() {
+        parent = null;
+    }
+
+    /**
+     * Versi detach() untuk pohon yang dibuat dengan tabel transposisi (DAG).
+     * Parent dari node pada DAG adalah aksi yang terakhir melaluinya, yang
+     * dapat berada di luar subpohon ini, sehingga pohon lama tetap
+     * direferensikan. Parent dari setiap node di subpohon ini diarahkan ke
+     * salah satu aksi di dalam subpohon yang mencapainya. Node yang dapat
+     * dicapai lewat beberapa jalur hanya ditelusuri sekali.
+     */
+    public void detachDag() {
+        parent = null;
+        ArrayDeque<StateNode> stack = new ArrayDeque<>();
+        Set<StateNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        visited.add(this);
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            ActionNode[] actions = stack.pop().children;
+            if (actions == null) {
+                continue;
+            }
+            for (ActionNode action : actions) {
+                if (action == null) {
+                    continue;
+                }
+                ChanceChildMap nextStates = action.children;
+                for (int slot = 0; slot < nextStates.capacity(); slot++) {
+                    StateNode child = nextStates.valueAt(slot);
+                    if (child != null && visited.add(child)) {
+                        child.parent = action;
+                        stack.push(child);
+                    }
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,43 @@
+package agent;
+
+import java.util.Arrays;
+
+/**
+ * Riwayat skor dari sebuah random playout. Indeks 0 adalah skor dari state
+ * tempat playout dimulai. Array skor diperbesar jika perlu, lalu dipakai ulang
+ * oleh playout berikutnya, sehingga pencatatan tidak melakukan alokasi setelah
+ * array cukup besar.
+ *
+ * @author Jiang Han
+ */
+public final class Trajectory {
+
+    private int[] scores = new int[64];
+    private int length;
+
+    public void clear() {
+        length = 0;
+    }
+
+    public void add(int score) {
+        if (length == scores.length) {
+            scores = Arrays.copyOf(scores, 2 * length);
+        }
+        scores[length++] = score;
+    }
+
+    /**
+     * @return Jumlah skor yang tercatat
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @param index Nomor langkah, antara 0 dan length() - 1
+     * @return Skor setelah langkah tersebut
+     */
+    public int getScore(int index) {
+        return scores[index];
+    }
+}
@@ -0,0 +1,220 @@
+package agent;
+
+import game.GameModel.GameState;
+import game.Symmetry;
+import java.util.Arrays;
+
+/**
+ * Tabel transposisi untuk satu kali pencarian. Tabel ini memetakan state
+ * (papan dan skor) ke node state yang sudah ada di pohon pencarian, sehingga
+ * state yang dicapai lewat urutan aksi yang berbeda memakai node yang sama dan
+ * pohon pencarian menjadi DAG. Karena total nilai tile selalu bertambah setiap
+ * langkah, DAG yang terbentuk tidak mungkin memiliki siklus.
+ *
+ * Tabel memiliki kapasitas tetap dan dibagi menjadi bucket berisi
+ * BUCKET_SIZE slot (set-associative). Jika semua slot di bucket sudah terisi,
+ * entri yang diganti ditentukan oleh ReplacementPolicy. Entri yang diganti
+ * hanya hilang dari tabel, node-nya tetap ada di pohon pencarian.
+ *
+ * Tabel simetris memakai bentuk kanonik dari papan (lihat
+ * GameState.canonicalSymmetry()) sebagai kunci, sehingga state yang simetris
+ * juga memakai node yang sama. Node yang ditemukan dapat berisi state yang
+ * berbeda orientasi dengan state yang dicari. Hal ini tidak masalah untuk
+ * pencarian, karena nilai kedua state sama dan aksi dari node tersebut
+ * selalu ditafsirkan terhadap state milik node itu sendiri.
+ *
+ * @author Jiang Han
+ */
+public final class TranspositionTable {
+
+    /**
+     * Cara memilih entri yang diganti jika bucket sudah penuh.
+     */
+    public enum ReplacementPolicy {
+        /**
+         * Ganti entri yang node-nya paling sedikit dikunjungi, sehingga node
+         * yang statistiknya paling berharga tetap dapat dipakai bersama.
+         */
+        LEAST_VISITED,
+        /**
+         * Ganti entri yang paling lama dimasukkan.
+         */
+        OLDEST
+    }
+
+    public static final int BUCKET_SIZE = 4;
+
+    private final ReplacementPolicy policy;
+    private final boolean symmetric;
+    private final long[] keys;
+    private final StateNode[] nodes;
+    // Urutan pemasukan setiap entri, dipakai oleh ReplacementPolicy.OLDEST
+    private final long[] stamps;
+    private final int bucketMask;
+    private long storeCount;
+    private int size;
+    private long hitCount;
+    private long replacementCount;
+
+    /**
+     * @param capacity Jumlah entri maksimum, dibulatkan ke atas menjadi
+     * kelipatan BUCKET_SIZE yang merupakan perpangkatan 2
+     * @param policy Cara memilih entri yang diganti jika bucket penuh
+     */
+    public TranspositionTable(int capacity, ReplacementPolicy policy) {
+        this(capacity, policy, false);
+    }
+
+    /**
+     * @param capacity Jumlah entri maksimum, dibulatkan ke atas menjadi
+     * kelipatan BUCKET_SIZE yang merupakan perpangkatan 2
+     * @param policy Cara memilih entri yang diganti jika bucket penuh
+     * @param symmetric True jika state yang simetris dianggap sama
+     */
+    public TranspositionTable(int capacity, ReplacementPolicy policy, boolean symmetric) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Transposition table capacity must be positive: " + capacity);
+        }
+        int wanted = (capacity + BUCKET_SIZE - 1) / BUCKET_SIZE;
+        int buckets = Integer.highestOneBit(wanted);
+        if (buckets < wanted) {
+            buckets *= 2;
+        }
+        this.policy = policy;
+        this.symmetric = symmetric;
+        keys = new long[buckets * BUCKET_SIZE];
+        nodes = new StateNode[buckets * BUCKET_SIZE];
+        stamps = new long[buckets * BUCKET_SIZE];
+        bucketMask = buckets - 1;
+    }
+
+    /**
+     * Mencari node dari state tertentu.
+     *
+     * @param state State yang dicari
+     * @return Node dengan state yang sama (atau simetris, pada tabel
+     * simetris), atau null jika tidak ada di tabel
+     */
+    public StateNode get(GameState state) {
+        return get(state.getPackedBoard(), state.getScore());
+    }
+
+    /**
+     * Versi bitboard dari get(GameState), tanpa membuat objek state.
+     *
+     * @param board Papan dari state yang dicari dalam bentuk bitboard
+     * @param score Skor dari state yang dicari
+     * @return Node dengan state yang sama (atau simetris, pada tabel
+     * simetris), atau null jika tidak ada di tabel
+     */
+    public StateNode get(long board, int score) {
+        if (symmetric) {
+            board = Symmetry.canonicalBoard(board);
+        }
+        long key = key(board, score);
+        int start = bucket(key);
+        for (int i = start; i < start + BUCKET_SIZE; i++) {
+            StateNode node = nodes[i];
+            if (node != null && keys[i] == key
+                    && node.state.getScore() == score && keyBoard(node.state) == board) {
+                hitCount++;
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Menyimpan sebuah node ke tabel. Jika bucket-nya penuh, salah satu entri
+     * lama diganti sesuai ReplacementPolicy.
+     *
+     * @param node Node yang ingin disimpan
+     */
+    public void put(StateNode node) {
+        long key = key(keyBoard(node.state), node.state.getScore());
+        int start = bucket(key);
+        int victim = -1;
+        for (int i = start; i < start + BUCKET_SIZE; i++) {
+            if (nodes[i] == null) {
+                victim = i;
+                size++;
+                break;
+            }
+            if (victim == -1 || isBetterVictim(i, victim)) {
+                victim = i;
+            }
+        }
+        if (nodes[victim] != null) {
+            replacementCount++;
+        }
+        keys[victim] = key;
+        nodes[victim] = node;
+        stamps[victim] = storeCount++;
+    }
+
+    private boolean isBetterVictim(int slot, int victim) {
+        if (policy == ReplacementPolicy.OLDEST) {
+            return stamps[slot] < stamps[victim];
+        }
+        return nodes[slot].getVisitCount() < nodes[victim].getVisitCount();
+    }
+
+    /**
+     * Mengosongkan tabel. Referensi ke node juga dilepas supaya pohon lama
+     * dapat di-garbage collect.
+     */
+    public void clear() {
+        Arrays.fill(nodes, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return nodes.length;
+    }
+
+    public ReplacementPolicy getPolicy() {
+        return policy;
+    }
+
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    /**
+     * @return Jumlah pencarian yang menemukan node, sejak tabel dibuat
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return Jumlah entri yang diganti karena bucket penuh, sejak tabel
+     * dibuat
+     */
+    public long getReplacementCount() {
+        return replacementCount;
+    }
+
+    private int bucket(long key) {
+        return ((int) (key >>> 32) & bucketMask) * BUCKET_SIZE;
+    }
+
+    private long keyBoard(GameState state) {
+        return symmetric ? Symmetry.canonicalBoard(state.getPackedBoard()) : state.getPackedBoard();
+    }
+
+    private static long key(long board, int score) {
+        // Finalizer MurmurHash3 dari papan dan skor
+        long hash = board ^ (score * 0x9E3779B97F4A7C15L);
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
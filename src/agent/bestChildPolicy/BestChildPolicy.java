@@ -2,6 +2,7 @@ package agent.bestChildPolicy;
 
 import agent.ActionNode;
 import agent.StateNode;
+import game.GameAction;
 
 /**
  * Interface untuk memilih node action terbaik untuk dilakukan di akhir simulasi
@@ -18,4 +19,16 @@ public interface BestChildPolicy {
      * @return Node action yang dianggap terbaik pada root
      */
     public ActionNode selectBestChild(StateNode root);
+
+    /**
+     * Memilih aksi terbaik dari statistik simpul aksi yang tidak disimpan
+     * dalam objek ActionNode (misalnya pada NodeArena atau hasil penggabungan
+     * beberapa pohon). Index array adalah id dari aksi.
+     *
+     * @param actionMask Bitmask dari aksi yang valid pada root
+     * @param visitCounts Jumlah kunjungan dari setiap simpul aksi
+     * @param utilities Utilitas (tanpa normalisasi) dari setiap simpul aksi
+     * @return Aksi yang dianggap terbaik
+     */
+    public GameAction selectBestAction(int actionMask, int[] visitCounts, double[] utilities);
 }
@@ -6,6 +6,7 @@ import game.GameAction;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import util.FastRandom;
 
 /**
  * Memilih action node dengan raw utility (utility yang tidak dinormalisasi)
@@ -15,14 +16,25 @@ import java.util.Random;
  */
 public class MaxUtilPolicy implements BestChildPolicy {
 
-    Random rand = new Random();
+    private final Random rand;
+
+    public MaxUtilPolicy() {
+        this(new FastRandom());
+    }
+
+    /**
+     * @param rand Random number generator untuk random tie breaking
+     */
+    public MaxUtilPolicy(Random rand) {
+        this.rand = rand;
+    }
 
     @Override
     public ActionNode selectBestChild(StateNode root) {
         List<ActionNode> bestActionList = new ArrayList<>();
         double maxUtil = Double.NEGATIVE_INFINITY;
         for (GameAction action : root.state.getAvailableActions()) {
-            ActionNode childAction = root.getChildNode(action);
+            ActionNode childAction = root.getOrCreateChildNode(action);
             if (childAction.getUtility() > maxUtil) {
                 maxUtil = childAction.getUtility();
                 bestActionList.clear();
@@ -34,6 +46,31 @@ public class MaxUtilPolicy implements BestChildPolicy {
         return bestActionList.get(rand.nextInt(bestActionList.size()));
     }
 
+    @Override
+    public GameAction selectBestAction(int actionMask, int[] visitCounts, double[] utilities) {
+        int bestCount = 0;
+        double maxUtil = Double.NEGATIVE_INFINITY;
+        for (GameAction action : GameAction.values()) {
+            if ((actionMask & (1 << action.id)) == 0) {
+                continue;
+            }
+            if (utilities[action.id] > maxUtil) {
+                maxUtil = utilities[action.id];
+                bestCount = 1;
+            } else if (utilities[action.id] == maxUtil) {
+                bestCount++;
+            }
+        }
+
+        int chosen = rand.nextInt(bestCount);
+        for (GameAction action : GameAction.values()) {
+            if ((actionMask & (1 << action.id)) != 0 && utilities[action.id] == maxUtil && chosen-- == 0) {
+                return action;
+            }
+        }
+        return null;
+    }
+
     @Override
     public String toString() {
         return "Max Child (maximum utility)";
@@ -6,6 +6,7 @@ import game.GameAction;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import util.FastRandom;
 
 /**
  * Memilih action node dengan jumlah visit terbanyak. Kalau ada beberapa yang
@@ -15,14 +16,25 @@ import java.util.Random;
  */
 public class MostVisitPolicy implements BestChildPolicy {
 
-    Random rand = new Random();
+    private final Random rand;
+
+    public MostVisitPolicy() {
+        this(new FastRandom());
+    }
+
+    /**
+     * @param rand Random number generator untuk random tie breaking
+     */
+    public MostVisitPolicy(Random rand) {
+        this.rand = rand;
+    }
 
     @Override
     public ActionNode selectBestChild(StateNode root) {
         List<ActionNode> bestActionList = new ArrayList<>();
         int maxVisit = Integer.MIN_VALUE;
         for (GameAction action : root.state.getAvailableActions()) {
-            ActionNode childAction = root.getChildNode(action);
+            ActionNode childAction = root.getOrCreateChildNode(action);
             if (childAction.getVisitCount() > maxVisit) {
                 maxVisit = childAction.getVisitCount();
                 bestActionList.clear();
@@ -34,6 +46,31 @@ public class MostVisitPolicy implements BestChildPolicy {
         return bestActionList.get(rand.nextInt(bestActionList.size()));
     }
 
+    @Override
+    public GameAction selectBestAction(int actionMask, int[] visitCounts, double[] utilities) {
+        int bestCount = 0;
+        int maxVisit = Integer.MIN_VALUE;
+        for (GameAction action : GameAction.values()) {
+            if ((actionMask & (1 << action.id)) == 0) {
+                continue;
+            }
+            if (visitCounts[action.id] > maxVisit) {
+                maxVisit = visitCounts[action.id];
+                bestCount = 1;
+            } else if (visitCounts[action.id] == maxVisit) {
+                bestCount++;
+            }
+        }
+
+        int chosen = rand.nextInt(bestCount);
+        for (GameAction action : GameAction.values()) {
+            if ((actionMask & (1 << action.id)) != 0 && visitCounts[action.id] == maxVisit && chosen-- == 0) {
+                return action;
+            }
+        }
+        return null;
+    }
+
     @Override
     public String toString() {
         return "Robust Child (most visit)";
@@ -3,8 +3,8 @@ package agent.mcts;
 import agent.ActionNode;
 import agent.StateNode;
 import game.GameAction;
-import game.GameModel;
 import game.GameModel.GameState;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * Node pohon MCTS yang merepresentasikan aksi pada state tertentu.
@@ -13,7 +13,12 @@ import game.GameModel.GameState;
  */
 class MctsActionNode extends ActionNode {
 
-    private double totalUtility = 0;
+    private static final AtomicLongFieldUpdater<MctsActionNode> TOTAL_UTILITY
+            = AtomicLongFieldUpdater.newUpdater(MctsActionNode.class, "totalUtilityBits");
+
+    //Total utilitas dalam bentuk bit double supaya dapat ditambah secara
+    //atomik oleh beberapa thread
+    private volatile long totalUtilityBits = Double.doubleToRawLongBits(0);
 
     MctsActionNode(GameAction action, StateNode parent) {
         super(action, parent);
@@ -21,33 +26,74 @@ class MctsActionNode extends ActionNode {
 
     @Override
     public void updateUtility(double result) {
-        totalUtility += result;
+        addTotalUtility(result);
         double currentUtility = getUtility();
-        localLowerBound = Math.min(localLowerBound, currentUtility);
-        localUpperBound = Math.max(localUpperBound, currentUtility);
-        
+        widenBounds(currentUtility);
+
         ActionNode parentAction = parent.parent;
         if (parentAction != null) {
-            parentAction.localLowerBound = Math.min(parentAction.localLowerBound, currentUtility);
-            parentAction.localUpperBound = Math.max(parentAction.localUpperBound, currentUtility);
+            parentAction.widenBounds(currentUtility);
         }
     }
 
+    /**
+     * Menambahkan statistik dari node aksi yang sama di pohon pencarian lain
+     * ke node ini (dipakai pada root parallelization).
+     *
+     * @param other Node aksi yang sama dari pohon lain
+     */
+    void merge(MctsActionNode other) {
+        addVisitCount(other.getVisitCount());
+        addTotalUtility(other.getTotalUtility());
+        //Bound yang masih kosong (tak hingga) tidak memperlebar bound node ini
+        if (other.getLowerBound() <= other.getUpperBound()) {
+            widenBounds(other.getLowerBound());
+            widenBounds(other.getUpperBound());
+        }
+    }
+
+    /**
+     * Menambahkan virtual loss ke aksi ini, yaitu visit yang dihitung sebelum
+     * hasil simulasinya diketahui. Utilitas aksi ini akan tampak lebih rendah
+     * bagi thread lain sehingga thread-thread memilih jalur yang berbeda.
+     *
+     * @param virtualLoss Jumlah visit semu yang ditambahkan
+     */
+    void addVirtualLoss(int virtualLoss) {
+        addVisitCount(virtualLoss);
+    }
+
+    /**
+     * Mengganti virtual loss yang ditambahkan saat seleksi dengan 1 visit dan
+     * hasil simulasi yang sebenarnya.
+     *
+     * @param virtualLoss Jumlah visit semu yang ditambahkan saat seleksi
+     * @param result Hasil simulasi
+     */
+    void completeVisit(int virtualLoss, double result) {
+        addVisitCount(1 - virtualLoss);
+        updateUtility(result);
+    }
+
+    private void addTotalUtility(double value) {
+        long bits;
+        do {
+            bits = totalUtilityBits;
+        } while (!TOTAL_UTILITY.compareAndSet(this, bits,
+                Double.doubleToRawLongBits(Double.longBitsToDouble(bits) + value)));
+    }
+
+    private double getTotalUtility() {
+        return Double.longBitsToDouble(totalUtilityBits);
+    }
+
     @Override
     public double getUtility() {
-        return totalUtility / this.getVisitCount();
+        return getTotalUtility() / this.getVisitCount();
     }
 
     @Override
-    public StateNode simulateAction(GameModel model) {
-        GameState nextState = model.applyAction(parent.state, this.action);
-
-        if (children.containsKey(nextState)) {
-            return children.get(nextState);
-        } else {
-            MctsStateNode newNode = new MctsStateNode(nextState, this);
-            children.put(nextState, newNode);
-            return newNode;
-        }
+    protected StateNode createChildNode(GameState state) {
+        return new MctsStateNode(state, this);
     }
 }
@@ -2,18 +2,25 @@ package agent.mcts;
 
 import agent.ActionNode;
 import agent.GamePlayingAgent;
-import agent.GameResult;
+import agent.NodeArena;
+import agent.NodeBudget;
+import agent.RandomPlayouts;
+import agent.SearchExecutor;
 import agent.StateNode;
+import agent.TranspositionTable;
 import agent.bestChildPolicy.BestChildPolicy;
 import agent.bestChildPolicy.MostVisitPolicy;
 import agent.normalizationPolicy.NormalizationPolicy;
 import agent.normalizationPolicy.SpaceLocalNormalization;
 import game.GameAction;
 import game.GameModel;
+import game.TickBudget;
 import game.GameModel.GameState;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Future;
+import util.FastRandom;
 
 /**
  * Game-Playing Agent Monte Carlo Tree Search dengan Algoritma UCT
@@ -22,19 +29,119 @@ import java.util.Random;
  */
 public class MctsAgent extends GamePlayingAgent {
 
+    private static final GameAction[] ACTIONS = GameAction.values();
+
     private final double EXPLORATION_CONSTANT;
     private final BestChildPolicy BEST_CHILD_POLICY;
     private final NormalizationPolicy NORMALIZATION_POLICY;
 
-    private final Random rand = new Random();
+    private final Random rand;
+
+    // Penyimpanan pohon dalam array primitif, null jika pohon disimpan
+    // sebagai objek node
+    private final NodeArena arena;
+    private final int[] rootVisitCounts = new int[NodeArena.ACTION_COUNT];
+    private final double[] rootUtilities = new double[NodeArena.ACTION_COUNT];
+
+    private final boolean TREE_REUSE;
+    // Root dan aksi yang dipilih pada pemanggilan selectAction() sebelumnya,
+    // disimpan jika TREE_REUSE aktif
+    private StateNode previousRoot;
+    private GameAction previousAction;
+
+    // Agen-agen yang masing-masing menumbuhkan pohon sendiri pada root
+    // parallelization, atau bersama-sama menumbuhkan 1 pohon jika
+    // SHARED_TREE aktif. Bernilai null jika pencarian dilakukan dengan 1 thread.
+    private final MctsAgent[] workers;
+    private final boolean SHARED_TREE;
+    private final int VIRTUAL_LOSS;
+
+    // Jumlah random playout yang dijalankan bersamaan dari setiap node hasil
+    // expand(), beserta buffer untuk playout-playout tersebut (null jika hanya
+    // 1 playout)
+    private final int LEAF_PLAYOUTS;
+    private final RandomPlayouts leafPlayouts;
+
+    // Tabel transposisi yang membuat pohon pencarian menjadi DAG, null jika
+    // tidak dipakai. Dikosongkan di awal setiap pencarian.
+    private final TranspositionTable transpositions;
+
+    // Batas jumlah node state dari pohon, null jika tidak dibatasi. Pada pohon
+    // bersama, semua worker memakai objek yang sama.
+    private final NodeBudget nodeBudget;
+    // Jika aktif, pohon yang sudah mencapai batas dipangkas di awal iterasi.
+    // Jika tidak, node baru tidak lagi disimpan di pohon.
+    private final boolean NODE_EVICTION;
+
+    // Buffer yang dipakai ulang di setiap iterasi supaya iterasi pada pohon
+    // objek tidak melakukan alokasi: kandidat aksi terbaik saat seleksi, serta
+    // aksi dan papan dari state terakhir yang tidak dapat disimpan di pohon
+    // karena batas jumlah node sudah tercapai (lihat descend())
+    private final ActionNode[] bestChildren = new ActionNode[ACTIONS.length];
+    private ActionNode openAction;
+    private long openBoard;
 
     private MctsAgent(
             double explorationConstant,
             BestChildPolicy bestChildPolicy,
-            NormalizationPolicy normalizationPolicy) {
+            NormalizationPolicy normalizationPolicy,
+            Random rand,
+            int arenaCapacity,
+            boolean treeReuse,
+            int threadCount,
+            boolean sharedTree,
+            int virtualLoss,
+            int leafPlayouts,
+            int transpositionCapacity,
+            TranspositionTable.ReplacementPolicy replacementPolicy,
+            boolean symmetricTranspositions,
+            NodeBudget nodeBudget,
+            boolean nodeEviction) {
         this.EXPLORATION_CONSTANT = explorationConstant;
         this.BEST_CHILD_POLICY = bestChildPolicy;
         this.NORMALIZATION_POLICY = normalizationPolicy;
+        this.rand = rand;
+        this.arena = arenaCapacity > 0 ? new NodeArena(arenaCapacity) : null;
+        this.TREE_REUSE = treeReuse;
+        this.SHARED_TREE = sharedTree;
+        this.VIRTUAL_LOSS = virtualLoss;
+        this.LEAF_PLAYOUTS = leafPlayouts;
+        this.leafPlayouts = leafPlayouts > 1 ? new RandomPlayouts(leafPlayouts, rand, false) : null;
+        this.transpositions = transpositionCapacity > 0 && threadCount <= 1
+                ? new TranspositionTable(transpositionCapacity, replacementPolicy, symmetricTranspositions)
+                : null;
+        this.nodeBudget = nodeBudget;
+        this.NODE_EVICTION = nodeEviction;
+
+        if (threadCount > 1) {
+            //Pada pohon bersama, semua worker memakai normalization policy
+            //yang sama seperti TdtsAgent, sehingga global bound-nya juga
+            //dipakai bersama. Pada root parallelization, setiap pohon
+            //memiliki global bound sendiri.
+            workers = new MctsAgent[threadCount];
+            for (int i = 0; i < threadCount; i++) {
+                workers[i] = new MctsAgent(
+                        explorationConstant,
+                        bestChildPolicy,
+                        sharedTree ? normalizationPolicy : normalizationPolicy.newInstance(),
+                        new FastRandom(rand.nextLong()),
+                        0,
+                        treeReuse && !sharedTree,
+                        1,
+                        sharedTree,
+                        virtualLoss,
+                        leafPlayouts,
+                        transpositionCapacity,
+                        replacementPolicy,
+                        symmetricTranspositions,
+                        nodeBudget == null || sharedTree ? nodeBudget
+                                : new NodeBudget(Math.max(2, nodeBudget.getLimit() / threadCount)),
+                        nodeEviction
+                );
+            }
+        } else {
+            workers = null;
+        }
     }
 
     public static class Builder {
@@ -42,12 +149,28 @@ public class MctsAgent extends GamePlayingAgent {
         private double explorationConstant;
         private BestChildPolicy bestChildPolicy;
         private NormalizationPolicy normalizationPolicy;
+        private Random rand;
+        private int arenaCapacity;
+        private boolean treeReuse;
+        private int threadCount;
+        private boolean sharedTree;
+        private int virtualLoss;
+        private int leafPlayouts;
+        private int transpositionCapacity;
+        private TranspositionTable.ReplacementPolicy replacementPolicy;
+        private boolean symmetricTranspositions;
+        private int nodeBudget;
+        private boolean nodeEviction;
 
         public Builder() {
             //set default values
             explorationConstant = Math.sqrt(2);
             bestChildPolicy = new MostVisitPolicy();
             normalizationPolicy = new SpaceLocalNormalization();
+            threadCount = 1;
+            virtualLoss = 1;
+            leafPlayouts = 1;
+            replacementPolicy = TranspositionTable.ReplacementPolicy.LEAST_VISITED;
         }
 
         public Builder setExplorationConstant(double explorationConstant) {
@@ -65,14 +188,235 @@ public class MctsAgent extends GamePlayingAgent {
             return this;
         }
 
+        /**
+         * Mengatur random number generator yang dipakai agen untuk tie
+         * breaking dan random playout. Jika tidak diatur, agen memakai
+         * FastRandom dengan seed acak.
+         *
+         * @param rand Random number generator yang dipakai agen
+         * @return Builder ini
+         */
+        public Builder setRandom(Random rand) {
+            this.rand = rand;
+            return this;
+        }
+
+        /**
+         * Mengatur agar pohon pencarian disimpan dalam NodeArena dengan
+         * kapasitas tertentu, bukan sebagai objek node. Jika arena penuh,
+         * pencarian untuk langkah tersebut dihentikan lebih awal.
+         *
+         * @param arenaCapacity Jumlah node state maksimum, atau 0 untuk
+         * memakai pohon objek (default)
+         * @return Builder ini
+         */
+        public Builder setArenaCapacity(int arenaCapacity) {
+            this.arenaCapacity = arenaCapacity;
+            return this;
+        }
+
+        /**
+         * Mengatur agar agen menyimpan pohon pencarian di antara pemanggilan
+         * selectAction(). Pada pemanggilan berikutnya, node dari state baru
+         * (jika sudah pernah dikunjungi) dijadikan root sehingga statistiknya
+         * tetap terpakai. Tidak berlaku jika pohon disimpan di NodeArena.
+         *
+         * @param treeReuse True untuk memakai ulang pohon pencarian
+         * @return Builder ini
+         */
+        public Builder setTreeReuse(boolean treeReuse) {
+            this.treeReuse = treeReuse;
+            return this;
+        }
+
+        /**
+         * Mengatur jumlah thread untuk root parallelization. Setiap thread
+         * menumbuhkan pohon sendiri dari root yang sama dengan bagian tick,
+         * random number generator, dan normalization policy tersendiri.
+         * Statistik aksi di root dari semua pohon digabung sebelum aksi
+         * terbaik dipilih. Tidak dapat digabung dengan NodeArena.
+         *
+         * @param threadCount Jumlah thread, 1 untuk pencarian tanpa paralelisasi
+         * (default)
+         * @return Builder ini
+         */
+        public Builder setThreadCount(int threadCount) {
+            this.threadCount = threadCount;
+            return this;
+        }
+
+        /**
+         * Mengatur agar thread-thread pencarian (lihat setThreadCount())
+         * menumbuhkan 1 pohon bersama, bukan pohon masing-masing. Statistik
+         * node diperbarui secara atomik dan virtual loss diberikan saat
+         * seleksi supaya thread-thread memilih jalur yang berbeda.
+         *
+         * @param sharedTree True untuk memakai 1 pohon bersama
+         * @return Builder ini
+         */
+        public Builder setSharedTree(boolean sharedTree) {
+            this.sharedTree = sharedTree;
+            return this;
+        }
+
+        /**
+         * Mengatur jumlah visit semu yang ditambahkan ke sebuah aksi saat
+         * dipilih oleh thread pada pohon bersama, sebelum hasil simulasinya
+         * diketahui. Nilai 0 berarti tanpa virtual loss.
+         *
+         * @param virtualLoss Jumlah visit semu (default 1)
+         * @return Builder ini
+         */
+        public Builder setVirtualLoss(int virtualLoss) {
+            this.virtualLoss = virtualLoss;
+            return this;
+        }
+
+        /**
+         * Mengatur jumlah random playout yang dijalankan bersamaan di thread
+         * pool dari setiap node hasil expand() (leaf parallelization). Semua
+         * playout mengambil tick dari anggaran bersama (TickBudget), dan hasil dari semua playout
+         * diterapkan sebagai backup masing-masing dalam 1 kali
+         * backpropagation. Tidak dapat digabung dengan NodeArena.
+         *
+         * @param leafPlayouts Jumlah playout per iterasi (default 1)
+         * @return Builder ini
+         */
+        public Builder setLeafPlayouts(int leafPlayouts) {
+            this.leafPlayouts = leafPlayouts;
+            return this;
+        }
+
+        /**
+         * Mengatur agar setiap pencarian memakai tabel transposisi dengan
+         * kapasitas tertentu, sehingga state yang dicapai lewat urutan aksi
+         * yang berbeda memakai node (dan statistik) yang sama. Pada root
+         * parallelization, setiap pohon memiliki tabel sendiri. Tidak dapat
+         * digabung dengan NodeArena maupun pohon bersama.
+         *
+         * @param transpositionCapacity Jumlah entri tabel, atau 0 untuk tanpa
+         * tabel transposisi (default)
+         * @return Builder ini
+         */
+        public Builder setTranspositionTable(int transpositionCapacity) {
+            this.transpositionCapacity = transpositionCapacity;
+            return this;
+        }
+
+        /**
+         * Mengatur cara memilih entri tabel transposisi yang diganti jika
+         * tabel penuh.
+         *
+         * @param replacementPolicy Replacement policy (default LEAST_VISITED)
+         * @return Builder ini
+         */
+        public Builder setReplacementPolicy(TranspositionTable.ReplacementPolicy replacementPolicy) {
+            this.replacementPolicy = replacementPolicy;
+            return this;
+        }
+
+        /**
+         * Mengatur apakah tabel transposisi menganggap state yang simetris
+         * (rotasi atau pencerminan papan) sebagai state yang sama, sehingga
+         * statistiknya dipakai bersama.
+         *
+         * @param symmetricTranspositions True untuk tabel simetris (default
+         * false)
+         * @return Builder ini
+         */
+        public Builder setSymmetricTranspositions(boolean symmetricTranspositions) {
+            this.symmetricTranspositions = symmetricTranspositions;
+            return this;
+        }
+
+        /**
+         * Membatasi jumlah node state dari pohon pencarian, termasuk node yang
+         * dipakai ulang dengan tree reuse, sehingga memori yang dipakai agen
+         * dapat diperkirakan. Pada root parallelization, batas ini dibagi
+         * rata ke semua pohon. Tidak dapat digabung dengan NodeArena, yang
+         * kapasitasnya sudah tetap.
+         *
+         * @param nodeBudget Jumlah node state maksimum, atau 0 untuk tanpa
+         * batas (default)
+         * @return Builder ini
+         */
+        public Builder setNodeBudget(int nodeBudget) {
+            this.nodeBudget = nodeBudget;
+            return this;
+        }
+
+        /**
+         * Versi setNodeBudget(int) dengan batas memori. Jumlah node maksimum
+         * dihitung dengan perkiraan NodeBudget.BYTES_PER_NODE.
+         *
+         * @param bytes Memori maksimum untuk pohon dalam byte, atau 0 untuk
+         * tanpa batas (default)
+         * @return Builder ini
+         */
+        public Builder setNodeBudgetBytes(long bytes) {
+            return setNodeBudget(NodeBudget.limitForBytes(bytes));
+        }
+
+        /**
+         * Mengatur apa yang dilakukan jika pohon sudah mencapai batas jumlah
+         * node. Jika eviction aktif, subpohon yang paling jarang dikunjungi
+         * dilepas supaya pohon dapat terus tumbuh. Jika tidak, pencarian
+         * berlanjut tanpa menyimpan node baru. Eviction tidak dapat digabung
+         * dengan pohon bersama maupun tabel transposisi.
+         *
+         * @param nodeEviction True untuk memangkas pohon (default false)
+         * @return Builder ini
+         */
+        public Builder setNodeEviction(boolean nodeEviction) {
+            this.nodeEviction = nodeEviction;
+            return this;
+        }
+
         public MctsAgent build() {
-            return new MctsAgent(explorationConstant, bestChildPolicy, normalizationPolicy);
+            if ((threadCount > 1 || leafPlayouts > 1) && arenaCapacity > 0) {
+                throw new IllegalStateException("Parallel search does not support node arena");
+            }
+            if (transpositionCapacity > 0 && (arenaCapacity > 0 || (threadCount > 1 && sharedTree))) {
+                throw new IllegalStateException("Transposition table does not support node arena or shared tree");
+            }
+            if (nodeBudget < 0) {
+                throw new IllegalStateException("Node budget must not be negative: " + nodeBudget);
+            }
+            if (nodeBudget > 0 && arenaCapacity > 0) {
+                throw new IllegalStateException("Node budget does not support node arena");
+            }
+            if (nodeEviction && (nodeBudget == 0 || transpositionCapacity > 0 || (threadCount > 1 && sharedTree))) {
+                throw new IllegalStateException("Node eviction requires a node budget, without transposition table or shared tree");
+            }
+            if (leafPlayouts < 1) {
+                throw new IllegalStateException("Leaf playouts must be positive: " + leafPlayouts);
+            }
+            if (virtualLoss < 0) {
+                throw new IllegalStateException("Virtual loss must not be negative: " + virtualLoss);
+            }
+            return new MctsAgent(
+                    explorationConstant,
+                    bestChildPolicy,
+                    normalizationPolicy,
+                    rand != null ? rand : new FastRandom(),
+                    arenaCapacity,
+                    treeReuse,
+                    threadCount,
+                    sharedTree,
+                    virtualLoss,
+                    leafPlayouts,
+                    transpositionCapacity,
+                    replacementPolicy,
+                    symmetricTranspositions,
+                    nodeBudget > 0 ? new NodeBudget(nodeBudget) : null,
+                    nodeEviction
+            );
         }
     }
 
     @Override
     public String getConfigurationString() {
-        return String.format(
+        String configuration = String.format(
                 "Exploration constant: %f%n"
                 + "Best-child policy: %s%n"
                 + "Normalization policy: %s",
@@ -80,21 +424,204 @@ public class MctsAgent extends GamePlayingAgent {
                 BEST_CHILD_POLICY,
                 NORMALIZATION_POLICY
         );
+        if (arena != null) {
+            configuration += String.format("%n%s", arena.getMemoryReport());
+        } else if (TREE_REUSE) {
+            configuration += String.format("%nTree reuse: enabled");
+        }
+        if (workers != null && SHARED_TREE) {
+            configuration += String.format("%nShared-tree threads: %d (virtual loss %d)",
+                    workers.length, VIRTUAL_LOSS);
+        } else if (workers != null) {
+            configuration += String.format("%nRoot-parallel threads: %d", workers.length);
+        }
+        if (LEAF_PLAYOUTS > 1) {
+            configuration += String.format("%nLeaf-parallel playouts: %d", LEAF_PLAYOUTS);
+        }
+        TranspositionTable table = workers != null ? workers[0].transpositions : transpositions;
+        if (table != null) {
+            configuration += String.format("%nTransposition table: %d entries (%s%s)",
+                    table.capacity(), table.getPolicy(), table.isSymmetric() ? ", symmetric" : "");
+        }
+        if (nodeBudget != null) {
+            configuration += String.format("%nNode budget: %d state nodes (~%.2f MB, %s)", nodeBudget.getLimit(),
+                    nodeBudget.getEstimatedBytes() / (1024.0 * 1024.0),
+                    NODE_EVICTION ? "evict least visited" : "stop expanding");
+        }
+        return configuration;
     }
 
     @Override
     public GameAction selectAction(GameState state, GameModel model) {
+        if (arena != null) {
+            NORMALIZATION_POLICY.resetNormalizationBound();
+            return selectActionInArena(state, model);
+        }
+        if (workers != null && SHARED_TREE) {
+            return selectActionSharedTree(state, model);
+        } else if (workers != null) {
+            return selectActionRootParallel(state, model);
+        }
+
+        StateNode root = search(state, model);
+        GameAction bestAction = BEST_CHILD_POLICY.selectBestChild(root).action;
+        if (TREE_REUSE) {
+            previousRoot = root;
+            previousAction = bestAction;
+        }
+        return bestAction;
+    }
+
+    /**
+     * Menumbuhkan pohon pencarian dari state tertentu hingga tick model habis.
+     *
+     * @param state State pada root
+     * @param model Forward model dari permainan 2048
+     * @return Root dari pohon pencarian
+     */
+    private StateNode search(GameState state, GameModel model) {
         NORMALIZATION_POLICY.resetNormalizationBound();
+        if (transpositions != null) {
+            transpositions.clear();
+        }
+        StateNode root = TREE_REUSE ? reuseTree(state) : null;
+        if (root == null) {
+            root = new MctsStateNode(state, null);
+        }
+        if (nodeBudget != null) {
+            nodeBudget.reset(root);
+        }
+        return grow(root, model);
+    }
 
-        StateNode root = new MctsStateNode(state, null);
+    /**
+     * Melakukan iterasi MCTS pada pohon dengan root tertentu hingga tick model
+     * habis. Pada pohon bersama, method ini dijalankan oleh beberapa worker
+     * sekaligus pada root yang sama.
+     *
+     * @param root Root dari pohon pencarian
+     * @param model Forward model dari permainan 2048
+     * @return Root dari pohon pencarian
+     */
+    private StateNode grow(StateNode root, GameModel model) {
         while (model.isUsable()) {
+            if (NODE_EVICTION && nodeBudget.isFull()) {
+                nodeBudget.evict(root);
+            }
             StateNode leaf = select(root, model);
             StateNode child = expand(leaf, model);
-            GameResult result = simulate(child, model);
-            backPropagate(child, result);
+            //Jika child null, simulasi dimulai dari state yang tidak disimpan
+            //di pohon
+            ActionNode action = child != null ? child.parent : openAction;
+            long board = child != null ? child.state.getPackedBoard() : openBoard;
+            int score = child != null ? child.state.getScore() : action.getAfterstate(model).getScore();
+            if (LEAF_PLAYOUTS > 1) {
+                leafPlayouts.run(board, score, model);
+                backPropagate(child, action, leafPlayouts);
+            } else {
+                backPropagate(child, action, RandomPlayouts.simulate(board, score, model, rand, null));
+            }
         }
+        return root;
+    }
 
-        return BEST_CHILD_POLICY.selectBestChild(root).action;
+    /**
+     * Versi selectAction() dengan root parallelization. Tick model dibagi rata
+     * ke semua worker, lalu visit count dan total utilitas dari aksi-aksi di
+     * root setiap pohon digabung ke satu root sebelum aksi terbaik dipilih.
+     */
+    private GameAction selectActionRootParallel(GameState state, GameModel model) {
+        int tickLeft = model.getTickLeft();
+        List<Future<StateNode>> results = new ArrayList<>(workers.length);
+        for (int i = 0; i < workers.length; i++) {
+            MctsAgent worker = workers[i];
+            GameState workerState = state.copy();
+            GameModel workerModel = model.split(
+                    tickLeft / workers.length + (i < tickLeft % workers.length ? 1 : 0));
+            results.add(SearchExecutor.submit(() -> worker.search(workerState, workerModel)));
+        }
+
+        StateNode[] roots = new StateNode[workers.length];
+        StateNode mergedRoot = new MctsStateNode(state, null);
+        for (int i = 0; i < workers.length; i++) {
+            roots[i] = SearchExecutor.await(results.get(i));
+            for (GameAction action : ACTIONS) {
+                MctsActionNode mergedChild = (MctsActionNode) mergedRoot.getOrCreateChildNode(action);
+                MctsActionNode child = (MctsActionNode) roots[i].getChildNode(action);
+                if (mergedChild != null && child != null) {
+                    mergedChild.merge(child);
+                }
+            }
+        }
+
+        GameAction bestAction = BEST_CHILD_POLICY.selectBestChild(mergedRoot).action;
+        if (TREE_REUSE) {
+            for (int i = 0; i < workers.length; i++) {
+                workers[i].previousRoot = roots[i];
+                workers[i].previousAction = bestAction;
+            }
+        }
+        return bestAction;
+    }
+
+    /**
+     * Versi selectAction() dengan 1 pohon yang ditumbuhkan bersama oleh semua
+     * worker. Semua worker mengambil tick dari anggaran bersama (TickBudget).
+     */
+    private GameAction selectActionSharedTree(GameState state, GameModel model) {
+        NORMALIZATION_POLICY.resetNormalizationBound();
+        StateNode reusedRoot = TREE_REUSE ? reuseTree(state) : null;
+        StateNode root = reusedRoot != null ? reusedRoot : new MctsStateNode(state, null);
+        if (nodeBudget != null) {
+            nodeBudget.reset(root);
+        }
+
+        //Semua worker mengambil tick dari anggaran bersama per batch,
+        //sehingga worker yang playout-nya pendek tidak menganggur
+        TickBudget budget = model.share();
+        List<Future<StateNode>> results = new ArrayList<>(workers.length);
+        for (int i = 0; i < workers.length; i++) {
+            MctsAgent worker = workers[i];
+            GameModel workerModel = model.fork(budget);
+            results.add(SearchExecutor.submit(() -> {
+                worker.grow(root, workerModel);
+                workerModel.release();
+                return root;
+            }));
+        }
+        for (Future<StateNode> result : results) {
+            SearchExecutor.await(result);
+        }
+        model.reclaim(budget);
+
+        GameAction bestAction = BEST_CHILD_POLICY.selectBestChild(root).action;
+        if (TREE_REUSE) {
+            previousRoot = root;
+            previousAction = bestAction;
+        }
+        return bestAction;
+    }
+
+    /**
+     * Mencari node dari state tertentu di pohon pencarian sebelumnya, yaitu
+     * di bawah aksi yang terakhir dipilih, lalu menjadikannya root. Bagian
+     * lain dari pohon sebelumnya dilepas.
+     *
+     * @param state State tempat agen berada saat ini
+     * @return Root baru, atau null jika state belum pernah dikunjungi
+     */
+    private StateNode reuseTree(GameState state) {
+        if (previousRoot == null) {
+            return null;
+        }
+        StateNode root = previousRoot.getNextStateNode(previousAction, state);
+        previousRoot = null;
+        if (root != null && transpositions != null) {
+            root.detachDag();
+        } else if (root != null) {
+            root.detach();
+        }
+        return root;
     }
 
     /**
@@ -108,49 +635,57 @@ public class MctsAgent extends GamePlayingAgent {
      * @return Node state yang memiliki unvisted action atau node terminal
      */
     private StateNode select(StateNode root, GameModel model) {
-        if (root.state.isTerminal() || !model.isUsable()) {
-            return root;
-        } else {
-            for (GameAction action : GameAction.values()) {
-                ActionNode child = root.getChildNode(action);
+        StateNode node = root;
+        while (!node.state.isTerminal() && model.isUsable()) {
+            int actionMask = node.getActionMask();
+            for (GameAction action : ACTIONS) {
+                if ((actionMask & (1 << action.id)) == 0) {
+                    continue;
+                }
+                ActionNode child = node.getChildNode(action);
 
-                //Ada aksi yang belum pernah dicoba
-                if (child != null && child.getVisitCount() == 0) {
-                    return root;
+                //Ada aksi yang belum pernah dicoba (node-nya mungkin belum dibuat)
+                if (child == null || child.getVisitCount() == 0) {
+                    return node;
                 }
             }
 
             //State ini sudah fully expanded
-            List<ActionNode> bestChildList = new ArrayList<>();
+            int bestCount = 0;
             double bestValue = Double.NEGATIVE_INFINITY;
-            for (GameAction action : GameAction.values()) {
-                ActionNode child = root.getChildNode(action);
+            //Pada pohon bersama, visit dari state bisa tertinggal dari visit
+            //aksinya (virtual loss)
+            double logNRoot = Math.log(Math.max(1, node.getVisitCount()));
+            for (GameAction action : ACTIONS) {
+                ActionNode child = node.getChildNode(action);
 
                 //Aksi tidak valid
                 if (child == null) {
                     continue;
                 }
 
-                int nRoot = root.getVisitCount();
                 int nChild = child.getVisitCount();
                 //menghitung nilai UCB1
                 double exploitationComp = NORMALIZATION_POLICY.getNormalizedUtility(child);
 
                 double explorationComp = EXPLORATION_CONSTANT
-                        * Math.sqrt(Math.log(nRoot) / nChild);
+                        * Math.sqrt(logNRoot / nChild);
                 double ucb1 = exploitationComp + explorationComp;
 
                 if (ucb1 > bestValue) {
                     bestValue = ucb1;
-                    bestChildList.clear();
-                    bestChildList.add(child);
+                    bestCount = 0;
+                    bestChildren[bestCount++] = child;
                 } else if (ucb1 == bestValue) {
-                    bestChildList.add(child);
+                    bestChildren[bestCount++] = child;
                 }
             }
-            ActionNode bestChild = bestChildList.get(rand.nextInt(bestChildList.size()));
-            return select(bestChild.simulateAction(model), model);
+            node = descend(bestChildren[rand.nextInt(bestCount)], model);
+            if (node == null) {
+                return null;
+            }
         }
+        return node;
     }
 
     /**
@@ -159,53 +694,71 @@ public class MctsAgent extends GamePlayingAgent {
      * dihasilkan dari aksi tersebut. StateNode baru tersebut akan menjadi titik
      * awal dilakukannya simulai.
      *
-     * @param leaf StateMode yang ingin di-expand
+     * @param leaf StateMode yang ingin di-expand, atau null jika select()
+     * berhenti di state yang tidak disimpan di pohon
      * @param model Forward model dari permainan 2048
      * @return StateNode baru sebagai titik awal dilakukannya simulasi. Node
-     * baru ini dihasilkan dari sebuah aksi di node leaf yang belum pernah, atau
-     * node leaf itu sendiri jika leaf adalah state terminal atau jika model
-     * sudah tidak usable. dicoba.
+     * baru ini dihasilkan dari sebuah aksi di node leaf yang belum pernah
+     * dicoba, atau node leaf itu sendiri jika leaf adalah state terminal atau
+     * jika model sudah tidak usable. Bernilai null jika state yang dicapai
+     * tidak disimpan di pohon (lihat descend()).
      */
     private StateNode expand(StateNode leaf, GameModel model) {
-        if (!model.isUsable() || leaf.state.isTerminal()) {
+        if (leaf == null || !model.isUsable() || leaf.state.isTerminal()) {
             return leaf;
         }
 
-        List<ActionNode> unvisitedActions = new ArrayList<>();
-        for (GameAction action : GameAction.values()) {
+        int actionMask = leaf.getActionMask();
+        int unvisitedMask = 0;
+        for (GameAction action : ACTIONS) {
+            if ((actionMask & (1 << action.id)) == 0) {
+                continue;
+            }
             ActionNode child = leaf.getChildNode(action);
 
             //aksi yang belum pernah dicoba
-            if (child != null && child.getVisitCount() == 0) {
-                unvisitedActions.add(child);
+            if (child == null || child.getVisitCount() == 0) {
+                unvisitedMask |= 1 << action.id;
             }
         }
 
         /**
-         * unvisitedActions tidak mungkin kosong. Kalau kosong, berarti action
+         * unvisitedMask tidak mungkin kosong. Kalau kosong, berarti action
          * udah visited semua, atau memang terminal state. Terminal state sudah
          * dicek di awal method, dan kalau fully-visited, harusnya belum keluar
          * dari method select().
          */
-        return unvisitedActions.get(rand.nextInt(unvisitedActions.size())).simulateAction(model);
+        GameAction chosenAction = GameAction.fromMask(unvisitedMask, rand.nextInt(Integer.bitCount(unvisitedMask)));
+        return descend(leaf.getOrCreateChildNode(chosenAction), model);
     }
 
     /**
-     * Mensimulasikan permainan dengan Random Playout Policy mulai dari starting
-     * node hingga mencapai terminal state atau kalau tick model sudah habis.
+     * Menerapkan aksi yang dipilih saat menuruni pohon. Pada pohon bersama,
+     * virtual loss ditambahkan ke aksi tersebut sebelum child-nya dicari.
+     *
+     * Jika batas jumlah node sudah tercapai dan state yang dihasilkan belum
+     * ada di pohon, method ini mengembalikan null dan mencatat aksi beserta
+     * papan tersebut di openAction dan openBoard, sehingga tidak perlu dibuat
+     * node sementara. Pada pohon bersama, node sementara tetap dibuat.
      *
-     * @param startingNode Node dimulainya simulasi
-     * @param model Forward model dari game ini
-     * @return Skor akhir dari simulasi
+     * @param action Aksi yang dipilih
+     * @param model Forward model dari permainan 2048
+     * @return Node state hasil aksi tersebut, atau null jika state tersebut
+     * tidak disimpan di pohon
      */
-    private GameResult simulate(StateNode startingNode, GameModel model) {
-        GameState currentState = startingNode.state;
-        while (!currentState.isTerminal() && model.isUsable()) {
-            List<GameAction> validActions = currentState.getAvailableActions();
-            currentState = model.applyAction(currentState, validActions.get(rand.nextInt(validActions.size())));
+    private StateNode descend(ActionNode action, GameModel model) {
+        if (!SHARED_TREE) {
+            long board = action.sampleNextBoard(model);
+            StateNode child = action.getOrCreateChildNode(board, transpositions, nodeBudget);
+            if (child == null) {
+                openAction = action;
+                openBoard = board;
+            }
+            return child;
         }
-
-        return new GameResult(currentState.getScore());
+        MctsActionNode sharedAction = (MctsActionNode) action;
+        sharedAction.addVirtualLoss(VIRTUAL_LOSS);
+        return sharedAction.simulateActionShared(model, nodeBudget);
     }
 
     /**
@@ -213,19 +766,200 @@ public class MctsAgent extends GamePlayingAgent {
      * berdasarkan hasil selection() dan simulation(). Class ini menjacat total
      * skor dan jumlah visit dari simulasi yang melewati setiap ActionState.
      *
-     * @param stateNode StateNode leaf tempat simulasi dimulai.
-     * @param result Hasil simulasi permainan
+     * @param leaf StateNode leaf tempat simulasi dimulai, atau null jika state
+     * tersebut tidak disimpan di pohon
+     * @param action Aksi yang menghasilkan state tempat simulasi dimulai
+     * (parent dari leaf jika leaf tidak null)
+     * @param score Skor akhir dari simulasi
      */
-    private void backPropagate(StateNode stateNode, GameResult result) {
-        NORMALIZATION_POLICY.updateNormalizationBound(result.score);
-        while (true) {
+    private void backPropagate(StateNode leaf, ActionNode action, int score) {
+        NORMALIZATION_POLICY.updateNormalizationBound(score);
+        if (leaf != null) {
+            leaf.incrementVisitCount();
+        }
+        while (action != null) { //berhenti setelah root
+            if (SHARED_TREE) {
+                ((MctsActionNode) action).completeVisit(VIRTUAL_LOSS, score);
+            } else {
+                action.incrementVisitCount();
+                action.updateUtility(score);
+            }
+            StateNode stateNode = action.parent;
             stateNode.incrementVisitCount();
-            if (stateNode.parent == null) { //sudah sampai root
+            action = stateNode.parent;
+        }
+    }
+
+    /**
+     * Versi backPropagate() untuk hasil dari beberapa simulasi sekaligus.
+     * Setiap hasil diterapkan sebagai 1 backup, tetapi jalur dari leaf ke root
+     * hanya ditelusuri sekali.
+     *
+     * @param leaf StateNode leaf tempat simulasi dimulai, atau null jika state
+     * tersebut tidak disimpan di pohon
+     * @param action Aksi yang menghasilkan state tempat simulasi dimulai
+     * @param playouts Hasil dari setiap simulasi
+     */
+    private void backPropagate(StateNode leaf, ActionNode action, RandomPlayouts playouts) {
+        int count = playouts.getCount();
+        for (int k = 0; k < count; k++) {
+            NORMALIZATION_POLICY.updateNormalizationBound(playouts.getScore(k));
+        }
+        if (leaf != null) {
+            for (int k = 0; k < count; k++) {
+                leaf.incrementVisitCount();
+            }
+        }
+        while (action != null) { //berhenti setelah root
+            for (int k = 0; k < count; k++) {
+                //Virtual loss hanya diberikan sekali saat seleksi
+                if (SHARED_TREE && k == 0) {
+                    ((MctsActionNode) action).completeVisit(VIRTUAL_LOSS, playouts.getScore(k));
+                } else {
+                    action.incrementVisitCount();
+                    action.updateUtility(playouts.getScore(k));
+                }
+            }
+            StateNode stateNode = action.parent;
+            for (int k = 0; k < count; k++) {
+                stateNode.incrementVisitCount();
+            }
+            action = stateNode.parent;
+        }
+    }
+
+    /**
+     * Versi selectAction() yang menyimpan pohon pencarian di NodeArena.
+     * Algoritmanya sama dengan versi pohon objek.
+     */
+    private GameAction selectActionInArena(GameState state, GameModel model) {
+        arena.reset();
+        int root = arena.newRoot(state);
+        // Satu iterasi membuat paling banyak 2 node baru (select dan expand)
+        while (model.isUsable() && arena.hasRoom(2)) {
+            int leaf = selectInArena(root, model);
+            int child = expandInArena(leaf, model);
+            int score = RandomPlayouts.simulate(arena.getBoard(child), arena.getScore(child), model, rand, null);
+            backPropagateInArena(child, score);
+        }
+
+        int actionMask = arena.getActionMask(root);
+        for (GameAction action : ACTIONS) {
+            int child = NodeArena.actionOf(root, action);
+            rootVisitCounts[action.id] = arena.getActionVisitCount(child);
+            rootUtilities[action.id] = arena.getValue(child) / arena.getActionVisitCount(child);
+        }
+        return BEST_CHILD_POLICY.selectBestAction(actionMask, rootVisitCounts, rootUtilities);
+    }
+
+    /**
+     * Versi select() untuk NodeArena, dilakukan secara iteratif.
+     */
+    private int selectInArena(int node, GameModel model) {
+        while (!arena.isTerminal(node) && model.isUsable()) {
+            int actionMask = arena.getActionMask(node);
+            for (GameAction action : ACTIONS) {
+                //Ada aksi yang belum pernah dicoba
+                if ((actionMask & (1 << action.id)) != 0
+                        && arena.getActionVisitCount(NodeArena.actionOf(node, action)) == 0) {
+                    return node;
+                }
+            }
+
+            //State ini sudah fully expanded, random tie breaking dilakukan
+            //dengan reservoir sampling supaya tidak perlu list kandidat
+            int bestChild = NodeArena.NO_NODE;
+            int bestCount = 0;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            double logNRoot = Math.log(arena.getStateVisitCount(node));
+            for (GameAction action : ACTIONS) {
+                //Aksi tidak valid
+                if ((actionMask & (1 << action.id)) == 0) {
+                    continue;
+                }
+
+                int child = NodeArena.actionOf(node, action);
+                int nChild = arena.getActionVisitCount(child);
+                //menghitung nilai UCB1
+                double exploitationComp = NORMALIZATION_POLICY.getNormalizedUtility(
+                        arena.getValue(child) / nChild,
+                        arena.getLowerBound(child),
+                        arena.getUpperBound(child));
+
+                double explorationComp = EXPLORATION_CONSTANT
+                        * Math.sqrt(logNRoot / nChild);
+                double ucb1 = exploitationComp + explorationComp;
+
+                if (ucb1 > bestValue) {
+                    bestValue = ucb1;
+                    bestChild = child;
+                    bestCount = 1;
+                } else if (ucb1 == bestValue && rand.nextInt(++bestCount) == 0) {
+                    bestChild = child;
+                }
+            }
+            node = simulateActionInArena(bestChild, model);
+        }
+        return node;
+    }
+
+    /**
+     * Versi expand() untuk NodeArena.
+     */
+    private int expandInArena(int leaf, GameModel model) {
+        if (!model.isUsable() || arena.isTerminal(leaf)) {
+            return leaf;
+        }
+
+        int actionMask = arena.getActionMask(leaf);
+        int unvisitedMask = 0;
+        for (GameAction action : ACTIONS) {
+            //aksi yang belum pernah dicoba
+            if ((actionMask & (1 << action.id)) != 0
+                    && arena.getActionVisitCount(NodeArena.actionOf(leaf, action)) == 0) {
+                unvisitedMask |= 1 << action.id;
+            }
+        }
+
+        GameAction chosenAction = GameAction.fromMask(unvisitedMask, rand.nextInt(Integer.bitCount(unvisitedMask)));
+        return simulateActionInArena(NodeArena.actionOf(leaf, chosenAction), model);
+    }
+
+    /**
+     * Versi ActionNode.simulateAction() untuk NodeArena: memunculkan tile
+     * baru pada afterstate aksi, lalu mengembalikan child yang sesuai
+     * (dibuat jika belum ada).
+     */
+    private int simulateActionInArena(int action, GameModel model) {
+        long nextBoard = model.sampleSpawn(arena.getAfterBoard(action));
+        int child = arena.findChild(action, nextBoard);
+        if (child == NodeArena.NO_NODE) {
+            child = arena.addChild(action, nextBoard);
+        }
+        return child;
+    }
+
+    /**
+     * Versi backPropagate() untuk NodeArena. Nilai yang disimpan di arena
+     * untuk setiap aksi adalah total utilitas, seperti MctsActionNode.
+     */
+    private void backPropagateInArena(int stateNode, int score) {
+        NORMALIZATION_POLICY.updateNormalizationBound(score);
+        while (true) {
+            arena.incrementStateVisitCount(stateNode);
+            int parent = arena.getParent(stateNode);
+            if (parent == NodeArena.NO_NODE) { //sudah sampai root
                 break;
-            } else {
-                stateNode.parent.incrementVisitCount();
-                stateNode.parent.updateUtility(result.score);
-                stateNode = stateNode.parent.parent;
+            }
+            arena.incrementActionVisitCount(parent);
+            arena.setValue(parent, arena.getValue(parent) + score);
+
+            double currentUtility = arena.getValue(parent) / arena.getActionVisitCount(parent);
+            arena.updateBounds(parent, currentUtility);
+            stateNode = NodeArena.stateOf(parent);
+            int parentAction = arena.getParent(stateNode);
+            if (parentAction != NodeArena.NO_NODE) {
+                arena.updateBounds(parentAction, currentUtility);
             }
         }
     }
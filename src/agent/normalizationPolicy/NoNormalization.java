@@ -14,6 +14,11 @@ public class NoNormalization implements NormalizationPolicy {
         return node.getUtility();
     }
 
+    @Override
+    public double getNormalizedUtility(double utility, double localLower, double localUpper) {
+        return utility;
+    }
+
     @Override
     public void updateNormalizationBound(double value) {
     }
@@ -22,6 +27,11 @@ public class NoNormalization implements NormalizationPolicy {
     public void resetNormalizationBound() {
     }
 
+    @Override
+    public NormalizationPolicy newInstance() {
+        return new NoNormalization();
+    }
+
     @Override
     public String toString() {
         return "No Normalization";
@@ -19,6 +19,17 @@ public interface NormalizationPolicy {
      */
     public double getNormalizedUtility(ActionNode node);
 
+    /**
+     * Menghitung nilai normalisasi dari utilitas yang tidak disimpan dalam
+     * objek ActionNode (misalnya pada NodeArena).
+     *
+     * @param utility Utilitas dari simpul aksi
+     * @param localLower Local lower bound dari simpul aksi
+     * @param localUpper Local upper bound dari simpul aksi
+     * @return Nilai utilitas yang sudah dinormalisasi
+     */
+    public double getNormalizedUtility(double utility, double localLower, double localUpper);
+
     /**
      * Memperbarui global bound
      *
@@ -31,4 +42,13 @@ public interface NormalizationPolicy {
      */
     public void resetNormalizationBound();
 
+    /**
+     * Membuat objek baru dari policy yang sama dengan global bound yang masih
+     * kosong. Dipakai untuk memberikan policy tersendiri ke setiap thread
+     * pencarian.
+     *
+     * @return Objek policy baru
+     */
+    public NormalizationPolicy newInstance();
+
 }
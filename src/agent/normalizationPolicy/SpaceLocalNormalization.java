@@ -9,12 +9,16 @@ import agent.ActionNode;
  * boundhya tidak valid, digunakan global bound, yaitu nilai terbesar dan
  * terkecil dari seluruh simulasi yang ada.
  *
+ * Global bound aman diperbarui oleh beberapa thread sekaligus. Bound jarang
+ * berubah setelah awal pencarian, sehingga lock hanya diambil jika nilai baru
+ * memang melewati bound.
+ *
  * @author Jiang Han
  */
 public final class SpaceLocalNormalization implements NormalizationPolicy {
 
-    private double globalLowerBound;
-    private double globalUpperBound;
+    private volatile double globalLowerBound;
+    private volatile double globalUpperBound;
 
     public SpaceLocalNormalization() {
         resetNormalizationBound();
@@ -22,13 +26,15 @@ public final class SpaceLocalNormalization implements NormalizationPolicy {
 
     @Override
     public double getNormalizedUtility(ActionNode node) {
-        double localLower = node.getLowerBound();
-        double localUpper = node.getUpperBound();
+        return getNormalizedUtility(node.getUtility(), node.getLowerBound(), node.getUpperBound());
+    }
 
+    @Override
+    public double getNormalizedUtility(double utility, double localLower, double localUpper) {
         if (localLower < localUpper) {
-            return (node.getUtility() - localLower) / (localUpper - localLower);
+            return (utility - localLower) / (localUpper - localLower);
         } else if (globalLowerBound < globalUpperBound) {
-            return (node.getUtility() - globalLowerBound) / (globalUpperBound - globalLowerBound);
+            return (utility - globalLowerBound) / (globalUpperBound - globalLowerBound);
         } else {
             return 0.5;
         }
@@ -36,16 +42,25 @@ public final class SpaceLocalNormalization implements NormalizationPolicy {
 
     @Override
     public void updateNormalizationBound(double value) {
-        globalLowerBound = Math.min(globalLowerBound, value);
-        globalUpperBound = Math.max(globalUpperBound, value);
+        if (value < globalLowerBound || value > globalUpperBound) {
+            synchronized (this) {
+                globalLowerBound = Math.min(globalLowerBound, value);
+                globalUpperBound = Math.max(globalUpperBound, value);
+            }
+        }
     }
 
     @Override
-    public void resetNormalizationBound() {
+    public synchronized void resetNormalizationBound() {
         globalLowerBound = Double.POSITIVE_INFINITY;
         globalUpperBound = Double.NEGATIVE_INFINITY;
     }
 
+    @Override
+    public NormalizationPolicy newInstance() {
+        return new SpaceLocalNormalization();
+    }
+
     @Override
     public String toString() {
         return "Space-Local Value Normalization";
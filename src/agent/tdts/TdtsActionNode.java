@@ -3,7 +3,6 @@ package agent.tdts;
 import agent.ActionNode;
 import agent.StateNode;
 import game.GameAction;
-import game.GameModel;
 import game.GameModel.GameState;
 
 /**
@@ -13,7 +12,10 @@ import game.GameModel.GameState;
  */
 class TdtsActionNode extends ActionNode {
 
-    private double utility = 0; //insert V_init here
+    //volatile supaya dapat dibaca thread lain pada pohon bersama
+    private volatile double utility = 0; //insert V_init here
+    //Jumlah update yang sudah diterapkan, hanya dipakai pada pohon bersama
+    private int updateCount = 0;
 
     TdtsActionNode(GameAction action, StateNode parent) {
         super(action, parent);
@@ -24,31 +26,67 @@ class TdtsActionNode extends ActionNode {
         double updateStepSize = 1.0 / this.getVisitCount();
         utility = utility + updateStepSize * result;
         
-        localLowerBound = Math.min(localLowerBound, utility);
-        localUpperBound = Math.max(localUpperBound, utility);
+        widenBounds(utility);
 
         ActionNode parentAction = parent.parent;
         if (parentAction != null) {
-            parentAction.localLowerBound = Math.min(parentAction.localLowerBound, utility);
-            parentAction.localUpperBound = Math.max(parentAction.localUpperBound, utility);
+            parentAction.widenBounds(utility);
         }
     }
 
+    /**
+     * Versi updateUtility() untuk pohon yang dipakai bersama oleh beberapa
+     * thread. Harus dipanggil sambil memegang lock dari node ini. Step size
+     * dihitung dari jumlah update yang sudah diterapkan, bukan dari visit
+     * count yang juga memuat virtual loss dari thread lain. Local bound dari
+     * aksi parent juga diperbarui oleh aksi-aksi saudara yang memegang lock
+     * lain, sehingga diperlebar dengan widenBounds() yang mengambil lock dari
+     * aksi parent tersebut.
+     *
+     * @param result Nilai acuan untuk memperbarui estimasi utilitas
+     */
+    void updateUtilityShared(double result) {
+        updateCount++;
+        //Dihitung dengan urutan yang sama seperti updateUtility()
+        double updateStepSize = 1.0 / updateCount;
+        utility = utility + updateStepSize * result;
+
+        widenBounds(utility);
+
+        ActionNode parentAction = parent.parent;
+        if (parentAction != null) {
+            parentAction.widenBounds(utility);
+        }
+    }
+
+    /**
+     * Menambahkan virtual loss ke aksi ini, yaitu visit yang dihitung sebelum
+     * hasil simulasinya diketahui. Eksplorasi ke aksi ini akan tampak kurang
+     * menarik bagi thread lain sehingga thread-thread memilih jalur yang
+     * berbeda.
+     *
+     * @param virtualLoss Jumlah visit semu yang ditambahkan
+     */
+    void addVirtualLoss(int virtualLoss) {
+        addVisitCount(virtualLoss);
+    }
+
+    /**
+     * Mengganti virtual loss yang ditambahkan saat seleksi dengan 1 visit.
+     *
+     * @param virtualLoss Jumlah visit semu yang ditambahkan saat seleksi
+     */
+    void completeVisit(int virtualLoss) {
+        addVisitCount(1 - virtualLoss);
+    }
+
     @Override
     public double getUtility() {
         return utility;
     }
 
     @Override
-    public StateNode simulateAction(GameModel model) {
-        GameState nextState = model.applyAction(parent.state, this.action);
-
-        if (children.containsKey(nextState)) {
-            return children.get(nextState);
-        } else {
-            TdtsStateNode newNode = new TdtsStateNode(nextState, this);
-            children.put(nextState, newNode);
-            return newNode;
-        }
+    protected StateNode createChildNode(GameState state) {
+        return new TdtsStateNode(state, this);
     }
 }
@@ -2,18 +2,25 @@ package agent.tdts;
 
 import agent.ActionNode;
 import agent.GamePlayingAgent;
-import agent.GameResult;
+import agent.NodeArena;
+import agent.NodeBudget;
+import agent.RandomPlayouts;
+import agent.SearchExecutor;
 import agent.StateNode;
+import agent.Trajectory;
+import agent.TranspositionTable;
 import agent.bestChildPolicy.BestChildPolicy;
 import agent.bestChildPolicy.MostVisitPolicy;
 import agent.normalizationPolicy.NormalizationPolicy;
 import agent.normalizationPolicy.SpaceLocalNormalization;
 import game.GameAction;
 import game.GameModel;
+import game.TickBudget;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
-import java.util.Stack;
+import java.util.concurrent.Future;
+import util.FastRandom;
 
 /**
  * Agen Temporal Difference Tree Search dengan algoritma Sarsa-UCT(lambda)
@@ -22,6 +29,8 @@ import java.util.Stack;
  */
 public class TdtsAgent extends GamePlayingAgent {
 
+    private static final GameAction[] ACTIONS = GameAction.values();
+
     private final double EXPLORATION_CONSTANT;
     private final BestChildPolicy BEST_CHILD_POLICY;
     private final NormalizationPolicy NORMALIZATION_POLICY;
@@ -30,19 +39,138 @@ public class TdtsAgent extends GamePlayingAgent {
     //lambda
     private final double ELIGIBILITY_TRACE_DECAY;
 
-    private final Random rand = new Random();
-    
+    private final Random rand;
+
+    // Penyimpanan pohon dalam array primitif, null jika pohon disimpan
+    // sebagai objek node
+    private final NodeArena arena;
+    private final int[] rootVisitCounts = new int[NodeArena.ACTION_COUNT];
+    private final double[] rootUtilities = new double[NodeArena.ACTION_COUNT];
+    // Riwayat skor dari simulasi terakhir, dipakai ulang di setiap iterasi
+    private final Trajectory trajectory = new Trajectory();
+
+    private final boolean TREE_REUSE;
+    // Root dan aksi yang dipilih pada pemanggilan selectAction() sebelumnya,
+    // disimpan jika TREE_REUSE aktif
+    private StateNode previousRoot;
+    private GameAction previousAction;
+
+    // Agen-agen yang bersama-sama menumbuhkan 1 pohon pencarian, null jika
+    // pencarian dilakukan dengan 1 thread
+    private final TdtsAgent[] workers;
+    private final boolean SHARED_TREE;
+    private final int VIRTUAL_LOSS;
+
+    // Jumlah random playout yang dijalankan bersamaan dari setiap node hasil
+    // expand(), beserta buffer untuk playout-playout tersebut (null jika hanya
+    // 1 playout)
+    private final int LEAF_PLAYOUTS;
+    private final RandomPlayouts leafPlayouts;
+    // Eligibility trace dan nilai dari setiap playout saat backpropagation,
+    // dipakai ulang di setiap iterasi
+    private final double[] playoutDeltas;
+    private final double[] playoutValues;
+    private final double[] playoutScores;
+
+    // Tabel transposisi yang membuat pohon pencarian menjadi DAG, null jika
+    // tidak dipakai. Dikosongkan di awal setiap pencarian.
+    private final TranspositionTable transpositions;
+
+    // Batas jumlah node state dari pohon, null jika tidak dibatasi. Pada pohon
+    // bersama, semua worker memakai objek yang sama.
+    private final NodeBudget nodeBudget;
+    // Jika aktif, pohon yang sudah mencapai batas dipangkas di awal iterasi.
+    // Jika tidak, node baru tidak lagi disimpan di pohon.
+    private final boolean NODE_EVICTION;
+
+    // Buffer yang dipakai ulang di setiap iterasi supaya iterasi pada pohon
+    // objek tidak melakukan alokasi: kandidat aksi terbaik saat seleksi, serta
+    // aksi dan papan dari state terakhir yang tidak dapat disimpan di pohon
+    // karena batas jumlah node sudah tercapai (lihat descend())
+    private final ActionNode[] bestChildren = new ActionNode[ACTIONS.length];
+    private ActionNode openAction;
+    private long openBoard;
+
     public TdtsAgent(
             double explorationConstant,
             BestChildPolicy bestChildPolicy,
             NormalizationPolicy NORMALIZATION_POLICY,
             double rewardDiscount,
-            double eligibilityTraceDecay) {
+            double eligibilityTraceDecay,
+            Random rand) {
+        this(explorationConstant, bestChildPolicy, NORMALIZATION_POLICY,
+                rewardDiscount, eligibilityTraceDecay, rand, 0, false, 0, false, 0, 1,
+                0, TranspositionTable.ReplacementPolicy.LEAST_VISITED, false,
+                null, false);
+    }
+
+    private TdtsAgent(
+            double explorationConstant,
+            BestChildPolicy bestChildPolicy,
+            NormalizationPolicy NORMALIZATION_POLICY,
+            double rewardDiscount,
+            double eligibilityTraceDecay,
+            Random rand,
+            int arenaCapacity,
+            boolean treeReuse,
+            int workerCount,
+            boolean sharedTree,
+            int virtualLoss,
+            int leafPlayouts,
+            int transpositionCapacity,
+            TranspositionTable.ReplacementPolicy replacementPolicy,
+            boolean symmetricTranspositions,
+            NodeBudget nodeBudget,
+            boolean nodeEviction) {
         this.EXPLORATION_CONSTANT = explorationConstant;
         this.BEST_CHILD_POLICY = bestChildPolicy;
         this.NORMALIZATION_POLICY = NORMALIZATION_POLICY;
         this.REWARD_DISCOUNT = rewardDiscount;
         this.ELIGIBILITY_TRACE_DECAY = eligibilityTraceDecay;
+        this.rand = rand;
+        this.arena = arenaCapacity > 0 ? new NodeArena(arenaCapacity) : null;
+        this.TREE_REUSE = treeReuse;
+        this.SHARED_TREE = sharedTree;
+        this.VIRTUAL_LOSS = virtualLoss;
+        this.LEAF_PLAYOUTS = leafPlayouts;
+        this.leafPlayouts = leafPlayouts > 1 ? new RandomPlayouts(leafPlayouts, rand, true) : null;
+        this.playoutDeltas = new double[leafPlayouts];
+        this.playoutValues = new double[leafPlayouts];
+        this.playoutScores = new double[leafPlayouts];
+        this.transpositions = transpositionCapacity > 0
+                ? new TranspositionTable(transpositionCapacity, replacementPolicy, symmetricTranspositions)
+                : null;
+        this.nodeBudget = nodeBudget;
+        this.NODE_EVICTION = nodeEviction;
+
+        if (workerCount > 0) {
+            //Semua worker memakai normalization policy yang sama, sehingga
+            //global bound-nya juga dipakai bersama
+            workers = new TdtsAgent[workerCount];
+            for (int i = 0; i < workerCount; i++) {
+                workers[i] = new TdtsAgent(
+                        explorationConstant,
+                        bestChildPolicy,
+                        NORMALIZATION_POLICY,
+                        rewardDiscount,
+                        eligibilityTraceDecay,
+                        new FastRandom(rand.nextLong()),
+                        0,
+                        false,
+                        0,
+                        true,
+                        virtualLoss,
+                        leafPlayouts,
+                        0,
+                        replacementPolicy,
+                        symmetricTranspositions,
+                        nodeBudget,
+                        false
+                );
+            }
+        } else {
+            workers = null;
+        }
     }
 
     public static class Builder {
@@ -51,6 +179,18 @@ public class TdtsAgent extends GamePlayingAgent {
         private BestChildPolicy bestChildPolicy;
         private NormalizationPolicy normalizationPolicy;
         private double gamma, lambda;
+        private Random rand;
+        private int arenaCapacity;
+        private boolean treeReuse;
+        private int threadCount;
+        private boolean sharedTree;
+        private int virtualLoss;
+        private int leafPlayouts;
+        private int transpositionCapacity;
+        private TranspositionTable.ReplacementPolicy replacementPolicy;
+        private boolean symmetricTranspositions;
+        private int nodeBudget;
+        private boolean nodeEviction;
 
         public Builder() {
             //set default values
@@ -58,6 +198,10 @@ public class TdtsAgent extends GamePlayingAgent {
             bestChildPolicy = new MostVisitPolicy();
             normalizationPolicy = new SpaceLocalNormalization();
             lambda = gamma = 1;
+            threadCount = 1;
+            virtualLoss = 1;
+            leafPlayouts = 1;
+            replacementPolicy = TranspositionTable.ReplacementPolicy.LEAST_VISITED;
         }
 
         public Builder setExplorationConstant(double explorationConstant) {
@@ -85,20 +229,241 @@ public class TdtsAgent extends GamePlayingAgent {
             return this;
         }
 
+        /**
+         * Mengatur random number generator yang dipakai agen untuk tie
+         * breaking dan random playout. Jika tidak diatur, agen memakai
+         * FastRandom dengan seed acak.
+         *
+         * @param rand Random number generator yang dipakai agen
+         * @return Builder ini
+         */
+        public Builder setRandom(Random rand) {
+            this.rand = rand;
+            return this;
+        }
+
+        /**
+         * Mengatur agar pohon pencarian disimpan dalam NodeArena dengan
+         * kapasitas tertentu, bukan sebagai objek node. Jika arena penuh,
+         * pencarian untuk langkah tersebut dihentikan lebih awal.
+         *
+         * @param arenaCapacity Jumlah node state maksimum, atau 0 untuk
+         * memakai pohon objek (default)
+         * @return Builder ini
+         */
+        public Builder setArenaCapacity(int arenaCapacity) {
+            this.arenaCapacity = arenaCapacity;
+            return this;
+        }
+
+        /**
+         * Mengatur agar agen menyimpan pohon pencarian di antara pemanggilan
+         * selectAction(). Pada pemanggilan berikutnya, node dari state baru
+         * (jika sudah pernah dikunjungi) dijadikan root sehingga statistiknya
+         * tetap terpakai. Tidak berlaku jika pohon disimpan di NodeArena.
+         *
+         * @param treeReuse True untuk memakai ulang pohon pencarian
+         * @return Builder ini
+         */
+        public Builder setTreeReuse(boolean treeReuse) {
+            this.treeReuse = treeReuse;
+            return this;
+        }
+
+        /**
+         * Mengatur jumlah thread yang bersama-sama menumbuhkan 1 pohon
+         * pencarian. Setiap thread memiliki random number generator sendiri dan
+         * mengambil tick dari anggaran bersama (TickBudget) per batch. Update utilitas dari setiap node aksi dikunci
+         * per node: membaca utilitas lama, menghitung TD error, dan
+         * menerapkan update dengan step size 1/(jumlah update) dilakukan
+         * dalam 1 blok terkunci. Global bound normalisasi dipakai bersama oleh
+         * semua thread. Tidak dapat digabung dengan NodeArena.
+         *
+         * @param threadCount Jumlah thread, 1 untuk pencarian tanpa paralelisasi
+         * (default)
+         * @return Builder ini
+         */
+        public Builder setThreadCount(int threadCount) {
+            this.threadCount = threadCount;
+            return this;
+        }
+
+        /**
+         * Mengatur agar pencarian dengan 1 thread juga dijalankan oleh worker
+         * pada pohon bersama, dengan virtual loss dan update terkunci seperti
+         * pada threadCount > 1. Hasilnya sama dengan pencarian tanpa
+         * paralelisasi, sehingga dapat dipakai untuk memeriksa jalur pohon
+         * bersama. Dengan threadCount > 1, pohon bersama selalu dipakai.
+         *
+         * @param sharedTree True untuk memakai pohon bersama (default false)
+         * @return Builder ini
+         */
+        public Builder setSharedTree(boolean sharedTree) {
+            this.sharedTree = sharedTree;
+            return this;
+        }
+
+        /**
+         * Mengatur jumlah visit semu yang ditambahkan ke sebuah aksi saat
+         * dipilih oleh thread, sebelum hasil simulasinya diketahui. Nilai 0
+         * berarti tanpa virtual loss.
+         *
+         * @param virtualLoss Jumlah visit semu (default 1)
+         * @return Builder ini
+         */
+        public Builder setVirtualLoss(int virtualLoss) {
+            this.virtualLoss = virtualLoss;
+            return this;
+        }
+
+        /**
+         * Mengatur jumlah random playout yang dijalankan bersamaan di thread
+         * pool dari setiap node hasil expand() (leaf parallelization). Semua
+         * playout mengambil tick dari anggaran bersama (TickBudget), dan trajektori dari setiap
+         * playout diterapkan sebagai backup masing-masing dalam 1 kali
+         * backpropagation. Tidak dapat digabung dengan NodeArena.
+         *
+         * @param leafPlayouts Jumlah playout per iterasi (default 1)
+         * @return Builder ini
+         */
+        public Builder setLeafPlayouts(int leafPlayouts) {
+            this.leafPlayouts = leafPlayouts;
+            return this;
+        }
+
+        /**
+         * Mengatur agar setiap pencarian memakai tabel transposisi dengan
+         * kapasitas tertentu, sehingga state yang dicapai lewat urutan aksi
+         * yang berbeda memakai node (dan statistik) yang sama. Tidak dapat
+         * digabung dengan NodeArena maupun pohon bersama (threadCount > 1 atau
+         * setSharedTree()).
+         *
+         * @param transpositionCapacity Jumlah entri tabel, atau 0 untuk tanpa
+         * tabel transposisi (default)
+         * @return Builder ini
+         */
+        public Builder setTranspositionTable(int transpositionCapacity) {
+            this.transpositionCapacity = transpositionCapacity;
+            return this;
+        }
+
+        /**
+         * Mengatur cara memilih entri tabel transposisi yang diganti jika
+         * tabel penuh.
+         *
+         * @param replacementPolicy Replacement policy (default LEAST_VISITED)
+         * @return Builder ini
+         */
+        public Builder setReplacementPolicy(TranspositionTable.ReplacementPolicy replacementPolicy) {
+            this.replacementPolicy = replacementPolicy;
+            return this;
+        }
+
+        /**
+         * Mengatur apakah tabel transposisi menganggap state yang simetris
+         * (rotasi atau pencerminan papan) sebagai state yang sama, sehingga
+         * statistiknya dipakai bersama.
+         *
+         * @param symmetricTranspositions True untuk tabel simetris (default
+         * false)
+         * @return Builder ini
+         */
+        public Builder setSymmetricTranspositions(boolean symmetricTranspositions) {
+            this.symmetricTranspositions = symmetricTranspositions;
+            return this;
+        }
+
+        /**
+         * Membatasi jumlah node state dari pohon pencarian, termasuk node yang
+         * dipakai ulang dengan tree reuse, sehingga memori yang dipakai agen
+         * dapat diperkirakan. Tidak dapat digabung dengan NodeArena, yang
+         * kapasitasnya sudah tetap.
+         *
+         * @param nodeBudget Jumlah node state maksimum, atau 0 untuk tanpa
+         * batas (default)
+         * @return Builder ini
+         */
+        public Builder setNodeBudget(int nodeBudget) {
+            this.nodeBudget = nodeBudget;
+            return this;
+        }
+
+        /**
+         * Versi setNodeBudget(int) dengan batas memori. Jumlah node maksimum
+         * dihitung dengan perkiraan NodeBudget.BYTES_PER_NODE.
+         *
+         * @param bytes Memori maksimum untuk pohon dalam byte, atau 0 untuk
+         * tanpa batas (default)
+         * @return Builder ini
+         */
+        public Builder setNodeBudgetBytes(long bytes) {
+            return setNodeBudget(NodeBudget.limitForBytes(bytes));
+        }
+
+        /**
+         * Mengatur apa yang dilakukan jika pohon sudah mencapai batas jumlah
+         * node. Jika eviction aktif, subpohon yang paling jarang dikunjungi
+         * dilepas supaya pohon dapat terus tumbuh. Jika tidak, pencarian
+         * berlanjut tanpa menyimpan node baru. Eviction tidak dapat digabung
+         * dengan pohon bersama (threadCount > 1 atau setSharedTree()) maupun
+         * tabel transposisi.
+         *
+         * @param nodeEviction True untuk memangkas pohon (default false)
+         * @return Builder ini
+         */
+        public Builder setNodeEviction(boolean nodeEviction) {
+            this.nodeEviction = nodeEviction;
+            return this;
+        }
+
         public TdtsAgent build() {
+            boolean shared = threadCount > 1 || sharedTree;
+            if ((shared || leafPlayouts > 1) && arenaCapacity > 0) {
+                throw new IllegalStateException("Parallel search does not support node arena");
+            }
+            if (transpositionCapacity > 0 && (arenaCapacity > 0 || shared)) {
+                throw new IllegalStateException("Transposition table does not support node arena or shared tree");
+            }
+            if (nodeBudget < 0) {
+                throw new IllegalStateException("Node budget must not be negative: " + nodeBudget);
+            }
+            if (nodeBudget > 0 && arenaCapacity > 0) {
+                throw new IllegalStateException("Node budget does not support node arena");
+            }
+            if (nodeEviction && (nodeBudget == 0 || transpositionCapacity > 0 || shared)) {
+                throw new IllegalStateException("Node eviction requires a node budget, without transposition table or shared tree");
+            }
+            if (leafPlayouts < 1) {
+                throw new IllegalStateException("Leaf playouts must be positive: " + leafPlayouts);
+            }
+            if (virtualLoss < 0) {
+                throw new IllegalStateException("Virtual loss must not be negative: " + virtualLoss);
+            }
             return new TdtsAgent(
                     explorationConstant,
                     bestChildPolicy,
                     normalizationPolicy,
                     gamma,
-                    lambda
+                    lambda,
+                    rand != null ? rand : new FastRandom(),
+                    arenaCapacity,
+                    treeReuse,
+                    shared ? Math.max(1, threadCount) : 0,
+                    false,
+                    virtualLoss,
+                    leafPlayouts,
+                    transpositionCapacity,
+                    replacementPolicy,
+                    symmetricTranspositions,
+                    nodeBudget > 0 ? new NodeBudget(nodeBudget) : null,
+                    nodeEviction
             );
         }
     }
 
     @Override
     public String getConfigurationString() {
-        return String.format(
+        String configuration = String.format(
                 "Exploration constant: %f%n"
                 + "Reward discount rate (gamma): %f%n"
                 + "Eligibility trace decay rate (lambda): %f%n"
@@ -110,21 +475,128 @@ public class TdtsAgent extends GamePlayingAgent {
                 BEST_CHILD_POLICY,
                 NORMALIZATION_POLICY
         );
+        if (arena != null) {
+            configuration += String.format("%n%s", arena.getMemoryReport());
+        } else if (TREE_REUSE) {
+            configuration += String.format("%nTree reuse: enabled");
+        }
+        if (workers != null) {
+            configuration += String.format("%nShared-tree threads: %d (virtual loss %d)",
+                    workers.length, VIRTUAL_LOSS);
+        }
+        if (LEAF_PLAYOUTS > 1) {
+            configuration += String.format("%nLeaf-parallel playouts: %d", LEAF_PLAYOUTS);
+        }
+        if (transpositions != null) {
+            configuration += String.format("%nTransposition table: %d entries (%s%s)",
+                    transpositions.capacity(), transpositions.getPolicy(),
+                    transpositions.isSymmetric() ? ", symmetric" : "");
+        }
+        if (nodeBudget != null) {
+            configuration += String.format("%nNode budget: %d state nodes (~%.2f MB, %s)", nodeBudget.getLimit(),
+                    nodeBudget.getEstimatedBytes() / (1024.0 * 1024.0),
+                    NODE_EVICTION ? "evict least visited" : "stop expanding");
+        }
+        return configuration;
     }
 
     @Override
     public GameAction selectAction(GameModel.GameState state, GameModel model) {
         NORMALIZATION_POLICY.resetNormalizationBound();
+        if (arena != null) {
+            return selectActionInArena(state, model);
+        }
+        if (transpositions != null) {
+            transpositions.clear();
+        }
+
+        StateNode reusedRoot = TREE_REUSE ? reuseTree(state) : null;
+        StateNode root = reusedRoot != null ? reusedRoot : new TdtsStateNode(state, null);
+        if (nodeBudget != null) {
+            nodeBudget.reset(root);
+        }
+        if (workers != null) {
+            //Semua worker mengambil tick dari anggaran bersama per batch,
+            //sehingga worker yang playout-nya pendek tidak menganggur
+            TickBudget budget = model.share();
+            List<Future<StateNode>> results = new ArrayList<>(workers.length);
+            for (int i = 0; i < workers.length; i++) {
+                TdtsAgent worker = workers[i];
+                GameModel workerModel = model.fork(budget);
+                results.add(SearchExecutor.submit(() -> {
+                    worker.grow(root, workerModel);
+                    workerModel.release();
+                    return root;
+                }));
+            }
+            for (Future<StateNode> result : results) {
+                SearchExecutor.await(result);
+            }
+            model.reclaim(budget);
+        } else {
+            grow(root, model);
+        }
+
+        GameAction bestAction = BEST_CHILD_POLICY.selectBestChild(root).action;
+        if (TREE_REUSE) {
+            previousRoot = root;
+            previousAction = bestAction;
+        }
+        return bestAction;
+    }
 
-        StateNode root = new TdtsStateNode(state, null);
+    /**
+     * Melakukan iterasi TDTS pada pohon dengan root tertentu hingga tick model
+     * habis. Pada pohon bersama, method ini dijalankan oleh beberapa worker
+     * sekaligus pada root yang sama.
+     *
+     * @param root Root dari pohon pencarian
+     * @param model Forward model dari permainan 2048
+     * @return Root dari pohon pencarian
+     */
+    private StateNode grow(StateNode root, GameModel model) {
         while (model.isUsable()) {
+            if (NODE_EVICTION && nodeBudget.isFull()) {
+                nodeBudget.evict(root);
+            }
             StateNode leaf = select(root, model);
             StateNode child = expand(leaf, model);
-            Stack<GameResult> simulatedTrajectory = simulate(child, model);
-            backPropagate(child, simulatedTrajectory);
+            //Jika child null, simulasi dimulai dari state yang tidak disimpan
+            //di pohon
+            ActionNode action = child != null ? child.parent : openAction;
+            long board = child != null ? child.state.getPackedBoard() : openBoard;
+            int score = child != null ? child.state.getScore() : action.getAfterstate(model).getScore();
+            if (LEAF_PLAYOUTS > 1) {
+                leafPlayouts.run(board, score, model);
+                backPropagate(child, action, leafPlayouts);
+            } else {
+                RandomPlayouts.simulate(board, score, model, rand, trajectory);
+                backPropagate(child, action, trajectory);
+            }
         }
+        return root;
+    }
 
-        return BEST_CHILD_POLICY.selectBestChild(root).action;
+    /**
+     * Mencari node dari state tertentu di pohon pencarian sebelumnya, yaitu
+     * di bawah aksi yang terakhir dipilih, lalu menjadikannya root. Bagian
+     * lain dari pohon sebelumnya dilepas.
+     *
+     * @param state State tempat agen berada saat ini
+     * @return Root baru, atau null jika state belum pernah dikunjungi
+     */
+    private StateNode reuseTree(GameModel.GameState state) {
+        if (previousRoot == null) {
+            return null;
+        }
+        StateNode root = previousRoot.getNextStateNode(previousAction, state);
+        previousRoot = null;
+        if (root != null && transpositions != null) {
+            root.detachDag();
+        } else if (root != null) {
+            root.detach();
+        }
+        return root;
     }
 
     /**
@@ -138,50 +610,58 @@ public class TdtsAgent extends GamePlayingAgent {
      * @return Node state yang memiliki unvisted action atau node terminal
      */
     private StateNode select(StateNode root, GameModel model) {
-        if (root.state.isTerminal() || !model.isUsable()) {
-            return root;
-        } else {
-            for (GameAction action : GameAction.values()) {
-                ActionNode child = root.getChildNode(action);
+        StateNode node = root;
+        while (!node.state.isTerminal() && model.isUsable()) {
+            int actionMask = node.getActionMask();
+            for (GameAction action : ACTIONS) {
+                if ((actionMask & (1 << action.id)) == 0) {
+                    continue;
+                }
+                ActionNode child = node.getChildNode(action);
 
-                //Ada aksi yang belum pernah dicoba
-                if (child != null && child.getVisitCount() == 0) {
-                    return root;
+                //Ada aksi yang belum pernah dicoba (node-nya mungkin belum dibuat)
+                if (child == null || child.getVisitCount() == 0) {
+                    return node;
                 }
             }
 
             //State ini sudah fully expanded
-            List<ActionNode> bestChildList = new ArrayList<>();
+            int bestCount = 0;
             double bestValue = Double.NEGATIVE_INFINITY;
-            for (GameAction action : GameAction.values()) {
-                ActionNode child = root.getChildNode(action);
+            //Pada pohon bersama, visit dari state bisa tertinggal dari visit
+            //aksinya (virtual loss)
+            double logNCurr = Math.log(Math.max(1, node.getVisitCount()));
+            for (GameAction action : ACTIONS) {
+                ActionNode child = node.getChildNode(action);
 
                 //Aksi tidak valid
                 if (child == null) {
                     continue;
                 }
 
-                int nCurr = root.getVisitCount();
                 int nChild = child.getVisitCount();
                 //menghitung nilai UCB1
                 double exploitationComp = NORMALIZATION_POLICY.getNormalizedUtility(child);
 
                 double explorationComp = EXPLORATION_CONSTANT
-                        * Math.sqrt(Math.log(nCurr) / nChild);
+                        * Math.sqrt(logNCurr / nChild);
                 double ucb1 = exploitationComp + explorationComp;
 
                 if (ucb1 > bestValue) {
                     bestValue = ucb1;
-                    bestChildList.clear();
-                    bestChildList.add(child);
+                    bestCount = 0;
+                    bestChildren[bestCount++] = child;
                 } else if (ucb1 == bestValue) {
-                    bestChildList.add(child);
+                    bestChildren[bestCount++] = child;
                 }
             }
 
-            ActionNode bestChild = bestChildList.get(rand.nextInt(bestChildList.size()));
-            return select(bestChild.simulateAction(model), model);
+            node = descend(bestChildren[rand.nextInt(bestCount)], model);
+            if (node == null) {
+                return null;
+            }
         }
+        return node;
     }
 
     /**
@@ -190,113 +670,386 @@ public class TdtsAgent extends GamePlayingAgent {
      * dihasilkan dari aksi tersebut. StateNode baru tersebut akan menjadi titik
      * awal dilakukannya simulai.
      *
-     * @param leaf StateMode yang ingin di-expand
+     * @param leaf StateMode yang ingin di-expand, atau null jika select()
+     * berhenti di state yang tidak disimpan di pohon
      * @param model Forward model dari permainan 2048
      * @return StateNode baru sebagai titik awal dilakukannya simulasi. Node
-     * baru ini dihasilkan dari sebuah aksi di node leaf yang belum pernah, atau
-     * node leaf itu sendiri jika leaf adalah state terminal atau jika model
-     * sudah tidak usable. dicoba.
+     * baru ini dihasilkan dari sebuah aksi di node leaf yang belum pernah
+     * dicoba, atau node leaf itu sendiri jika leaf adalah state terminal atau
+     * jika model sudah tidak usable. Bernilai null jika state yang dicapai
+     * tidak disimpan di pohon (lihat descend()).
      */
     private StateNode expand(StateNode leaf, GameModel model) {
-        if (!model.isUsable() || leaf.state.isTerminal()) {
+        if (leaf == null || !model.isUsable() || leaf.state.isTerminal()) {
             return leaf;
         }
 
-        List<ActionNode> unvisitedActions = new ArrayList<>();
-        for (GameAction action : GameAction.values()) {
+        int actionMask = leaf.getActionMask();
+        int unvisitedMask = 0;
+        for (GameAction action : ACTIONS) {
+            if ((actionMask & (1 << action.id)) == 0) {
+                continue;
+            }
             ActionNode child = leaf.getChildNode(action);
 
             //aksi yang belum pernah dicoba
-            if (child != null && child.getVisitCount() == 0) {
-                unvisitedActions.add(child);
+            if (child == null || child.getVisitCount() == 0) {
+                unvisitedMask |= 1 << action.id;
             }
         }
 
         /**
-         * unvisitedActions tidak mungkin kosong. Kalau kosong, berarti action
+         * unvisitedMask tidak mungkin kosong. Kalau kosong, berarti action
          * udah visited semua, atau memang terminal state. Terminal state sudah
          * dicek di awal method, dan kalau fully-visited, harusnya belum keluar
          * dari method select().
          */
-        return unvisitedActions.get(rand.nextInt(unvisitedActions.size())).simulateAction(model);
+        GameAction chosenAction = GameAction.fromMask(unvisitedMask, rand.nextInt(Integer.bitCount(unvisitedMask)));
+        return descend(leaf.getOrCreateChildNode(chosenAction), model);
     }
 
     /**
-     * Mensimulasikan permainan dengan Random Playout Policy mulai dari starting
-     * node hingga mencapai terminal state atau kalau tick model sudah habis.
+     * Menerapkan aksi yang dipilih saat menuruni pohon. Pada pohon bersama,
+     * virtual loss ditambahkan ke aksi tersebut sebelum child-nya dicari.
+     *
+     * Jika batas jumlah node sudah tercapai dan state yang dihasilkan belum
+     * ada di pohon, method ini mengembalikan null dan mencatat aksi beserta
+     * papan tersebut di openAction dan openBoard, sehingga tidak perlu dibuat
+     * node sementara. Pada pohon bersama, node sementara tetap dibuat.
      *
-     * @param startingNode Node dimulainya simulasi (didapatkan dari method
-     * expand().
-     * @param model Forward model dari game ini
-     * @return Stack berisi GameResult yang mencatat setiap aksi, perubahan
-     * state, dan riwayat skor dalam simulasi. State paling dalam di stack ini
-     * adalah state yang direpresentasikan oleh startingNode.
+     * @param action Aksi yang dipilih
+     * @param model Forward model dari permainan 2048
+     * @return Node state hasil aksi tersebut, atau null jika state tersebut
+     * tidak disimpan di pohon
      */
-    private Stack<GameResult> simulate(StateNode startingNode, GameModel model) {
-        Stack<GameResult> trajectory = new Stack<>();
-        GameModel.GameState currentState = startingNode.state;
-        trajectory.push(new GameResult(startingNode.parent.action, currentState));
-
-        while (!currentState.isTerminal() && model.isUsable()) {
-            List<GameAction> validActions = currentState.getAvailableActions();
-            int actionIdx = rand.nextInt(validActions.size());
-            currentState = model.applyAction(currentState, validActions.get(actionIdx));
-            trajectory.push(new GameResult(validActions.get(actionIdx), currentState));
+    private StateNode descend(ActionNode action, GameModel model) {
+        if (!SHARED_TREE) {
+            long board = action.sampleNextBoard(model);
+            StateNode child = action.getOrCreateChildNode(board, transpositions, nodeBudget);
+            if (child == null) {
+                openAction = action;
+                openBoard = board;
+            }
+            return child;
         }
-
-        return trajectory;
+        TdtsActionNode sharedAction = (TdtsActionNode) action;
+        sharedAction.addVirtualLoss(VIRTUAL_LOSS);
+        return sharedAction.simulateActionShared(model, nodeBudget);
     }
 
     /**
      * Memperbarui informasi utilitas yang dicatat dalam pohon permainan
      * berdasarkan hasil selection() dan simulation().
      *
-     * @param Leaf StateNode tempat simulasi dimulai.
-     * @param simulatedTrajectory Catatan riwayat pemilihan aksi, perpindahan
-     * state, dan riwayat skor selama simulasi. Hasil terdalam adalah state yang
-     * direpresentasikan oleh node leaf.
+     * @param leaf StateNode tempat simulasi dimulai, atau null jika state
+     * tersebut tidak disimpan di pohon
+     * @param action Aksi yang menghasilkan state tempat simulasi dimulai
+     * (parent dari leaf jika leaf tidak null)
+     * @param simulatedTrajectory Riwayat skor selama simulasi. Skor pertama
+     * adalah skor dari state tempat simulasi dimulai.
      */
-    private void backPropagate(StateNode leaf, Stack<GameResult> simulatedTrajectory) {
+    private void backPropagate(StateNode leaf, ActionNode action, Trajectory simulatedTrajectory) {
         double cumulativeDelta = 0;
         double nextValue = 0; //Q_next(s_t, a)
-        double nextScore = simulatedTrajectory.pop().score;
+        double nextScore = simulatedTrajectory.getScore(simulatedTrajectory.length() - 1);
 
         //Unmemorized space update
-        while (!simulatedTrajectory.isEmpty()) {
-            GameResult currentResult = simulatedTrajectory.pop();
-            double reward = nextScore - currentResult.score; //harusnya dikurang skor 1 state sebelumnya
+        for (int i = simulatedTrajectory.length() - 2; i >= 0; i--) {
+            double reward = nextScore - simulatedTrajectory.getScore(i); //harusnya dikurang skor 1 state sebelumnya
 
             double currentValue = 0; //Use V_playout here is needed
             double delta = reward + REWARD_DISCOUNT * nextValue - currentValue;
             cumulativeDelta = ELIGIBILITY_TRACE_DECAY * REWARD_DISCOUNT * cumulativeDelta + delta;
 
             nextValue = currentValue;
-            nextScore = currentResult.score;
+            nextScore = simulatedTrajectory.getScore(i);
 
             NORMALIZATION_POLICY.updateNormalizationBound(cumulativeDelta);
         }
 
         //Memorized space update
-        while (true) {
+        if (leaf != null) {
             leaf.incrementVisitCount();
-            if (leaf.parent == null) { //sudah sampai ke root
-                break;
+        }
+        while (action != null) { //berhenti setelah root
+            double currentScore = action.parent.state.getScore();
+            double reward = nextScore - currentScore;
+            double currentValue;
+            if (SHARED_TREE) {
+                TdtsActionNode sharedAction = (TdtsActionNode) action;
+                //Utilitas lama dibaca dan diperbarui tanpa diselingi thread lain
+                synchronized (sharedAction) {
+                    sharedAction.completeVisit(VIRTUAL_LOSS);
+                    currentValue = sharedAction.getUtility();
+                    double delta = reward + REWARD_DISCOUNT * nextValue - currentValue;
+                    cumulativeDelta = ELIGIBILITY_TRACE_DECAY * REWARD_DISCOUNT * cumulativeDelta + delta;
+                    sharedAction.updateUtilityShared(cumulativeDelta);
+                }
             } else {
-                leaf.parent.incrementVisitCount();
-                
-                double currentScore = leaf.parent.parent.state.getScore();
-                double reward = nextScore - currentScore;
-                double currentValue = leaf.parent.getUtility();
+                action.incrementVisitCount();
+
+                currentValue = action.getUtility();
                 double delta = reward + REWARD_DISCOUNT * nextValue - currentValue;
                 cumulativeDelta = ELIGIBILITY_TRACE_DECAY * REWARD_DISCOUNT * cumulativeDelta + delta;
-                
-                leaf.parent.updateUtility(cumulativeDelta);
-                NORMALIZATION_POLICY.updateNormalizationBound(cumulativeDelta);
-                
-                nextScore = currentScore;
-                nextValue = currentValue;
-                leaf = leaf.parent.parent;
+
+                action.updateUtility(cumulativeDelta);
+            }
+            NORMALIZATION_POLICY.updateNormalizationBound(cumulativeDelta);
+
+            nextScore = currentScore;
+            nextValue = currentValue;
+            StateNode stateNode = action.parent;
+            stateNode.incrementVisitCount();
+            action = stateNode.parent;
+        }
+    }
+
+    /**
+     * Versi backPropagate() untuk trajektori dari beberapa simulasi sekaligus.
+     * Setiap trajektori diterapkan sebagai 1 backup dengan eligibility trace
+     * masing-masing, tetapi jalur dari leaf ke root hanya ditelusuri sekali.
+     * Pada setiap node aksi, backup diterapkan berurutan sesuai urutan
+     * trajektori.
+     *
+     * @param leaf StateNode tempat simulasi dimulai, atau null jika state
+     * tersebut tidak disimpan di pohon
+     * @param action Aksi yang menghasilkan state tempat simulasi dimulai
+     * @param simulations Trajektori dari setiap simulasi
+     */
+    private void backPropagate(StateNode leaf, ActionNode action, RandomPlayouts simulations) {
+        int playouts = simulations.getCount();
+        double[] cumulativeDelta = playoutDeltas;
+        double[] nextValue = playoutValues; //Q_next(s_t, a)
+        double[] nextScore = playoutScores;
+
+        //Unmemorized space update
+        for (int k = 0; k < playouts; k++) {
+            Trajectory simulatedTrajectory = simulations.getTrajectory(k);
+            cumulativeDelta[k] = 0;
+            nextValue[k] = 0;
+            nextScore[k] = simulatedTrajectory.getScore(simulatedTrajectory.length() - 1);
+            for (int i = simulatedTrajectory.length() - 2; i >= 0; i--) {
+                double reward = nextScore[k] - simulatedTrajectory.getScore(i);
+
+                double currentValue = 0; //Use V_playout here is needed
+                double delta = reward + REWARD_DISCOUNT * nextValue[k] - currentValue;
+                cumulativeDelta[k] = ELIGIBILITY_TRACE_DECAY * REWARD_DISCOUNT * cumulativeDelta[k] + delta;
+
+                nextValue[k] = currentValue;
+                nextScore[k] = simulatedTrajectory.getScore(i);
+
+                NORMALIZATION_POLICY.updateNormalizationBound(cumulativeDelta[k]);
+            }
+        }
+
+        //Memorized space update
+        if (leaf != null) {
+            for (int k = 0; k < playouts; k++) {
+                leaf.incrementVisitCount();
+            }
+        }
+        while (action != null) { //berhenti setelah root
+            double currentScore = action.parent.state.getScore();
+            for (int k = 0; k < playouts; k++) {
+                double reward = nextScore[k] - currentScore;
+                double currentValue;
+                if (SHARED_TREE) {
+                    TdtsActionNode sharedAction = (TdtsActionNode) action;
+                    //Utilitas lama dibaca dan diperbarui tanpa diselingi thread lain
+                    synchronized (sharedAction) {
+                        //Virtual loss hanya diberikan sekali saat seleksi
+                        if (k == 0) {
+                            sharedAction.completeVisit(VIRTUAL_LOSS);
+                        } else {
+                            sharedAction.incrementVisitCount();
+                        }
+                        currentValue = sharedAction.getUtility();
+                        double delta = reward + REWARD_DISCOUNT * nextValue[k] - currentValue;
+                        cumulativeDelta[k] = ELIGIBILITY_TRACE_DECAY * REWARD_DISCOUNT * cumulativeDelta[k] + delta;
+                        sharedAction.updateUtilityShared(cumulativeDelta[k]);
+                    }
+                } else {
+                    action.incrementVisitCount();
+                    currentValue = action.getUtility();
+                    double delta = reward + REWARD_DISCOUNT * nextValue[k] - currentValue;
+                    cumulativeDelta[k] = ELIGIBILITY_TRACE_DECAY * REWARD_DISCOUNT * cumulativeDelta[k] + delta;
+                    action.updateUtility(cumulativeDelta[k]);
+                }
+                NORMALIZATION_POLICY.updateNormalizationBound(cumulativeDelta[k]);
+
+                nextScore[k] = currentScore;
+                nextValue[k] = currentValue;
+            }
+            StateNode stateNode = action.parent;
+            for (int k = 0; k < playouts; k++) {
+                stateNode.incrementVisitCount();
+            }
+            action = stateNode.parent;
+        }
+    }
+
+    /**
+     * Versi selectAction() yang menyimpan pohon pencarian di NodeArena.
+     * Algoritmanya sama dengan versi pohon objek.
+     */
+    private GameAction selectActionInArena(GameModel.GameState state, GameModel model) {
+        arena.reset();
+        int root = arena.newRoot(state);
+        // Satu iterasi membuat paling banyak 2 node baru (select dan expand)
+        while (model.isUsable() && arena.hasRoom(2)) {
+            int leaf = selectInArena(root, model);
+            int child = expandInArena(leaf, model);
+            RandomPlayouts.simulate(arena.getBoard(child), arena.getScore(child), model, rand, trajectory);
+            backPropagateInArena(child, trajectory);
+        }
+
+        int actionMask = arena.getActionMask(root);
+        for (GameAction action : ACTIONS) {
+            int child = NodeArena.actionOf(root, action);
+            rootVisitCounts[action.id] = arena.getActionVisitCount(child);
+            rootUtilities[action.id] = arena.getValue(child);
+        }
+        return BEST_CHILD_POLICY.selectBestAction(actionMask, rootVisitCounts, rootUtilities);
+    }
+
+    /**
+     * Versi select() untuk NodeArena, dilakukan secara iteratif.
+     */
+    private int selectInArena(int node, GameModel model) {
+        while (!arena.isTerminal(node) && model.isUsable()) {
+            int actionMask = arena.getActionMask(node);
+            for (GameAction action : ACTIONS) {
+                //Ada aksi yang belum pernah dicoba
+                if ((actionMask & (1 << action.id)) != 0
+                        && arena.getActionVisitCount(NodeArena.actionOf(node, action)) == 0) {
+                    return node;
+                }
             }
+
+            //State ini sudah fully expanded, random tie breaking dilakukan
+            //dengan reservoir sampling supaya tidak perlu list kandidat
+            int bestChild = NodeArena.NO_NODE;
+            int bestCount = 0;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            double logNCurr = Math.log(arena.getStateVisitCount(node));
+            for (GameAction action : ACTIONS) {
+                //Aksi tidak valid
+                if ((actionMask & (1 << action.id)) == 0) {
+                    continue;
+                }
+
+                int child = NodeArena.actionOf(node, action);
+                int nChild = arena.getActionVisitCount(child);
+                //menghitung nilai UCB1
+                double exploitationComp = NORMALIZATION_POLICY.getNormalizedUtility(
+                        arena.getValue(child),
+                        arena.getLowerBound(child),
+                        arena.getUpperBound(child));
+
+                double explorationComp = EXPLORATION_CONSTANT
+                        * Math.sqrt(logNCurr / nChild);
+                double ucb1 = exploitationComp + explorationComp;
+
+                if (ucb1 > bestValue) {
+                    bestValue = ucb1;
+                    bestChild = child;
+                    bestCount = 1;
+                } else if (ucb1 == bestValue && rand.nextInt(++bestCount) == 0) {
+                    bestChild = child;
+                }
+            }
+            node = simulateActionInArena(bestChild, model);
+        }
+        return node;
+    }
+
+    /**
+     * Versi expand() untuk NodeArena.
+     */
+    private int expandInArena(int leaf, GameModel model) {
+        if (!model.isUsable() || arena.isTerminal(leaf)) {
+            return leaf;
+        }
+
+        int actionMask = arena.getActionMask(leaf);
+        int unvisitedMask = 0;
+        for (GameAction action : ACTIONS) {
+            //aksi yang belum pernah dicoba
+            if ((actionMask & (1 << action.id)) != 0
+                    && arena.getActionVisitCount(NodeArena.actionOf(leaf, action)) == 0) {
+                unvisitedMask |= 1 << action.id;
+            }
+        }
+
+        GameAction chosenAction = GameAction.fromMask(unvisitedMask, rand.nextInt(Integer.bitCount(unvisitedMask)));
+        return simulateActionInArena(NodeArena.actionOf(leaf, chosenAction), model);
+    }
+
+    /**
+     * Versi ActionNode.simulateAction() untuk NodeArena: memunculkan tile
+     * baru pada afterstate aksi, lalu mengembalikan child yang sesuai
+     * (dibuat jika belum ada).
+     */
+    private int simulateActionInArena(int action, GameModel model) {
+        long nextBoard = model.sampleSpawn(arena.getAfterBoard(action));
+        int child = arena.findChild(action, nextBoard);
+        if (child == NodeArena.NO_NODE) {
+            child = arena.addChild(action, nextBoard);
+        }
+        return child;
+    }
+
+    /**
+     * Versi backPropagate() untuk NodeArena. Nilai yang disimpan di arena
+     * untuk setiap aksi adalah estimasi utilitas, seperti TdtsActionNode.
+     */
+    private void backPropagateInArena(int leaf, Trajectory simulatedTrajectory) {
+        double cumulativeDelta = 0;
+        double nextValue = 0; //Q_next(s_t, a)
+        double nextScore = simulatedTrajectory.getScore(simulatedTrajectory.length() - 1);
+
+        //Unmemorized space update
+        for (int i = simulatedTrajectory.length() - 2; i >= 0; i--) {
+            double reward = nextScore - simulatedTrajectory.getScore(i);
+
+            double currentValue = 0; //Use V_playout here is needed
+            double delta = reward + REWARD_DISCOUNT * nextValue - currentValue;
+            cumulativeDelta = ELIGIBILITY_TRACE_DECAY * REWARD_DISCOUNT * cumulativeDelta + delta;
+
+            nextValue = currentValue;
+            nextScore = simulatedTrajectory.getScore(i);
+
+            NORMALIZATION_POLICY.updateNormalizationBound(cumulativeDelta);
+        }
+
+        //Memorized space update
+        while (true) {
+            arena.incrementStateVisitCount(leaf);
+            int parent = arena.getParent(leaf);
+            if (parent == NodeArena.NO_NODE) { //sudah sampai ke root
+                break;
+            }
+            arena.incrementActionVisitCount(parent);
+            int parentState = NodeArena.stateOf(parent);
+
+            double currentScore = arena.getScore(parentState);
+            double reward = nextScore - currentScore;
+            double currentValue = arena.getValue(parent);
+            double delta = reward + REWARD_DISCOUNT * nextValue - currentValue;
+            cumulativeDelta = ELIGIBILITY_TRACE_DECAY * REWARD_DISCOUNT * cumulativeDelta + delta;
+
+            double utility = currentValue + cumulativeDelta / arena.getActionVisitCount(parent);
+            arena.setValue(parent, utility);
+            arena.updateBounds(parent, utility);
+            int parentAction = arena.getParent(parentState);
+            if (parentAction != NodeArena.NO_NODE) {
+                arena.updateBounds(parentAction, utility);
+            }
+            NORMALIZATION_POLICY.updateNormalizationBound(cumulativeDelta);
+
+            nextScore = currentScore;
+            nextValue = currentValue;
+            leaf = parentState;
         }
     }
 }
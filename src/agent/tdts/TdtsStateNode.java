@@ -4,11 +4,10 @@ import agent.ActionNode;
 import agent.StateNode;
 import game.GameAction;
 import game.GameModel.GameState;
-import java.util.List;
 
 /**
- * Node pohon TDTS yang merepresentasikan state. Semua action dari state ini
- * otomatis diexpand.
+ * Node pohon TDTS yang merepresentasikan state. Action node dari state ini
+ * dibuat saat pertama kali dibutuhkan.
  *
  * @author Jiang Han
  */
@@ -16,10 +15,10 @@ class TdtsStateNode extends StateNode {
 
     TdtsStateNode(GameState state, ActionNode action) {
         super(state, action);
-        children = new ActionNode[GameAction.values().length];
-        List<GameAction> validActions = state.getAvailableActions();
-        for (GameAction validAction : validActions) {
-            children[validAction.id] = new TdtsActionNode(validAction, this);
-        }
+    }
+
+    @Override
+    protected ActionNode createActionNode(GameAction action) {
+        return new TdtsActionNode(action, this);
     }
 }
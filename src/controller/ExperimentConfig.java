@@ -0,0 +1,304 @@
+package controller;
+
+import agent.GamePlayingAgent;
+import agent.RandomAgent;
+import agent.bestChildPolicy.MaxUtilPolicy;
+import agent.bestChildPolicy.MostVisitPolicy;
+import agent.mcts.MctsAgent;
+import agent.normalizationPolicy.NoNormalization;
+import agent.normalizationPolicy.SpaceLocalNormalization;
+import agent.tdts.TdtsAgent;
+import io.ExperimentLogger;
+import java.util.Random;
+import util.FastRandom;
+
+/**
+ * Konfigurasi dari satu eksperimen: jenis agen, parameter agen, jumlah
+ * permainan, jumlah langkah waktu, dan master seed. Konfigurasi hanya berisi
+ * nilai, sehingga GPA untuk setiap permainan dapat dibangun ulang kapan saja
+ * dari konfigurasi yang sama.
+ *
+ * @author Jiang Han
+ */
+public final class ExperimentConfig {
+
+    /**
+     * Jenis agen yang diuji.
+     */
+    public enum AgentType {
+        RANDOM("random", "Random", "Average score of Random GPA"),
+        MCTS("mcts", "UCT", "Average score of UCT GPA"),
+        TDTS("tdts", "Sarsa UCT(lambda)", "Average score of Sarsa-UCT(lambda) GPA");
+
+        /**
+         * Awalan nama folder dan file log
+         */
+        public final String codeName;
+        public final String displayName;
+        public final String title;
+
+        private AgentType(String codeName, String displayName, String title) {
+            this.codeName = codeName;
+            this.displayName = displayName;
+            this.title = title;
+        }
+    }
+
+    private final AgentType agentType;
+    private final int iteration;
+    private final int maxTick;
+    private final double explorationConstant;
+    private final double gamma;
+    private final double lambda;
+    private final boolean robustChild;
+    private final boolean spaceLocalNorm;
+    private final long masterSeed;
+
+    private ExperimentConfig(AgentType agentType, int iteration, int maxTick,
+            double explorationConstant, double gamma, double lambda,
+            boolean robustChild, boolean spaceLocalNorm, long masterSeed) {
+        if (iteration <= 0) {
+            throw new IllegalArgumentException("Number of games must be positive: " + iteration);
+        }
+        this.agentType = agentType;
+        this.iteration = iteration;
+        this.maxTick = maxTick;
+        this.explorationConstant = explorationConstant;
+        this.gamma = gamma;
+        this.lambda = lambda;
+        this.robustChild = robustChild;
+        this.spaceLocalNorm = spaceLocalNorm;
+        this.masterSeed = masterSeed;
+    }
+
+    /**
+     * Konfigurasi eksperimen untuk agen Random.
+     *
+     * @param iteration Jumlah permainan
+     * @param masterSeed Master seed dari eksperimen
+     */
+    public static ExperimentConfig random(int iteration, long masterSeed) {
+        return new ExperimentConfig(AgentType.RANDOM, iteration, Integer.MAX_VALUE,
+                0, 0, 0, false, false, masterSeed);
+    }
+
+    /**
+     * Konfigurasi eksperimen untuk agen MCTS dengan algoritma UCT.
+     *
+     * @param iteration Jumlah permainan
+     * @param maxTick Jumlah langkah waktu pada setiap pemilihan aksi
+     * @param explorationConstant Konstanta eksplorasi UCT
+     * @param isRobustChild True untuk Robust Child, false untuk Max Child
+     * @param isSpaceLocalNorm True untuk Space-Local Value Normalization,
+     * false untuk tanpa normalisasi
+     * @param masterSeed Master seed dari eksperimen
+     */
+    public static ExperimentConfig mcts(int iteration, int maxTick,
+            double explorationConstant, boolean isRobustChild,
+            boolean isSpaceLocalNorm, long masterSeed) {
+        return new ExperimentConfig(AgentType.MCTS, iteration, maxTick,
+                explorationConstant, 0, 0, isRobustChild, isSpaceLocalNorm, masterSeed);
+    }
+
+    /**
+     * Konfigurasi eksperimen untuk agen TDTS dengan algoritma
+     * Sarsa-UCT(lambda).
+     *
+     * @param iteration Jumlah permainan
+     * @param maxTick Jumlah langkah waktu pada setiap pemilihan aksi
+     * @param explorationConstant Konstanta eksplorasi UCT
+     * @param gamma Reward discount
+     * @param lambda Eligibility trace decay rate
+     * @param isRobustChild True untuk Robust Child, false untuk Max Child
+     * @param isSpaceLocalNorm True untuk Space-Local Value Normalization,
+     * false untuk tanpa normalisasi
+     * @param masterSeed Master seed dari eksperimen
+     */
+    public static ExperimentConfig tdts(int iteration, int maxTick,
+            double explorationConstant, double gamma, double lambda,
+            boolean isRobustChild, boolean isSpaceLocalNorm, long masterSeed) {
+        return new ExperimentConfig(AgentType.TDTS, iteration, maxTick,
+                explorationConstant, gamma, lambda, isRobustChild, isSpaceLocalNorm, masterSeed);
+    }
+
+    /**
+     * Membangun GPA baru sesuai konfigurasi ini.
+     *
+     * @param rand Random number generator untuk agen
+     * @return GPA baru
+     */
+    public GamePlayingAgent buildAgent(Random rand) {
+        switch (agentType) {
+            case MCTS:
+                return new MctsAgent.Builder()
+                        .setExplorationConstant(explorationConstant)
+                        .setBestChildPolicy(robustChild ? new MostVisitPolicy(rand) : new MaxUtilPolicy(rand))
+                        .setNormalizationPolicy(spaceLocalNorm ? new SpaceLocalNormalization() : new NoNormalization())
+                        .setRandom(rand)
+                        .build();
+            case TDTS:
+                return new TdtsAgent.Builder()
+                        .setExplorationConstant(explorationConstant)
+                        .setRewardDiscount(gamma)
+                        .setEligibilityTraceDecay(lambda)
+                        .setBestChildPolicy(robustChild ? new MostVisitPolicy(rand) : new MaxUtilPolicy(rand))
+                        .setNormalizationPolicy(spaceLocalNorm ? new SpaceLocalNormalization() : new NoNormalization())
+                        .setRandom(rand)
+                        .build();
+            default:
+                return new RandomAgent(rand);
+        }
+    }
+
+    /**
+     * Membuat logger baru untuk eksperimen ini beserta pesan pembuka file
+     * summary-nya.
+     *
+     * @return Logger untuk eksperimen ini
+     */
+    public ExperimentLogger newLogger() {
+        if (agentType == AgentType.RANDOM) {
+            return new ExperimentLogger(agentType.codeName,
+                    agentType.title,
+                    "Number of games: " + iteration,
+                    "Master seed: " + masterSeed
+            );
+        }
+        return new ExperimentLogger(agentType.codeName,
+                agentType.title,
+                "Number of games: " + iteration,
+                "Number of time steps: " + maxTick,
+                "Master seed: " + masterSeed,
+                buildAgent(new FastRandom()).getConfigurationString()
+        );
+    }
+
+    /**
+     * Perkiraan relatif lama satu permainan dari eksperimen ini, dipakai untuk
+     * mengurutkan pekerjaan. Agen pencarian menghabiskan waktu sebanding
+     * dengan jumlah langkah waktunya, sedangkan agen Random hampir tidak
+     * membutuhkan waktu.
+     *
+     * @return Perkiraan biaya satu permainan
+     */
+    public long getExpectedCost() {
+        return agentType == AgentType.RANDOM ? 0 : maxTick;
+    }
+
+    public AgentType getAgentType() {
+        return agentType;
+    }
+
+    public int getIteration() {
+        return iteration;
+    }
+
+    /**
+     * @return Jumlah langkah waktu yang diberikan ke agen pada setiap
+     * pemilihan aksi
+     */
+    public int getMaxTick() {
+        return maxTick;
+    }
+
+    public double getExplorationConstant() {
+        return explorationConstant;
+    }
+
+    public double getGamma() {
+        return gamma;
+    }
+
+    public double getLambda() {
+        return lambda;
+    }
+
+    public boolean isRobustChild() {
+        return robustChild;
+    }
+
+    public boolean isSpaceLocalNorm() {
+        return spaceLocalNorm;
+    }
+
+    public long getMasterSeed() {
+        return masterSeed;
+    }
+
+    /**
+     * Mengubah konfigurasi ini menjadi teks satu baris yang dapat dikirim ke
+     * proses lain dan dibaca kembali dengan decode(String) tanpa kehilangan
+     * presisi.
+     *
+     * @return Representasi teks dari konfigurasi
+     */
+    public String encode() {
+        return agentType
+                + "," + iteration
+                + "," + maxTick
+                + "," + explorationConstant
+                + "," + gamma
+                + "," + lambda
+                + "," + robustChild
+                + "," + spaceLocalNorm
+                + "," + masterSeed;
+    }
+
+    /**
+     * Kebalikan dari encode().
+     *
+     * @param text Representasi teks dari konfigurasi
+     * @return Konfigurasi yang sama dengan konfigurasi asalnya
+     * @throws IllegalArgumentException Jika teks tidak valid
+     */
+    public static ExperimentConfig decode(String text) {
+        String[] field = text.split(",");
+        if (field.length != 9) {
+            throw new IllegalArgumentException("Invalid experiment config: " + text);
+        }
+        return new ExperimentConfig(
+                AgentType.valueOf(field[0]),
+                Integer.parseInt(field[1]),
+                Integer.parseInt(field[2]),
+                Double.parseDouble(field[3]),
+                Double.parseDouble(field[4]),
+                Double.parseDouble(field[5]),
+                Boolean.parseBoolean(field[6]),
+                Boolean.parseBoolean(field[7]),
+                Long.parseLong(field[8]));
+    }
+
+    /**
+     * Mengembalikan identitas dari konfigurasi ini, yaitu hash 64-bit
+     * (FNV-1a) dari toString() dalam bentuk heksadesimal. Konfigurasi dengan
+     * nilai yang sama selalu memiliki key yang sama, juga di JVM yang
+     * berbeda, sehingga key dapat dipakai untuk mengenali eksperimen yang
+     * sudah pernah dijalankan.
+     *
+     * @return Key dari konfigurasi
+     */
+    public String getKey() {
+        long hash = 0xCBF29CE484222325L;
+        for (char c : toString().toCharArray()) {
+            hash ^= c;
+            hash *= 0x100000001B3L;
+        }
+        return String.format("%016x", hash);
+    }
+
+    @Override
+    public String toString() {
+        switch (agentType) {
+            case MCTS:
+                return String.format("%s(games=%d, tick=%d, c=%s, robust=%b, spaceLocal=%b, seed=%d)",
+                        agentType.codeName, iteration, maxTick, explorationConstant,
+                        robustChild, spaceLocalNorm, masterSeed);
+            case TDTS:
+                return String.format("%s(games=%d, tick=%d, c=%s, gamma=%s, lambda=%s, robust=%b, spaceLocal=%b, seed=%d)",
+                        agentType.codeName, iteration, maxTick, explorationConstant,
+                        gamma, lambda, robustChild, spaceLocalNorm, masterSeed);
+            default:
+                return String.format("%s(games=%d, seed=%d)", agentType.codeName, iteration, masterSeed);
+        }
+    }
+}
@@ -1,20 +1,20 @@
 package controller;
 
 import agent.GamePlayingAgent;
-import agent.RandomAgent;
-import agent.bestChildPolicy.MaxUtilPolicy;
-import agent.bestChildPolicy.MostVisitPolicy;
-import agent.mcts.MctsAgent;
-import agent.normalizationPolicy.NoNormalization;
-import agent.normalizationPolicy.SpaceLocalNormalization;
-import agent.tdts.TdtsAgent;
 import game.GameAction;
 import game.GameModel;
 import game.GameModel.GameState;
 import io.ExperimentLogger;
 import java.awt.Toolkit;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.function.Supplier;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import util.FastRandom;
 import static util.StatHelper.*;
 
 /**
@@ -25,6 +25,10 @@ import static util.StatHelper.*;
  */
 public class ExperimentController {
 
+    // Jumlah permainan yang dijalankan bersamaan
+    private static volatile int parallelism = 1;
+    private static volatile GameExecutors.Mode executorMode = GameExecutors.Mode.PLATFORM;
+
     /**
      * Melakukan beberapa kali pengujian untuk agen MCTS dengan algoritma UCT,
      * lalu mencatat hasil pengujian dan rata-rata skornya.
@@ -45,22 +49,24 @@ public class ExperimentController {
             double EXP_CONST,
             boolean isRobustChild,
             boolean isSpaceLocalNorm) {
+        mctsAverage(iteration, MAX_TICK, EXP_CONST, isRobustChild, isSpaceLocalNorm, new FastRandom().nextLong());
+    }
 
-        System.out.println("UCT Agent is being tested...");
-        Supplier<GamePlayingAgent> agentBuilder = () -> new MctsAgent.Builder()
-                .setExplorationConstant(EXP_CONST)
-                .setBestChildPolicy(isRobustChild ? new MostVisitPolicy() : new MaxUtilPolicy())
-                .setNormalizationPolicy(isSpaceLocalNorm ? new SpaceLocalNormalization() : new NoNormalization())
-                .build();
-
-        ExperimentLogger logger = new ExperimentLogger("mcts",
-                "Average score of UCT GPA",
-                "Number of games: " + iteration,
-                "Number of time steps: " + MAX_TICK,
-                agentBuilder.get().getConfigurationString()
-        );
-
-        runExperiment(iteration, MAX_TICK, agentBuilder, logger);
+    /**
+     * Sama seperti mctsAverage(int, int, double, boolean, boolean), tetapi
+     * seed dari setiap permainan diturunkan dari master seed tertentu sehingga
+     * eksperimen dapat diulang dengan hasil yang sama.
+     *
+     * @param masterSeed Master seed dari eksperimen
+     */
+    public static void mctsAverage(
+            int iteration,
+            int MAX_TICK,
+            double EXP_CONST,
+            boolean isRobustChild,
+            boolean isSpaceLocalNorm,
+            long masterSeed) {
+        runExperiment(ExperimentConfig.mcts(iteration, MAX_TICK, EXP_CONST, isRobustChild, isSpaceLocalNorm, masterSeed));
     }
 
     /**
@@ -88,24 +94,26 @@ public class ExperimentController {
             double lambda,
             boolean isRobustChild,
             boolean isSpaceLocalNorm) {
-        System.out.println("Sarsa UCT(lambda) Agent is being tested...");
-
-        Supplier<GamePlayingAgent> agentBuilder = () -> new TdtsAgent.Builder()
-                .setExplorationConstant(EXP_CONST)
-                .setRewardDiscount(gamma)
-                .setEligibilityTraceDecay(lambda)
-                .setBestChildPolicy(isRobustChild ? new MostVisitPolicy() : new MaxUtilPolicy())
-                .setNormalizationPolicy(isSpaceLocalNorm ? new SpaceLocalNormalization() : new NoNormalization())
-                .build();
-
-        ExperimentLogger logger = new ExperimentLogger("tdts",
-                "Average score of Sarsa-UCT(lambda) GPA",
-                "Number of games: " + iteration,
-                "Number of time steps: " + MAX_TICK,
-                agentBuilder.get().getConfigurationString()
-        );
+        tdtsAverage(iteration, MAX_TICK, EXP_CONST, gamma, lambda, isRobustChild, isSpaceLocalNorm, new FastRandom().nextLong());
+    }
 
-        runExperiment(iteration, MAX_TICK, agentBuilder, logger);
+    /**
+     * Sama seperti tdtsAverage(int, int, double, double, double, boolean,
+     * boolean), tetapi seed dari setiap permainan diturunkan dari master seed
+     * tertentu sehingga eksperimen dapat diulang dengan hasil yang sama.
+     *
+     * @param masterSeed Master seed dari eksperimen
+     */
+    public static void tdtsAverage(
+            int iteration,
+            int MAX_TICK,
+            double EXP_CONST,
+            double gamma,
+            double lambda,
+            boolean isRobustChild,
+            boolean isSpaceLocalNorm,
+            long masterSeed) {
+        runExperiment(ExperimentConfig.tdts(iteration, MAX_TICK, EXP_CONST, gamma, lambda, isRobustChild, isSpaceLocalNorm, masterSeed));
     }
 
     /**
@@ -115,72 +123,151 @@ public class ExperimentController {
      * @param iteration Jumlah pengujian yang ingin dilakukan
      */
     public static void randomAverage(int iteration) {
-        System.out.println("Random Agent is being tested...");
-        ExperimentLogger logger = new ExperimentLogger(
-                "random",
-                "Average score of Random GPA",
-                "Number of games: " + iteration
-        );
+        randomAverage(iteration, new FastRandom().nextLong());
+    }
+
+    /**
+     * Sama seperti randomAverage(int), tetapi seed dari setiap permainan
+     * diturunkan dari master seed tertentu sehingga eksperimen dapat diulang
+     * dengan hasil yang sama.
+     *
+     * @param iteration Jumlah pengujian yang ingin dilakukan
+     * @param masterSeed Master seed dari eksperimen
+     */
+    public static void randomAverage(int iteration, long masterSeed) {
+        runExperiment(ExperimentConfig.random(iteration, masterSeed));
+    }
+
+    /**
+     * Mengatur jumlah permainan yang dijalankan bersamaan oleh eksperimen
+     * berikutnya. Setiap permainan memakai agen, model, dan seed sendiri,
+     * sehingga hasil eksperimen tidak bergantung pada jumlah ini.
+     *
+     * @param parallelism Jumlah permainan yang dijalankan bersamaan, 1 untuk
+     * menjalankan permainan satu per satu
+     */
+    public static void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        ExperimentController.parallelism = parallelism;
+    }
+
+    public static int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Mengatur cara permainan dijalankan bersamaan. Pada mode LIGHTWEIGHT,
+     * semua permainan dimulai sekaligus sebagai tugas ringan, tetapi
+     * pemilihan aksi oleh agen (bagian yang berat) tetap dibatasi paling
+     * banyak parallelism sekaligus. Durasi permainan pada mode ini termasuk
+     * waktu menunggu giliran pencarian. Jika JDK tidak mendukung virtual
+     * thread, permainan dijalankan seperti pada mode PLATFORM.
+     *
+     * @param executorMode Mode executor
+     */
+    public static void setExecutorMode(GameExecutors.Mode executorMode) {
+        ExperimentController.executorMode = executorMode;
+    }
 
-        runExperiment(iteration, Integer.MAX_VALUE, () -> new RandomAgent(), logger);
+    public static GameExecutors.Mode getExecutorMode() {
+        return executorMode;
     }
 
     /**
      * Method generik untuk melakukan pengujian berulang terhadap GPA dengan
-     * agen tertentu.
+     * konfigurasi tertentu. Jika parallelism lebih dari 1, permainan
+     * dijalankan bersamaan, tetapi hasilnya tetap dilaporkan dan disimpan
+     * sesuai urutan permainan.
      *
-     * @param iteration Jumlah pengujian yang ingin dilakukan
-     * @param maxTick Jumlah langkah waktu yang diberikan ke agen pada setiap
-     * pemilihan aksi
-     * @param agentBuilder Objek Supplier yang dapat mengembalikan GPA dengan
-     * algoritma dan konfigurasi parameter tertentu
-     * @param logger Objek yang akan mencatatkan detail pengujian ke file log
+     * @param config Konfigurasi eksperimen. Permainan ke-i memakai seed
+     * FastRandom.deriveSeed(masterSeed, i).
+     * @return Hasil setiap permainan, sesuai urutan permainan
      */
-    private static void runExperiment(
-            int iteration,
-            int maxTick,
-            Supplier<GamePlayingAgent> agentBuilder,
-            ExperimentLogger logger) {
+    public static GameRecord[] runExperiment(ExperimentConfig config) {
+        System.out.println(config.getAgentType().displayName + " Agent is being tested...");
+        ExperimentLogger logger = config.newLogger();
+        int iteration = config.getIteration();
+        GameRecord[] records = new GameRecord[iteration];
+
+        int threads = Math.min(parallelism, iteration);
+        boolean lightweight = executorMode == GameExecutors.Mode.LIGHTWEIGHT
+                && GameExecutors.isVirtualThreadAvailable() && iteration > 1;
+        ExecutorService pool = threads > 1 || lightweight
+                ? GameExecutors.newExecutor(lightweight ? GameExecutors.Mode.LIGHTWEIGHT : GameExecutors.Mode.PLATFORM, threads)
+                : null;
+        // Pembatas jumlah pencarian yang berjalan bersamaan
+        Semaphore searchPermits = lightweight ? new Semaphore(threads) : null;
+        long wallStart = System.currentTimeMillis();
+        try {
+            List<Future<GameRecord>> futures = new ArrayList<>(iteration);
+            if (pool != null) {
+                for (int i = 0; i < iteration; i++) {
+                    final int index = i;
+                    futures.add(pool.submit(() -> playGame(config, index, logger, searchPermits)));
+                }
+            }
+
+            for (int i = 0; i < iteration; i++) {
+                records[i] = pool == null
+                        ? playGame(config, i, logger)
+                        : awaitGame(futures.get(i));
+                reportGame(records[i], logger);
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+        long wallTime = System.currentTimeMillis() - wallStart;
+
+        reportSummary(records, logger);
+        if (pool != null) {
+            String line = "Wall-clock time: " + (wallTime / 1000.0) + " s (" + (lightweight
+                    ? "lightweight tasks, search limit " + threads + ")"
+                    : threads + " games in parallel)");
+            System.out.println(line);
+            logger.logSummary(line);
+        }
+
+        Toolkit.getDefaultToolkit().beep();
+        return records;
+    }
+
+    /**
+     * Mencetak dan mencatat skor akhir dari satu permainan ke file summary.
+     *
+     * @param record Hasil permainan
+     * @param logger Logger dari eksperimen
+     */
+    static void reportGame(GameRecord record, ExperimentLogger logger) {
+        String line = "Iteration[" + (record.getIndex() + 1) + "] Final Score: "
+                + record.getScore() + " (" + record.getDuration() + " ms)";
+        System.out.println(line);
+        logger.logSummary(line);
+    }
 
+    /**
+     * Menghitung statistik dari hasil semua permainan dalam sebuah eksperimen,
+     * lalu mencetak dan mencatatnya ke file summary.
+     *
+     * @param records Hasil setiap permainan, sesuai urutan permainan
+     * @param logger Logger dari eksperimen
+     */
+    static void reportSummary(GameRecord[] records, ExperimentLogger logger) {
+        int iteration = records.length;
         int scores[] = new int[iteration];
         int steps[] = new int[iteration];
         int maxTiles[] = new int[iteration];
         long durations[] = new long[iteration];
-
         for (int i = 0; i < iteration; i++) {
-            logger.nextFile();
-            GamePlayingAgent agent = agentBuilder.get();
-            GameModel infModel = new GameModel(Integer.MAX_VALUE);
-            GameModel.GameState state = infModel.generateInitialState();
-
-            logger.log(state);
-            int step = 0;
-            long startTime, endTime;
-            startTime = System.currentTimeMillis();
-            do {
-                GameState copyState = state.copy();
-                GameAction chosenAction = agent.selectAction(copyState, new GameModel(maxTick));
-
-                state = infModel.applyAction(state, chosenAction);
-                logger.log(chosenAction, state);
-                step++;
-            } while (!state.isTerminal());
-            endTime = System.currentTimeMillis();
-
-            steps[i] = step;
-            durations[i] = endTime - startTime;
-
-            scores[i] = state.getScore();
-            logger.log("Score: " + state.getScore());
-            logger.log("Step: " + step);
-            logger.log("Duration: " + durations[i] + " ms");
-
-            System.out.println("Iteration[" + (i + 1) + "] Final Score: " + state.getScore() + " (" + durations[i] + " ms)");
-            logger.logSummary("Iteration[" + (i + 1) + "] Final Score: " + state.getScore() + " (" + durations[i] + " ms)");
-
-            maxTiles[i] = state.getLargestTile();
-            logger.log("Max Tile: " + maxTiles[i]);
+            scores[i] = records[i].getScore();
+            steps[i] = records[i].getSteps();
+            maxTiles[i] = records[i].getMaxTile();
+            durations[i] = records[i].getDuration();
         }
+
         double avgScore = average(scores);
         System.out.println("Average Score: " + avgScore);
         logger.logSummary("Average Score: " + avgScore);
@@ -217,7 +304,100 @@ public class ExperimentController {
         int maxTileId = idOfMaximum(maxTiles);
         System.out.println("Max Tile: " + maxTiles[maxTileId] + " (Iteration[" + (maxTileId + 1) + "])");
         logger.logSummary("Max Tile: " + maxTiles[maxTileId] + " (Iteration[" + (maxTileId + 1) + "])");
+    }
 
-        Toolkit.getDefaultToolkit().beep();
+    /**
+     * Memainkan satu permainan dari eksperimen dan mencatatnya ke file log
+     * permainan tersebut. Method ini tidak menyentuh data bersama, sehingga
+     * dapat dipanggil dari beberapa thread sekaligus.
+     *
+     * @param config Konfigurasi eksperimen
+     * @param index Nomor permainan, dimulai dari 0
+     * @param logger Logger dari eksperimen
+     * @return Hasil permainan
+     */
+    public static GameRecord playGame(ExperimentConfig config, int index, ExperimentLogger logger) {
+        return playGame(config, index, logger, null);
+    }
+
+    /**
+     * Sama seperti playGame(ExperimentConfig, int, ExperimentLogger), tetapi
+     * setiap pemilihan aksi harus mendapatkan izin dari searchPermits
+     * terlebih dahulu.
+     *
+     * @param searchPermits Pembatas jumlah pencarian yang berjalan bersamaan,
+     * atau null jika tidak dibatasi
+     */
+    private static GameRecord playGame(ExperimentConfig config, int index,
+            ExperimentLogger logger, Semaphore searchPermits) {
+        ExperimentLogger.GameLog log = logger.openGame(index);
+        int maxTick = config.getMaxTick();
+        long seed = FastRandom.deriveSeed(config.getMasterSeed(), index);
+        // Agen, permainan, dan simulasi agen memakai generator terpisah
+        FastRandom gameRand = new FastRandom(seed);
+        GamePlayingAgent agent = config.buildAgent(gameRand.split());
+        GameModel infModel = new GameModel(Integer.MAX_VALUE, gameRand.split());
+        Random searchRand = gameRand.split();
+        GameModel.GameState state = infModel.generateInitialState();
+
+        log.log("Seed: " + seed);
+        log.log(state);
+        int step = 0;
+        long startTime, endTime;
+        startTime = System.currentTimeMillis();
+        do {
+            GameState copyState = state.copy();
+            GameAction chosenAction;
+            if (searchPermits == null) {
+                chosenAction = agent.selectAction(copyState, new GameModel(maxTick, searchRand));
+            } else {
+                acquire(searchPermits);
+                try {
+                    chosenAction = agent.selectAction(copyState, new GameModel(maxTick, searchRand));
+                } finally {
+                    searchPermits.release();
+                }
+            }
+
+            state = infModel.applyAction(state, chosenAction);
+            log.log(chosenAction, state);
+            step++;
+        } while (!state.isTerminal());
+        endTime = System.currentTimeMillis();
+        long duration = endTime - startTime;
+
+        log.log("Score: " + state.getScore());
+        log.log("Step: " + step);
+        log.log("Duration: " + duration + " ms");
+        log.log("Max Tile: " + state.getLargestTile());
+
+        return new GameRecord(index, seed, state.getScore(), step, state.getLargestTile(), duration);
+    }
+
+    private static void acquire(Semaphore permits) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a search permit", ex);
+        }
+    }
+
+    /**
+     * Menunggu hasil sebuah permainan. Exception dari permainan dilempar ulang
+     * di thread pemanggil.
+     */
+    static GameRecord awaitGame(Future<GameRecord> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for game", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException("Game failed", ex.getCause());
+        }
     }
 }
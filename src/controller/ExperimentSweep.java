@@ -0,0 +1,328 @@
+package controller;
+
+import io.ExperimentJournal;
+import io.ExperimentLogger;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Menjalankan sekumpulan eksperimen (misalnya grid parameter) sekaligus.
+ * Setiap eksperimen dipecah menjadi pekerjaan per permainan, lalu semua
+ * pekerjaan dari semua eksperimen dijalankan pada satu thread pool berukuran
+ * tetap. Pekerjaan dengan perkiraan biaya terbesar dijalankan lebih dulu,
+ * sehingga permainan yang lama tidak tertinggal sendirian di akhir sweep.
+ * Hasil diperiksa sesuai urutan selesainya permainan, sehingga jika satu
+ * permainan gagal, sweep langsung berhenti dan permainan yang belum dimulai
+ * dibatalkan. Permainan yang sedang berjalan ditunggu sebentar sebelum worker
+ * dan jurnal ditutup. Begitu semua permainan dari sebuah eksperimen selesai,
+ * summary eksperimen tersebut langsung ditulis, sama seperti jika eksperimen
+ * dijalankan dengan ExperimentController.runExperiment().
+ *
+ * Jika jurnal dipasang dengan setJournal(Path), hasil setiap permainan dicatat
+ * ke jurnal begitu permainan selesai. Menjalankan ulang sweep yang sama dengan
+ * jurnal yang sama akan melewati permainan yang sudah tercatat, sehingga sweep
+ * yang terhenti dapat dilanjutkan. Supaya dapat dikenali ulang, master seed
+ * dari setiap eksperimen harus tetap, bukan dibuat acak setiap kali sweep
+ * dijalankan.
+ *
+ * Dengan setWorkerProcesses(true), permainan tidak dimainkan di JVM ini,
+ * melainkan dikirim ke sejumlah proses ExperimentWorker (sebanyak
+ * parallelism) lewat WorkerPool. Hasilnya tetap dikumpulkan, dicatat ke
+ * jurnal, dan diringkas oleh sweep ini.
+ *
+ * @author Jiang Han
+ */
+public class ExperimentSweep {
+
+    // Waktu tunggu permainan yang masih berjalan setelah sweep dihentikan
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 60;
+
+    private final int parallelism;
+    private final List<ExperimentConfig> configs = new ArrayList<>();
+    private Path journalPath;
+    private ExperimentJournal journal;
+    private boolean workerProcesses;
+    private List<String> workerCommand;
+    private WorkerPool workers;
+    private int finishedCount;
+
+    /**
+     * @param parallelism Jumlah permainan yang dijalankan bersamaan
+     */
+    public ExperimentSweep(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Menambahkan sebuah eksperimen ke sweep.
+     *
+     * @param config Konfigurasi eksperimen
+     * @return Sweep ini
+     */
+    public ExperimentSweep add(ExperimentConfig config) {
+        configs.add(config);
+        return this;
+    }
+
+    /**
+     * Memasang jurnal untuk menyimpan hasil permainan dan melanjutkan sweep
+     * yang terhenti.
+     *
+     * @param journalPath Path dari file jurnal, atau null untuk tanpa jurnal
+     * @return Sweep ini
+     */
+    public ExperimentSweep setJournal(Path journalPath) {
+        this.journalPath = journalPath;
+        return this;
+    }
+
+    /**
+     * Mengatur apakah permainan dimainkan oleh proses worker terpisah.
+     *
+     * @param workerProcesses True untuk memakai proses worker
+     * @return Sweep ini
+     */
+    public ExperimentSweep setWorkerProcesses(boolean workerProcesses) {
+        this.workerProcesses = workerProcesses;
+        return this;
+    }
+
+    /**
+     * Mengatur perintah untuk menjalankan satu proses worker, misalnya untuk
+     * menambahkan opsi JVM seperti -Xmx atau untuk menjalankan worker di mesin
+     * lain lewat ssh. Secara default dipakai WorkerPool.defaultCommand().
+     *
+     * @param command Perintah beserta argumennya
+     * @return Sweep ini
+     */
+    public ExperimentSweep setWorkerCommand(String... command) {
+        this.workerCommand = Arrays.asList(command);
+        return this;
+    }
+
+    /**
+     * Menjalankan semua eksperimen dan menunggu hingga semuanya selesai.
+     *
+     * @return Hasil permainan dari setiap eksperimen, sesuai urutan
+     * penambahan eksperimen dan urutan permainan
+     */
+    public List<GameRecord[]> run() {
+        System.out.println("Sweep of " + configs.size() + " experiments, "
+                + parallelism + " games in parallel");
+        long start = System.currentTimeMillis();
+        finishedCount = 0;
+
+        try {
+            journal = journalPath == null ? null : new ExperimentJournal(journalPath);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        try {
+            List<Experiment> experiments = new ArrayList<>(configs.size());
+            List<Job> jobs = new ArrayList<>();
+            for (ExperimentConfig config : configs) {
+                Experiment experiment = new Experiment(config);
+                experiments.add(experiment);
+                if (experiment.restore()) {
+                    continue;
+                }
+                experiment.logger = config.newLogger();
+                for (int i = 0; i < config.getIteration(); i++) {
+                    if (experiment.records[i] == null) {
+                        jobs.add(new Job(experiment, i));
+                    }
+                }
+                if (experiment.remaining.get() == 0) {
+                    // Semua permainan sudah tercatat, tetapi summary belum
+                    finish(experiment);
+                }
+            }
+            // Urutan stabil: biaya yang sama tetap mengikuti urutan eksperimen
+            jobs.sort(Comparator.comparingLong((Job job) -> job.experiment.config.getExpectedCost()).reversed());
+
+            if (workerProcesses && !jobs.isEmpty()) {
+                workers = new WorkerPool(Math.min(parallelism, jobs.size()), workerCommand);
+            }
+            ExecutorService pool = GameExecutors.newExecutor(GameExecutors.Mode.PLATFORM, parallelism);
+            try {
+                CompletionService<GameRecord> completion = new ExecutorCompletionService<>(pool);
+                for (Job job : jobs) {
+                    completion.submit(job::run);
+                }
+                for (int i = 0; i < jobs.size(); i++) {
+                    ExperimentController.awaitGame(takeCompleted(completion));
+                }
+            } finally {
+                pool.shutdownNow();
+                awaitShutdown(pool);
+                if (workers != null) {
+                    workers.close();
+                    workers = null;
+                }
+            }
+
+            System.out.println("Sweep finished in " + (System.currentTimeMillis() - start) / 1000.0 + " s");
+            List<GameRecord[]> results = new ArrayList<>(experiments.size());
+            for (Experiment experiment : experiments) {
+                results.add(experiment.records);
+            }
+            return results;
+        } finally {
+            closeJournal();
+        }
+    }
+
+    private static Future<GameRecord> takeCompleted(CompletionService<GameRecord> completion) {
+        try {
+            return completion.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for game", ex);
+        }
+    }
+
+    /**
+     * Menunggu permainan yang masih berjalan setelah pool dihentikan, supaya
+     * permainan tersebut tidak lagi menulis hasil ke jurnal yang sudah
+     * ditutup. Permainan tidak memeriksa interrupt, sehingga penantian
+     * dibatasi SHUTDOWN_TIMEOUT_SECONDS.
+     */
+    private static void awaitShutdown(ExecutorService pool) {
+        try {
+            if (!pool.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                Logger.getLogger(ExperimentSweep.class.getName()).log(Level.WARNING,
+                        "Some games are still running after the sweep stopped");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            } finally {
+                journal = null;
+            }
+        }
+    }
+
+    /**
+     * Menulis summary dari eksperimen yang semua permainannya sudah selesai.
+     * Disinkronisasi supaya keluaran beberapa eksperimen tidak bercampur.
+     */
+    private synchronized void finish(Experiment experiment) {
+        finishedCount++;
+        System.out.println("[" + finishedCount + "/" + configs.size() + "] " + experiment.config);
+        if (experiment.restored > 0) {
+            experiment.logger.logSummary("Restored from journal: " + experiment.restored + " games");
+        }
+        for (GameRecord record : experiment.records) {
+            ExperimentController.reportGame(record, experiment.logger);
+        }
+        ExperimentController.reportSummary(experiment.records, experiment.logger);
+        if (journal != null) {
+            try {
+                journal.markFinished(experiment.config.getKey());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Status dari satu eksperimen di dalam sweep.
+     */
+    private class Experiment {
+
+        final ExperimentConfig config;
+        final GameRecord[] records;
+        // Jumlah permainan yang belum selesai
+        final AtomicInteger remaining;
+        ExperimentLogger logger;
+        int restored;
+
+        Experiment(ExperimentConfig config) {
+            this.config = config;
+            this.records = new GameRecord[config.getIteration()];
+            this.remaining = new AtomicInteger(config.getIteration());
+        }
+
+        /**
+         * Mengambil hasil permainan yang sudah tercatat di jurnal.
+         *
+         * @return True jika eksperimen ini sudah selesai seluruhnya, termasuk
+         * summary-nya
+         */
+        boolean restore() {
+            if (journal == null) {
+                return false;
+            }
+            String key = config.getKey();
+            for (int i = 0; i < records.length; i++) {
+                records[i] = journal.getRecord(key, i);
+                if (records[i] != null) {
+                    restored++;
+                }
+            }
+            remaining.set(records.length - restored);
+            if (restored == records.length && journal.isFinished(key)) {
+                synchronized (ExperimentSweep.this) {
+                    finishedCount++;
+                    System.out.println("[" + finishedCount + "/" + configs.size() + "] "
+                            + config + " (already finished)");
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Pekerjaan untuk memainkan satu permainan dari sebuah eksperimen.
+     */
+    private class Job {
+
+        final Experiment experiment;
+        final int index;
+
+        Job(Experiment experiment, int index) {
+            this.experiment = experiment;
+            this.index = index;
+        }
+
+        GameRecord run() throws IOException {
+            GameRecord record = workers == null
+                    ? ExperimentController.playGame(experiment.config, index, experiment.logger)
+                    : workers.play(experiment.config, index, experiment.logger);
+            if (journal != null) {
+                journal.append(experiment.config.getKey(), record);
+            }
+            experiment.records[index] = record;
+            // Thread yang menyelesaikan permainan terakhir menulis summary
+            if (experiment.remaining.decrementAndGet() == 0) {
+                finish(experiment);
+            }
+            return record;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package controller;
+
+import io.ExperimentJournal;
+import io.ExperimentLogger;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Program worker yang memainkan permainan dari sebuah eksperimen atas perintah
+ * coordinator (lihat WorkerPool). Worker berkomunikasi lewat stdin dan stdout
+ * dengan protokol teks satu baris per pesan, kolom dipisahkan tab:
+ * <pre>
+ * worker      -&gt; coordinator: ready
+ * coordinator -&gt; worker:      game &lt;config&gt; &lt;index&gt; &lt;log folder&gt;
+ * worker      -&gt; coordinator: result &lt;index&gt; &lt;seed&gt; &lt;score&gt; &lt;steps&gt; &lt;maxTile&gt; &lt;duration&gt;
+ *                          atau error &lt;pesan&gt;
+ * </pre>
+ * dengan config adalah ExperimentConfig.encode() dan kolom result sama dengan
+ * ExperimentJournal.formatRecord(GameRecord). Worker memainkan satu permainan
+ * untuk setiap pesan game dan berhenti saat stdin ditutup. Karena hanya
+ * memakai stdin dan stdout, worker juga dapat dijalankan di mesin lain,
+ * misalnya lewat ssh.
+ *
+ * Keluaran lain ke System.out dialihkan ke System.err supaya tidak
+ * mengganggu protokol.
+ *
+ * @author Jiang Han
+ */
+public class ExperimentWorker {
+
+    public static final String READY = "ready";
+    public static final String GAME = "game";
+    public static final String RESULT = "result";
+    public static final String ERROR = "error";
+
+    public static void main(String[] args) throws IOException {
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8));
+        System.setOut(System.err);
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+
+        out.println(READY);
+        out.flush();
+
+        Map<String, ExperimentLogger> loggers = new HashMap<>();
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] column = line.split("\t");
+            try {
+                if (column.length != 4 || !column[0].equals(GAME)) {
+                    throw new IllegalArgumentException("Unknown message: " + line);
+                }
+                ExperimentConfig config = ExperimentConfig.decode(column[1]);
+                int index = Integer.parseInt(column[2]);
+                ExperimentLogger logger = loggers.computeIfAbsent(column[3],
+                        dir -> ExperimentLogger.attach(Paths.get(dir)));
+
+                GameRecord record = ExperimentController.playGame(config, index, logger);
+                out.println(RESULT + "\t" + ExperimentJournal.formatRecord(record));
+            } catch (RuntimeException ex) {
+                out.println(ERROR + "\t" + String.valueOf(ex).replace('\t', ' ').replace('\n', ' '));
+            }
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package controller;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pembuat executor untuk menjalankan permainan-permainan dari sebuah
+ * eksperimen secara bersamaan.
+ *
+ * @author Jiang Han
+ */
+public final class GameExecutors {
+
+    /**
+     * Cara permainan dijalankan.
+     */
+    public enum Mode {
+        /**
+         * Thread pool berukuran tetap; setiap thread memainkan satu permainan
+         * hingga selesai, lalu mengambil permainan berikutnya.
+         */
+        PLATFORM,
+        /**
+         * Setiap permainan dijalankan di virtual thread tersendiri dan semua
+         * permainan dimulai sekaligus. Jumlah pencarian yang berjalan
+         * bersamaan tetap dibatasi (lihat
+         * ExperimentController.setParallelism(int)). Di JDK yang tidak
+         * mendukung virtual thread (project ini dikompilasi untuk Java 8),
+         * mode ini sama dengan PLATFORM.
+         */
+        LIGHTWEIGHT
+    }
+
+    private static final Method NEW_VIRTUAL_EXECUTOR
+            = findExecutorFactory(Executors.class, "newVirtualThreadPerTaskExecutor");
+
+    private GameExecutors() {
+    }
+
+    /**
+     * Membuat executor sesuai mode.
+     *
+     * @param mode Mode executor
+     * @param parallelism Jumlah thread untuk mode PLATFORM, termasuk jika mode
+     * LIGHTWEIGHT tidak didukung
+     * @return Executor baru yang harus dimatikan setelah dipakai
+     */
+    public static ExecutorService newExecutor(Mode mode, int parallelism) {
+        if (mode == Mode.LIGHTWEIGHT) {
+            ExecutorService virtual = invokeExecutorFactory(NEW_VIRTUAL_EXECUTOR);
+            if (virtual != null) {
+                return virtual;
+            }
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "game-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return True jika JDK yang sedang berjalan mendukung virtual thread
+     */
+    public static boolean isVirtualThreadAvailable() {
+        return NEW_VIRTUAL_EXECUTOR != null;
+    }
+
+    /**
+     * Mencari factory executor berupa method statis tanpa parameter, lalu
+     * mencobanya sekali, karena di JDK tertentu
+     * Executors.newVirtualThreadPerTaskExecutor() ada tetapi melempar
+     * exception jika fitur preview tidak diaktifkan. Method ini dan
+     * invokeExecutorFactory() dipakai lewat refleksi karena factory tersebut
+     * tidak ada di Java 8.
+     *
+     * @param owner Class pemilik factory
+     * @param name Nama method factory
+     * @return Factory yang dapat dipakai, atau null jika tidak ada atau gagal
+     */
+    public static Method findExecutorFactory(Class<?> owner, String name) {
+        try {
+            Method factory = owner.getMethod(name);
+            ExecutorService executor = invokeExecutorFactory(factory);
+            if (executor == null) {
+                return null;
+            }
+            executor.shutdown();
+            return factory;
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Membuat executor dengan factory hasil findExecutorFactory().
+     *
+     * @param factory Factory executor, boleh null
+     * @return Executor baru, atau null jika factory null atau gagal
+     */
+    public static ExecutorService invokeExecutorFactory(Method factory) {
+        if (factory == null) {
+            return null;
+        }
+        try {
+            Object executor = factory.invoke(null);
+            return executor instanceof ExecutorService ? (ExecutorService) executor : null;
+        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package controller;
+
+/**
+ * Hasil dari satu permainan dalam sebuah eksperimen.
+ *
+ * @author Jiang Han
+ */
+public final class GameRecord {
+
+    private final int index;
+    private final long seed;
+    private final int score;
+    private final int steps;
+    private final int maxTile;
+    private final long duration;
+
+    /**
+     * @param index Nomor permainan dalam eksperimen, dimulai dari 0
+     * @param seed Seed dari permainan
+     * @param score Skor akhir
+     * @param steps Jumlah langkah hingga permainan berakhir
+     * @param maxTile Tile terbesar di akhir permainan
+     * @param duration Lama permainan dalam milidetik
+     */
+    public GameRecord(int index, long seed, int score, int steps, int maxTile, long duration) {
+        this.index = index;
+        this.seed = seed;
+        this.score = score;
+        this.steps = steps;
+        this.maxTile = maxTile;
+        this.duration = duration;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public int getMaxTile() {
+        return maxTile;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+}
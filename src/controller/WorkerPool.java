@@ -0,0 +1,220 @@
+package controller;
+
+import io.ExperimentJournal;
+import io.ExperimentLogger;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinator untuk sekumpulan proses ExperimentWorker. Setiap worker adalah
+ * JVM tersendiri dengan heap dan garbage collector sendiri, sehingga pohon
+ * pencarian yang besar di satu permainan tidak menghentikan permainan lain.
+ * Setiap worker memainkan satu permainan dalam satu waktu.
+ *
+ * @author Jiang Han
+ */
+public class WorkerPool implements Closeable {
+
+    // Waktu tunggu worker berhenti sendiri setelah stdin-nya ditutup
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private final List<String> command;
+    private final BlockingQueue<Worker> idle;
+    private final List<Worker> workers = new ArrayList<>();
+    // Setelah close(), worker yang rusak tidak lagi diganti
+    private boolean closed;
+
+    /**
+     * Menjalankan sejumlah worker dan menunggu hingga semuanya siap.
+     *
+     * @param size Jumlah worker
+     * @param command Perintah untuk menjalankan satu worker, atau null untuk
+     * JVM lokal dengan classpath yang sama (lihat defaultCommand())
+     * @throws UncheckedIOException Jika worker gagal dijalankan
+     */
+    public WorkerPool(int size, List<String> command) {
+        this.command = command == null ? defaultCommand() : new ArrayList<>(command);
+        this.idle = new ArrayBlockingQueue<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                workers.add(new Worker());
+            }
+            for (Worker worker : workers) {
+                worker.awaitReady();
+                idle.add(worker);
+            }
+        } catch (IOException ex) {
+            close();
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Perintah untuk menjalankan worker di JVM lokal yang sama dengan JVM
+     * ini, dengan classpath yang sama.
+     *
+     * @return Perintah beserta argumennya
+     */
+    public static List<String> defaultCommand() {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        return Arrays.asList(java, "-cp", System.getProperty("java.class.path"),
+                ExperimentWorker.class.getName());
+    }
+
+    /**
+     * Memainkan satu permainan di salah satu worker yang sedang tidak bekerja.
+     * Method ini menunggu hingga ada worker yang bebas.
+     *
+     * @param config Konfigurasi eksperimen
+     * @param index Nomor permainan
+     * @param logger Logger dari eksperimen, file log permainan ditulis worker
+     * ke folder logger tersebut
+     * @return Hasil permainan
+     * @throws IllegalStateException Jika worker membalas dengan pesan error
+     * @throws UncheckedIOException Jika worker berhenti atau balasannya tidak
+     * dapat dibaca. Worker tersebut diganti dengan worker baru.
+     */
+    public GameRecord play(ExperimentConfig config, int index, ExperimentLogger logger) {
+        Worker worker;
+        try {
+            worker = idle.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a worker", ex);
+        }
+        try {
+            GameRecord record = worker.play(config, index, logger);
+            idle.add(worker);
+            return record;
+        } catch (IOException ex) {
+            // Worker yang rusak diganti supaya permainan lain tidak menunggu
+            replace(worker, ex);
+            throw new UncheckedIOException(ex);
+        } catch (RuntimeException ex) {
+            // Permainan gagal tetapi worker masih mengikuti protokol, sehingga
+            // worker tetap dapat memainkan permainan lain
+            idle.add(worker);
+            throw ex;
+        }
+    }
+
+    /**
+     * Menghentikan worker yang rusak lalu menjalankan worker baru sebagai
+     * penggantinya, kecuali pool ini sudah ditutup.
+     *
+     * @param worker Worker yang rusak
+     * @param failure Kerusakan dari worker tersebut. Jika worker baru gagal
+     * dijalankan, penyebabnya ditambahkan sebagai suppressed exception.
+     */
+    private synchronized void replace(Worker worker, IOException failure) {
+        worker.destroy();
+        workers.remove(worker);
+        if (closed) {
+            return;
+        }
+        Worker fresh = null;
+        try {
+            fresh = new Worker();
+            fresh.awaitReady();
+            workers.add(fresh);
+            idle.add(fresh);
+        } catch (IOException ex) {
+            if (fresh != null) {
+                fresh.destroy();
+            }
+            failure.addSuppressed(ex);
+        }
+    }
+
+    /**
+     * Menghentikan semua worker.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (Worker worker : workers) {
+            worker.in.close();
+        }
+        for (Worker worker : workers) {
+            try {
+                if (!worker.process.waitFor(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    worker.destroy();
+                }
+            } catch (InterruptedException ex) {
+                worker.destroy();
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers.clear();
+    }
+
+    /**
+     * Satu proses worker beserta saluran komunikasinya.
+     */
+    private class Worker {
+
+        final Process process;
+        final PrintWriter in;
+        final BufferedReader out;
+
+        Worker() throws IOException {
+            process = new ProcessBuilder(command)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            in = new PrintWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        void awaitReady() throws IOException {
+            String line = out.readLine();
+            if (!ExperimentWorker.READY.equals(line)) {
+                throw new IOException("Worker failed to start: " + line);
+            }
+        }
+
+        GameRecord play(ExperimentConfig config, int index, ExperimentLogger logger) throws IOException {
+            in.println(ExperimentWorker.GAME
+                    + "\t" + config.encode()
+                    + "\t" + index
+                    + "\t" + logger.getDirectory());
+            if (in.checkError()) {
+                throw new IOException("Worker stopped accepting jobs");
+            }
+
+            String line = out.readLine();
+            if (line == null) {
+                throw new IOException("Worker exited while playing game " + index + " of " + config);
+            }
+            String[] column = line.split("\t");
+            if (column[0].equals(ExperimentWorker.ERROR)) {
+                throw new IllegalStateException("Worker failed on game " + index + " of " + config + ": " + line);
+            }
+            if (column[0].equals(ExperimentWorker.RESULT) && column.length == 7) {
+                try {
+                    return ExperimentJournal.parseRecord(column, 1);
+                } catch (NumberFormatException ex) {
+                    throw new IOException("Malformed reply from worker: " + line, ex);
+                }
+            }
+            //Balasan yang tidak dikenal berarti worker sudah tidak sinkron
+            throw new IOException("Unexpected reply from worker: " + line);
+        }
+
+        void destroy() {
+            process.destroyForcibly();
+        }
+    }
+}
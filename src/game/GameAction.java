@@ -15,7 +15,36 @@ public enum GameAction {
 
     public final int id;
 
+    // Cache dari values() supaya tidak membuat array baru setiap dipanggil
+    private static final GameAction[] ACTIONS = values();
+
     GameAction(int id) {
         this.id = id;
     }
+
+    /**
+     * Mengembalikan aksi dengan id tertentu.
+     *
+     * @param id Id dari aksi
+     * @return Aksi dengan id tersebut
+     */
+    public static GameAction fromId(int id) {
+        return ACTIONS[id];
+    }
+
+    /**
+     * Mengembalikan aksi ke-k (dimulai dari 0) dari sebuah bitmask aksi. Bit
+     * ke-i pada mask menandakan aksi dengan id i.
+     *
+     * @param mask Bitmask aksi
+     * @param k Urutan bit yang bernilai 1, harus lebih kecil dari jumlah bit
+     * yang bernilai 1 pada mask
+     * @return Aksi yang bersesuaian dengan bit ke-k yang bernilai 1
+     */
+    public static GameAction fromMask(int mask, int k) {
+        for (int i = 0; i < k; i++) {
+            mask &= mask - 1; // buang bit 1 terendah
+        }
+        return ACTIONS[Integer.numberOfTrailingZeros(mask)];
+    }
 }
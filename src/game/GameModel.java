@@ -1,9 +1,9 @@
 package game;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
-import java.util.stream.Collectors;
+import util.FastRandom;
 
 /**
  * Forward model dari permainan 2048. Mensimulasikan mekanisme permainan dan
@@ -11,6 +11,24 @@ import java.util.stream.Collectors;
  * komputasi tertentu. Definisi anggaran komputasi adalah jumlah langkah waktu.
  * Istilah 'tick' dipakai untuk mengacu pada 'langkah waktu'.
  *
+ * Satu langkah permainan terdiri dari 2 tahap: pergeseran tile yang
+ * deterministik (menghasilkan afterstate) dan munculnya tile baru yang acak.
+ * Kedua tahap ini dapat dilakukan sekaligus dengan applyAction() atau terpisah
+ * dengan applySlide() dan sampleSpawn()/enumerateSpawns(). Aturan pemakaian
+ * tick-nya adalah sebagai berikut.
+ * <ul>
+ * <li>applyAction() memakai 1 tick.</li>
+ * <li>applySlide() tidak memakai tick.</li>
+ * <li>sampleSpawn() memakai 1 tick, sehingga applySlide() diikuti
+ * sampleSpawn() memakai tick yang sama dengan applyAction().</li>
+ * <li>enumerateSpawns() memakai 1 tick untuk setiap hasil yang
+ * dikembalikan.</li>
+ * </ul>
+ *
+ * Objek model tidak boleh dipakai oleh beberapa thread sekaligus. Anggaran
+ * sebuah model dapat dibagi ke beberapa thread dengan split() (bagian tetap)
+ * atau share() (TickBudget bersama yang diambil per batch).
+ *
  * @author Jiang Han
  */
 public class GameModel {
@@ -20,9 +38,19 @@ public class GameModel {
      * (anggaran komputasi)
      */
     private int tickLeft;
+    /**
+     * Jumlah tick yang pernah diberikan ke model ini (dikurangi tick yang
+     * dipindahkan ke model lain), untuk menghitung tick yang sudah dipakai
+     */
+    private int tickGranted;
+    /**
+     * Anggaran bersama tempat model ini mengambil tick saat tickLeft habis,
+     * null jika model ini tidak memakai anggaran bersama
+     */
+    private final TickBudget budget;
 
-    private Random rand = new Random();
-    public final int BOARD_SIZE = 4;
+    private final Random rand;
+    public static final int BOARD_SIZE = 4;
     // Batas probabilitas untuk menentukan nilai tile baru
     private final double NEW_TILE_PROB_THRES = 0.9;
     // Nilai tile baru yang ditambahkan jika nilai random < threshold
@@ -37,124 +65,92 @@ public class GameModel {
      * @param tick Batas jumlah pemakaian objek (pemanggilan applyMove())
      */
     public GameModel(int tick) {
+        this(tick, new FastRandom());
+    }
+
+    /**
+     * Membuat sebuah forward model baru dengan random number generator
+     * tertentu. Generator ini dipakai untuk menentukan posisi dan nilai tile
+     * baru, sehingga generator dengan seed yang sama menghasilkan permainan
+     * yang sama. Generator tidak boleh dipakai bersamaan oleh beberapa thread.
+     *
+     * @param tick Batas jumlah pemakaian objek (pemanggilan applyMove())
+     * @param rand Random number generator yang dipakai model
+     */
+    public GameModel(int tick, Random rand) {
         this.tickLeft = tick;
+        this.tickGranted = tick;
+        this.budget = null;
+        this.rand = rand;
     }
 
     /**
-     * Menggeser garis papan permainan dari indeks besar ke arah indeks kecil
+     * Membuat forward model yang mengambil tick dari anggaran bersama. Tick
+     * diambil per batch saat dibutuhkan, sehingga beberapa model yang memakai
+     * anggaran yang sama dapat dipakai oleh thread yang berbeda tanpa saling
+     * menunggu.
      *
-     * @param line Array cell yang membentuk garis papan
-     * @return Skor yang didapatkan dari hasil penggabungan saat digeser
+     * @param budget Anggaran bersama hasil share()
+     * @param rand Random number generator yang dipakai model
      */
-    private int slideLine(Cell[] line) {
-        int score = 0;
-        // Join tile yang sama (tidak harus sebelahan)
-        int ptr = 0;
-        while (ptr < BOARD_SIZE - 1) {
-            // Cari cell terdepan yang tidak kosong yang masih boleh bergabung
-            while (ptr < BOARD_SIZE - 1 && line[ptr].value == 0) {
-                ptr++;
-            }
-            if (ptr < BOARD_SIZE - 1) {
-                int ptr2 = ptr + 1;
-                // Cari cell terdepan setelah ptr yang tidak kosong
-                while (ptr2 < BOARD_SIZE && line[ptr2].value == 0) {
-                    ptr2++;
-                }
-                if (ptr2 < BOARD_SIZE) {
-                    if (line[ptr].value == line[ptr2].value) {
-                        line[ptr].value += line[ptr2].value;
-                        score += line[ptr].value;
-                        line[ptr2].value = 0;
-                        ptr = ptr2 + 1;
-                    } else {
-                        ptr = ptr2;
-                    }
-                } else {
-                    break;
-                }
-            }
-        }
+    public GameModel(TickBudget budget, Random rand) {
+        this.tickLeft = 0;
+        this.tickGranted = 0;
+        this.budget = budget;
+        this.rand = rand;
+    }
 
-        // Shift tile kalau kosong
-        ptr = 0;
-        while (ptr < BOARD_SIZE - 1) {
-            // Cari cell terdepan yang kosong
-            while (ptr < BOARD_SIZE - 1 && line[ptr].value != 0) {
-                ptr++;
-            }
-            if (ptr < BOARD_SIZE - 1) {
-                int ptr2 = ptr + 1;
-                // Cari cell terdepan setelah ptr yang tidak kosong
-                while (ptr2 < BOARD_SIZE && line[ptr2].value == 0) {
-                    ptr2++;
-                }
-                if (ptr2 < BOARD_SIZE) {
-                    line[ptr].value = line[ptr2].value;
-                    line[ptr2].value = 0;
-                    ptr++;
-                } else {
-                    break;
-                }
-            }
+    /**
+     * Memastikan model ini memiliki paling sedikit sejumlah tick. Jika model
+     * memakai anggaran bersama, kekurangannya diambil dari anggaran tersebut.
+     *
+     * @param tick Jumlah tick yang dibutuhkan
+     * @return True jika tick yang tersedia cukup
+     */
+    private boolean hasTick(int tick) {
+        if (tickLeft >= tick) {
+            return true;
+        } else if (budget == null) {
+            return false;
         }
-
-        return score;
+        int leased = budget.lease(tick - tickLeft);
+        tickLeft += leased;
+        tickGranted += leased;
+        return tickLeft >= tick;
     }
 
     /**
      * Menggerakan board dalam state sesuai aksi dan menghitung skor yang
-     * dihasilkan. Method ini tidak menambahkan tile baru ke papan.
+     * dihasilkan. Method ini tidak menambahkan tile baru ke papan. Pergeseran
+     * dilakukan dengan tabel yang sudah dihitung sebelumnya (MoveTable).
      *
      * @param state
      * @param action
      */
     private void slideTiles(GameState state, GameAction action) {
-        Cell[] line;
-        int scoreIncrement = 0;
-        // Membangun line sesuai arah geser
-        switch (action) {
-            case LEFT:
-                for (int i = 0; i < BOARD_SIZE; i++) {
-                    line = new Cell[BOARD_SIZE];
-                    for (int j = 0; j < BOARD_SIZE; j++) {
-                        line[j] = state.board[i][j];
-                    }
-                    scoreIncrement += slideLine(line);
-                }
-                break;
-            case RIGHT:
-                for (int i = 0; i < BOARD_SIZE; i++) {
-                    line = new Cell[BOARD_SIZE];
-
-                    for (int j = 0, k = BOARD_SIZE - 1; j < BOARD_SIZE; j++, k--) {
-                        line[j] = state.board[i][k];
-                    }
-                    scoreIncrement += slideLine(line);
-                }
-                break;
-            case UP:
-                for (int j = 0; j < BOARD_SIZE; j++) {
-                    line = new Cell[BOARD_SIZE];
-                    for (int i = 0; i < BOARD_SIZE; i++) {
-                        line[i] = state.board[i][j];
-                    }
-                    scoreIncrement += slideLine(line);
-                }
-                break;
-            case DOWN:
-                for (int j = 0; j < BOARD_SIZE; j++) {
-                    line = new Cell[BOARD_SIZE];
-                    for (int i = 0, k = BOARD_SIZE - 1; i < BOARD_SIZE; i++, k--) {
-                        line[i] = state.board[k][j];
-                    }
-                    scoreIncrement += slideLine(line);
-                }
-                break;
-        }
+        int scoreIncrement = MoveTable.score(state.board, action);
+        state.setBoard(MoveTable.slide(state.board, action));
         state.setScore(state.getScore() + scoreIncrement);
     }
 
+    /**
+     * Menambahkan satu tile baru (90% bernilai 2, 10% bernilai 4) pada salah
+     * satu cell kosong yang dipilih secara acak. Posisi dipilih langsung dari
+     * bitmask cell kosong sehingga tidak ada alokasi objek. Diasumsikan state
+     * memiliki minimal satu cell kosong.
+     *
+     * @param state State yang ingin ditambahkan tile baru
+     */
+    private void spawnTile(GameState state) {
+        state.setBoard(spawnTile(state.board));
+    }
+
+    private long spawnTile(long board) {
+        long emptyCells = GameState.emptyCellNibbles(board);
+        int chosen = GameState.getEmptyCell(emptyCells, rand.nextInt(Long.bitCount(emptyCells)));
+        return GameState.withCellValue(board, chosen, (rand.nextDouble() >= NEW_TILE_PROB_THRES) ? NEW_TILE_VALUE_SECONDARY : NEW_TILE_VALUE_PRIMARY);
+    }
+
     /**
      * Menerapkan sebuah aksi pada state tertentu. Aksi mengakibatkan tile-tile
      * bergeser atau bergabung, lalu tile baru akan muncul di salah satu tempat
@@ -166,23 +162,139 @@ public class GameModel {
      * valid atau tick sudah habis)
      */
     public GameState applyAction(GameState state, GameAction action) {
-        if (tickLeft > 0 && state.isActionValid(action)) {
+        if (state.isActionValid(action) && hasTick(1)) {
             tickLeft--;
             GameState copyState = state.copy();
             slideTiles(copyState, action);
-            List<Cell> emptyCells = copyState.getEmptyCells();
+            spawnTile(copyState);
 
-            Cell chosen = emptyCells.get(rand.nextInt(emptyCells.size()));
-            chosen.value = (Math.random() >= NEW_TILE_PROB_THRES) ? NEW_TILE_VALUE_SECONDARY : NEW_TILE_VALUE_PRIMARY;
+            return copyState;
+        } else {
+            return null;
+        }
+    }
 
-            copyState.evaluateAttributes();
+    /**
+     * Menggeser tile-tile pada state tertentu tanpa menambahkan tile baru.
+     * Hasilnya adalah afterstate yang dapat dipakai berulang kali untuk
+     * sampleSpawn() atau enumerateSpawns(). Method ini tidak memakai tick.
+     *
+     * @param state State yang ingin dikenakan aksi
+     * @param action Aksi yang ingin dilakukan
+     * @return Afterstate kalau berhasil, null kalau aksi tidak valid
+     */
+    public GameState applySlide(GameState state, GameAction action) {
+        if (state.isActionValid(action)) {
+            GameState afterstate = state.copy();
+            slideTiles(afterstate, action);
+            return afterstate;
+        } else {
+            return null;
+        }
+    }
 
-            return copyState;
+    /**
+     * Memunculkan satu tile baru secara acak pada sebuah afterstate. Method ini
+     * memakai 1 tick.
+     *
+     * @param afterstate Afterstate hasil applySlide()
+     * @return State baru kalau berhasil, null kalau tick sudah habis
+     */
+    public GameState sampleSpawn(GameState afterstate) {
+        if (hasTick(1)) {
+            tickLeft--;
+            GameState nextState = afterstate.copy();
+            spawnTile(nextState);
+            return nextState;
         } else {
             return null;
         }
     }
 
+    /**
+     * Mengembalikan semua kemungkinan munculnya tile baru pada sebuah
+     * afterstate beserta peluangnya. Hasil diurutkan berdasarkan posisi cell,
+     * lalu berdasarkan nilai tile. Method ini memakai 1 tick untuk setiap hasil
+     * yang dikembalikan.
+     *
+     * @param afterstate Afterstate hasil applySlide()
+     * @return List semua kemungkinan hasil, null kalau tick yang tersisa tidak
+     * cukup (tick tidak dipakai sama sekali)
+     */
+    public List<SpawnOutcome> enumerateSpawns(GameState afterstate) {
+        int emptyCount = afterstate.emptyCellCount();
+        if (!hasTick(2 * emptyCount)) {
+            return null;
+        }
+        tickLeft -= 2 * emptyCount;
+
+        List<SpawnOutcome> outcomes = new ArrayList<>(2 * emptyCount);
+        for (int k = 0; k < emptyCount; k++) {
+            int position = afterstate.getEmptyCell(k);
+            outcomes.add(spawnOutcome(afterstate, position, NEW_TILE_VALUE_PRIMARY,
+                    NEW_TILE_PROB_THRES / emptyCount));
+            outcomes.add(spawnOutcome(afterstate, position, NEW_TILE_VALUE_SECONDARY,
+                    (1 - NEW_TILE_PROB_THRES) / emptyCount));
+        }
+        return outcomes;
+    }
+
+    /**
+     * Versi bitboard dari sampleSpawn(GameState). Skor tidak berubah karena
+     * munculnya tile baru. Method ini memakai 1 tick.
+     *
+     * @param afterBoard Papan afterstate dalam bentuk bitboard
+     * @return Papan baru dalam bentuk bitboard kalau berhasil, 0 kalau tick
+     * sudah habis
+     */
+    public long sampleSpawn(long afterBoard) {
+        if (hasTick(1)) {
+            tickLeft--;
+            return spawnTile(afterBoard);
+        } else {
+            return 0L;
+        }
+    }
+
+    /**
+     * Versi bitboard dari applySlide(). Method ini tidak memakai tick dan tidak
+     * memeriksa apakah aksi valid.
+     *
+     * @param board Papan dalam bentuk bitboard
+     * @param action Aksi yang ingin dilakukan
+     * @return Papan afterstate dalam bentuk bitboard
+     */
+    public static long slideBoard(long board, GameAction action) {
+        return MoveTable.slide(board, action);
+    }
+
+    /**
+     * Menghitung skor yang didapatkan jika papan digeser ke arah tertentu.
+     *
+     * @param board Papan dalam bentuk bitboard
+     * @param action Aksi yang ingin dilakukan
+     * @return Skor yang didapatkan dari penggabungan tile
+     */
+    public static int slideScore(long board, GameAction action) {
+        return MoveTable.score(board, action);
+    }
+
+    /**
+     * Versi bitboard dari GameState.availableActionMask().
+     *
+     * @param board Papan dalam bentuk bitboard
+     * @return Bitmask dari aksi yang valid
+     */
+    public static int availableActionMask(long board) {
+        return MoveTable.actionMask(board);
+    }
+
+    private SpawnOutcome spawnOutcome(GameState afterstate, int position, int value, double probability) {
+        GameState nextState = afterstate.copy();
+        nextState.setCellValue(position, value);
+        return new SpawnOutcome(position, value, probability, nextState);
+    }
+
     /**
      * Mengembalikan sebuah initial state permainan. Permainan diawali dengan 2
      * tile pada posisi acak (90% bernilai 2, 10% bernilai 4).
@@ -191,15 +303,8 @@ public class GameModel {
      */
     public GameState generateInitialState() {
         GameState state = new GameState();
-        List<Cell> cells = state.getEmptyCells();
-
-        Cell cell1 = cells.remove(rand.nextInt(cells.size()));
-        Cell cell2 = cells.remove(rand.nextInt(cells.size()));
-
-        cell1.value = (Math.random() >= NEW_TILE_PROB_THRES) ? NEW_TILE_VALUE_SECONDARY : NEW_TILE_VALUE_PRIMARY;
-        cell2.value = (Math.random() >= NEW_TILE_PROB_THRES) ? NEW_TILE_VALUE_SECONDARY : NEW_TILE_VALUE_PRIMARY;
-
-        state.evaluateAttributes();
+        spawnTile(state);
+        spawnTile(state);
 
         return state;
     }
@@ -213,57 +318,239 @@ public class GameModel {
      * sebaliknya.
      */
     public boolean isUsable() {
-        return tickLeft > 0;
+        return hasTick(1);
+    }
+
+    /**
+     * Mengembalikan sisa tick dari model ini. Jika model memakai anggaran
+     * bersama, sisa anggaran yang belum diambil juga dihitung (nilainya dapat
+     * berubah sewaktu-waktu karena thread lain).
+     *
+     * @return Sisa tick dari model ini
+     */
+    public int getTickLeft() {
+        return budget == null ? tickLeft : tickLeft + budget.getRemaining();
+    }
+
+    /**
+     * @return Jumlah tick yang sudah dipakai oleh model ini
+     */
+    public int getTickUsed() {
+        return tickGranted - tickLeft;
+    }
+
+    /**
+     * Memindahkan seluruh sisa tick dari model ini ke anggaran bersama yang
+     * baru. Setiap thread kemudian memakai model sendiri yang dibuat dengan
+     * fork() untuk mengambil tick dari anggaran tersebut, dan sisa anggaran
+     * dapat diambil kembali dengan reclaim().
+     *
+     * Jika model ini sendiri sudah memakai anggaran bersama, tick yang sudah
+     * diambil dikembalikan lalu anggaran yang sama yang dikembalikan
+     * (batchSize diabaikan).
+     *
+     * @param batchSize Jumlah tick yang diambil sekaligus oleh setiap model
+     * @return Anggaran bersama
+     */
+    public TickBudget share(int batchSize) {
+        if (budget != null) {
+            release();
+            return budget;
+        }
+        TickBudget sharedBudget = new TickBudget(tickLeft, batchSize);
+        tickGranted -= tickLeft;
+        tickLeft = 0;
+        return sharedBudget;
+    }
+
+    /**
+     * Versi share() yang memakai ulang anggaran bersama dari pemanggilan
+     * sebelumnya, supaya pemanggilan berulang (misalnya di setiap iterasi
+     * pencarian) tidak membuat objek baru. Anggaran tersebut hanya dipakai
+     * ulang jika sudah kosong, misalnya setelah reclaim(). Jika tidak, atau
+     * jika model ini sendiri sudah memakai anggaran bersama, hasilnya sama
+     * dengan share().
+     *
+     * @param previous Anggaran hasil share() sebelumnya, boleh null
+     * @return Anggaran bersama
+     */
+    public TickBudget share(TickBudget previous) {
+        if (budget != null || previous == null || previous.getRemaining() != 0
+                || previous.getBatchSize() != TickBudget.DEFAULT_BATCH_SIZE) {
+            return share();
+        }
+        previous.release(tickLeft);
+        tickGranted -= tickLeft;
+        tickLeft = 0;
+        return previous;
+    }
+
+    /**
+     * Versi share() dengan ukuran batch TickBudget.DEFAULT_BATCH_SIZE.
+     *
+     * @return Anggaran bersama
+     */
+    public TickBudget share() {
+        return share(TickBudget.DEFAULT_BATCH_SIZE);
     }
 
     /**
-     * Inner class yang merepresentasikan state permainan
+     * Membuat model baru yang mengambil tick dari anggaran bersama. Random
+     * number generator model baru mendapatkan seed dari generator model ini.
+     *
+     * @param sharedBudget Anggaran hasil share()
+     * @return Model baru untuk dipakai oleh 1 thread
      */
-    public final class GameState {
+    public GameModel fork(TickBudget sharedBudget) {
+        return new GameModel(sharedBudget, new FastRandom(rand.nextLong()));
+    }
 
-        private Cell[][] board;
+    /**
+     * Mengembalikan tick yang sudah diambil dari anggaran bersama tetapi belum
+     * dipakai. Sebaiknya dipanggil setelah thread selesai memakai model ini.
+     */
+    public void release() {
+        if (budget != null) {
+            budget.release(tickLeft);
+            tickGranted -= tickLeft;
+            tickLeft = 0;
+        }
+    }
+
+    /**
+     * Mengambil kembali seluruh sisa anggaran bersama ke model ini, biasanya
+     * setelah semua thread yang memakai anggaran tersebut selesai dan
+     * memanggil release().
+     *
+     * @param sharedBudget Anggaran hasil share() dari model ini
+     */
+    public void reclaim(TickBudget sharedBudget) {
+        if (sharedBudget == budget) {
+            //Sisa anggaran tetap di anggaran bersama dan diambil saat dibutuhkan
+            return;
+        }
+        int tick = sharedBudget.drain();
+        tickLeft += tick;
+        tickGranted += tick;
+    }
+
+    /**
+     * Memindahkan sebagian tick dari model ini ke model baru. Model baru
+     * memiliki random number generator sendiri yang seed-nya diambil dari
+     * generator model ini, sehingga kedua model dapat dipakai oleh thread yang
+     * berbeda.
+     *
+     * @param tick Jumlah tick yang dipindahkan, paling banyak sisa tick model
+     * ini
+     * @return Model baru dengan anggaran sebanyak tick
+     */
+    public GameModel split(int tick) {
+        if (tick < 0 || !hasTick(tick)) {
+            throw new IllegalArgumentException("Cannot split " + tick + " of " + tickLeft + " ticks");
+        }
+        tickLeft -= tick;
+        tickGranted -= tick;
+        return new GameModel(tick, new FastRandom(rand.nextLong()));
+    }
+
+    /**
+     * Class yang merepresentasikan state permainan. Papan disimpan dalam satu
+     * bilangan 64-bit (bitboard): setiap cell memakai 4 bit yang berisi
+     * eksponen dari nilai tile (0 berarti kosong, e berarti tile bernilai 2^e).
+     * Cell (baris i, kolom j) disimpan pada nibble ke-(i * BOARD_SIZE + j),
+     * sehingga satu baris menempati 16 bit yang berurutan. Karena itu, nilai
+     * tile terbesar yang dapat direpresentasikan adalah 2^15 = 32768.
+     *
+     * Class ini tidak bergantung pada objek GameModel manapun, sehingga
+     * penyalinan, hashing, dan pemeriksaan kesamaan cukup dilakukan terhadap
+     * papan dan skor.
+     */
+    public static final class GameState {
+
+        // Banyaknya bit yang dipakai oleh satu cell
+        private static final int CELL_BITS = 4;
+        private static final long CELL_MASK = 0xFL;
+        // Bit terendah dari setiap nibble
+        private static final long EMPTY_NIBBLE_MASK = 0x1111111111111111L;
+
+        // Nilai actionMask yang menandakan mask belum dihitung
+        private static final int UNEVALUATED = -1;
+
+        private long board;
         private int score;
-        private boolean isTerminal;
         /**
-         * Array dari aksi yang valid. Kalau aksi ke-i tidak valid, array[i]
-         * adalah null. Index adalah id dari enum aksi
-         *
+         * Bitmask dari aksi yang valid. Bit ke-i bernilai 1 jika aksi dengan
+         * id i valid. Mask baru dihitung saat pertama kali dibutuhkan, lalu
+         * disimpan sampai papan berubah.
          */
-        private GameAction validActions[];
+        private int actionMask = UNEVALUATED;
 
         public GameState() {
-            this(new int[BOARD_SIZE][BOARD_SIZE], 0);
+            this(0L, 0);
         }
 
         public GameState(int[][] board) {
             this(board, 0);
         }
 
+        /**
+         * Membuat state dari papan dalam bentuk array 2 dimensi. Setiap nilai
+         * pada papan harus 0 (kosong) atau perpangkatan 2 antara 2 dan 32768.
+         *
+         * @param board Nilai tile pada setiap cell
+         * @param score Skor permainan
+         */
         public GameState(int[][] board, int score) {
-            this.board = new Cell[BOARD_SIZE][];
             for (int i = 0; i < BOARD_SIZE; i++) {
-                this.board[i] = new Cell[BOARD_SIZE];
                 for (int j = 0; j < BOARD_SIZE; j++) {
-                    this.board[i][j] = new Cell(board[i][j]);
+                    this.board |= (long) toExponent(board[i][j]) << (CELL_BITS * (i * BOARD_SIZE + j));
                 }
             }
             this.score = score;
+        }
+
+        /**
+         * Membuat state dari papan dalam bentuk bitboard (lihat
+         * getPackedBoard()).
+         *
+         * @param board Papan dalam bentuk bitboard
+         * @param score Skor permainan
+         */
+        public GameState(long board, int score) {
+            this.board = board;
+            this.score = score;
+        }
 
-            evaluateAttributes();
+        private GameState(GameState other) {
+            this.board = other.board;
+            this.score = other.score;
+            this.actionMask = other.actionMask;
         }
 
-        // Precalculate valid actions and isTerminal
-        private void evaluateAttributes() {
-            validActions = new GameAction[GameAction.values().length];
-            isTerminal = true;
-            for (GameAction action : GameAction.values()) {
-                // Apakah aksi menyebabkan tile berpindah?
-                if (this.isSlideable(action)) {
-                    validActions[action.id] = action;
-                    // Asal ada satu state yang valid, maka state ini non-terminal
-                    isTerminal = false;
-                }
+        /**
+         * Mengubah nilai tile menjadi eksponennya (log basis 2). Nilai 0 tetap
+         * menjadi 0.
+         *
+         * @param value Nilai tile
+         * @return Eksponen dari nilai tile
+         */
+        private static int toExponent(int value) {
+            return (value == 0) ? 0 : 31 - Integer.numberOfLeadingZeros(value);
+        }
+
+        /**
+         * Mengembalikan bitmask dari aksi yang valid untuk dilakukan pada
+         * state ini. Bit ke-i bernilai 1 jika aksi dengan id i valid. Mask
+         * dihitung dengan tabel per baris/kolom dan disimpan untuk pemanggilan
+         * berikutnya, sehingga method ini tidak melakukan alokasi.
+         *
+         * @return Bitmask dari aksi yang valid
+         */
+        public int availableActionMask() {
+            if (actionMask == UNEVALUATED) {
+                actionMask = MoveTable.actionMask(board);
             }
+            return actionMask;
         }
 
         /**
@@ -272,9 +559,30 @@ public class GameModel {
          * @return List aksi yang valid
          */
         public List<GameAction> getAvailableActions() {
-            return Arrays.stream(validActions)
-                    .filter(action -> action != null)
-                    .collect(Collectors.toList());
+            int mask = availableActionMask();
+            List<GameAction> actions = new ArrayList<>(Integer.bitCount(mask));
+            for (GameAction action : GameAction.values()) {
+                if ((mask & (1 << action.id)) != 0) {
+                    actions.add(action);
+                }
+            }
+            return actions;
+        }
+
+        /**
+         * Memilih salah satu aksi yang valid secara acak dengan peluang yang
+         * sama tanpa membuat list aksi.
+         *
+         * @param rand Random number generator yang dipakai
+         * @return Aksi valid yang terpilih, atau null jika state ini adalah
+         * terminal state
+         */
+        public GameAction getRandomAvailableAction(Random rand) {
+            int mask = availableActionMask();
+            if (mask == 0) {
+                return null;
+            }
+            return GameAction.fromMask(mask, rand.nextInt(Integer.bitCount(mask)));
         }
 
         /**
@@ -284,7 +592,7 @@ public class GameModel {
          * @return True jika aksi valid dan false jika sebaliknya
          */
         public boolean isActionValid(GameAction action) {
-            return validActions[action.id] != null;
+            return (availableActionMask() & (1 << action.id)) != 0;
         }
 
         /**
@@ -295,17 +603,107 @@ public class GameModel {
          * sebaliknya
          */
         public boolean isTerminal() {
-            return isTerminal;
+            return availableActionMask() == 0;
         }
 
         public int getCellValue(int row, int col) {
-            return board[row][col].value;
+            return getCellValue(row * BOARD_SIZE + col);
+        }
+
+        /**
+         * Mengembalikan nilai tile pada posisi tertentu.
+         *
+         * @param position Posisi cell (baris * BOARD_SIZE + kolom)
+         * @return Nilai tile, 0 jika cell kosong
+         */
+        int getCellValue(int position) {
+            int exponent = getExponent(position);
+            return (exponent == 0) ? 0 : 1 << exponent;
+        }
+
+        private int getExponent(int position) {
+            return (int) ((board >>> (CELL_BITS * position)) & CELL_MASK);
+        }
+
+        /**
+         * Mengganti nilai tile pada posisi tertentu.
+         *
+         * @param position Posisi cell (baris * BOARD_SIZE + kolom)
+         * @param value Nilai tile baru, 0 untuk mengosongkan cell
+         */
+        void setCellValue(int position, int value) {
+            setBoard(withCellValue(board, position, value));
+        }
+
+        private static long withCellValue(long board, int position, int value) {
+            int shift = CELL_BITS * position;
+            return (board & ~(CELL_MASK << shift)) | ((long) toExponent(value) << shift);
+        }
+
+        /**
+         * Mengganti seluruh papan. Mask aksi yang valid akan dihitung ulang
+         * saat dibutuhkan.
+         *
+         * @param board Papan baru dalam bentuk bitboard
+         */
+        private void setBoard(long board) {
+            this.board = board;
+            this.actionMask = UNEVALUATED;
         }
 
         public int getScore() {
             return score;
         }
 
+        /**
+         * Mengembalikan papan dalam bentuk bitboard. Nibble ke-p berisi
+         * eksponen dari tile pada posisi p (baris * BOARD_SIZE + kolom).
+         *
+         * @return Papan dalam bentuk bitboard
+         */
+        public long getPackedBoard() {
+            return board;
+        }
+
+        /**
+         * Membuat salinan state ini yang papannya ditransformasi dengan
+         * simetri tertentu. Skornya tetap sama.
+         *
+         * @param symmetry Simetri yang dipakai
+         * @return State hasil transformasi
+         */
+        public GameState transform(Symmetry symmetry) {
+            GameState transformed = new GameState(symmetry.apply(board), score);
+            if (actionMask != UNEVALUATED) {
+                transformed.actionMask = symmetry.applyToMask(actionMask);
+            }
+            return transformed;
+        }
+
+        /**
+         * Mencari simetri yang memetakan state ini ke bentuk kanoniknya, yaitu
+         * bitboard terkecil dari 8 papan yang simetris dengan papan state ini.
+         * State-state yang simetris memiliki bentuk kanonik yang sama, sehingga
+         * statistiknya dapat dipakai bersama. Aksi pada state ini dipetakan ke
+         * aksi pada bentuk kanonik dengan Symmetry.apply(GameAction), dan
+         * sebaliknya dengan Symmetry.inverse().
+         *
+         * @return Simetri ke bentuk kanonik
+         */
+        public Symmetry canonicalSymmetry() {
+            return Symmetry.canonicalOf(board);
+        }
+
+        /**
+         * Membuat salinan state ini dalam bentuk kanonik (lihat
+         * canonicalSymmetry()).
+         *
+         * @return State kanonik yang simetris dengan state ini
+         */
+        public GameState canonical() {
+            return transform(canonicalSymmetry());
+        }
+
         private void setScore(int score) {
             this.score = score;
         }
@@ -327,90 +725,67 @@ public class GameModel {
          * @return Salisan dari state ini
          */
         public GameState copy() {
-            int copyBoard[][] = new int[BOARD_SIZE][BOARD_SIZE];
-            for (int i = 0; i < BOARD_SIZE; i++) {
-                for (int j = 0; j < BOARD_SIZE; j++) {
-                    copyBoard[i][j] = this.board[i][j].value;
-                }
-            }
-            GameState salinan = new GameState(copyBoard);
-            salinan.score = this.score;
-            return salinan;
+            return new GameState(this);
         }
 
         /**
-         * Memeriksa apakah suatu aksi valid untuk dilakukan pada state ini.
-         * Method ini dipanggil di konstruktor, sedangkan method
-         * isActionValid(GameAction) memakai hasil perhitungan dari method ini.
+         * Mengembalikan bitmask dari cell-cell yang kosong dalam bentuk
+         * bitboard: nibble dari cell yang kosong bernilai 1, sedangkan nibble
+         * lainnya bernilai 0.
          *
-         * @param action Aksi yang ingin dilakukan
-         * @return True jika aksi valid dan false jika sebaliknya
+         * @return Bitboard penanda cell kosong
+         */
+        private long emptyCellNibbles() {
+            return emptyCellNibbles(board);
+        }
+
+        private static long emptyCellNibbles(long board) {
+            long occupied = board | (board >>> 1);
+            occupied |= occupied >>> 2;
+            return ~occupied & EMPTY_NIBBLE_MASK;
+        }
+
+        /**
+         * Mengembalikan bitmask dari cell-cell yang kosong. Bit ke-p bernilai
+         * 1 jika cell pada posisi p (baris * BOARD_SIZE + kolom) kosong.
+         *
+         * @return Bitmask dari cell yang kosong
          */
-        private boolean isSlideable(GameAction action) {
-            switch (action) {
-                case LEFT:
-                    for (int i = 0; i < BOARD_SIZE; i++) {
-                        for (int j = 1; j < BOARD_SIZE; j++) {
-                            if (isTileMovable(board[i][j].value, board[i][j - 1].value)) {
-                                return true;
-                            }
-                        }
-                    }
-                    break;
-                case RIGHT:
-                    for (int i = 0; i < BOARD_SIZE; i++) {
-                        for (int j = 0; j < BOARD_SIZE - 1; j++) {
-                            if (isTileMovable(board[i][j].value, board[i][j + 1].value)) {
-                                return true;
-                            }
-                        }
-                    }
-                    break;
-                case UP:
-                    for (int i = 1; i < BOARD_SIZE; i++) {
-                        for (int j = 0; j < BOARD_SIZE; j++) {
-                            if (isTileMovable(board[i][j].value, board[i - 1][j].value)) {
-                                return true;
-                            }
-                        }
-                    }
-                    break;
-                case DOWN:
-                    for (int i = 0; i < BOARD_SIZE - 1; i++) {
-                        for (int j = 0; j < BOARD_SIZE; j++) {
-                            if (isTileMovable(board[i][j].value, board[i + 1][j].value)) {
-                                return true;
-                            }
-                        }
-                    }
-                    break;
+        public int emptyCellMask() {
+            long nibbles = emptyCellNibbles();
+            int mask = 0;
+            while (nibbles != 0) {
+                mask |= 1 << (Long.numberOfTrailingZeros(nibbles) / CELL_BITS);
+                nibbles &= nibbles - 1;
             }
-            return false;
+            return mask;
         }
 
         /**
-         * Memeriksa apakah tile di satu cell bisa berpindah ke cell lain.
-         * Diasumsikan kedua tile memang bersebelahan.
+         * Menghitung banyaknya cell yang kosong dalam state ini.
          *
-         * @param sourceValue Nilai pada cell pertama
-         * @param targetValue Nilai pada cell kedua (cell yang dituju)
-         * @return True jika tile pada cell pertama bisa berpindah ke cell
-         * kedua. False jika tidak ada tile pada cell pertama atau memang tidak
-         * bisa berpindah.
+         * @return Jumlah cell kosong
          */
-        private boolean isTileMovable(int sourceValue, int targetValue) {
-            return sourceValue != 0 && (targetValue == 0 || targetValue == sourceValue);
+        public int emptyCellCount() {
+            return Long.bitCount(emptyCellNibbles());
         }
 
         /**
-         * Mengembalikan list dari cell-cell yang kosong dalam state ini
+         * Mengembalikan posisi dari cell kosong ke-k (dimulai dari 0, diurutkan
+         * berdasarkan posisi).
          *
-         * @return List dari cell yang kosong
+         * @param k Urutan cell kosong, harus lebih kecil dari emptyCellCount()
+         * @return Posisi cell (baris * BOARD_SIZE + kolom)
          */
-        private List<Cell> getEmptyCells() {
-            return Arrays.stream(board).flatMap(Arrays::stream)
-                    .filter(cell -> cell.value == 0)
-                    .collect(Collectors.toList());
+        int getEmptyCell(int k) {
+            return getEmptyCell(emptyCellNibbles(), k);
+        }
+
+        private static int getEmptyCell(long nibbles, int k) {
+            for (int i = 0; i < k; i++) {
+                nibbles &= nibbles - 1; // buang bit 1 terendah
+            }
+            return Long.numberOfTrailingZeros(nibbles) / CELL_BITS;
         }
 
         /**
@@ -419,31 +794,17 @@ public class GameModel {
          * @return The value of the largest tile
          */
         public int getLargestTile() {
-            int maxValue = 0;
-            for (int i = 0; i < BOARD_SIZE; i++) {
-                for (int j = 0; j < BOARD_SIZE; j++) {
-                    maxValue = Math.max(maxValue, board[i][j].value);
-                }
+            int maxExponent = 0;
+            for (int position = 0; position < BOARD_SIZE * BOARD_SIZE; position++) {
+                maxExponent = Math.max(maxExponent, getExponent(position));
             }
-            return maxValue;
+            return (maxExponent == 0) ? 0 : 1 << maxExponent;
         }
 
         @Override
         public int hashCode() {
-            final int prime = 31;
-            final int modulo = 1000000009;
-
-            long hash = 0;
-            long primePower = 1;
-            for (int i = 0; i < BOARD_SIZE; i++) {
-                for (int j = 0; j < BOARD_SIZE; j++) {
-                    hash = (hash + board[i][j].value * primePower) % modulo;
-                    primePower = (primePower * prime) % modulo;
-                }
-            }
-            hash = (hash + score * primePower) % modulo;
-
-            return (int) hash;
+            long hash = board * 0x9E3779B97F4A7C15L + score;
+            return (int) (hash ^ (hash >>> 32));
         }
 
         @Override
@@ -458,18 +819,7 @@ public class GameModel {
                 return false;
             }
             final GameState other = (GameState) obj;
-            if (this.score != other.score) {
-                return false;
-            }
-
-            for (int i = 0; i < BOARD_SIZE; i++) {
-                for (int j = 0; j < BOARD_SIZE; j++) {
-                    if (other.board[i][j].value != this.board[i][j].value) {
-                        return false;
-                    }
-                }
-            }
-            return true;
+            return this.board == other.board && this.score == other.score;
         }
 
         @Override
@@ -480,7 +830,7 @@ public class GameModel {
             sb.append('\n');
             for (int i = 0; i < BOARD_SIZE; i++) {
                 for (int j = 0; j < BOARD_SIZE; j++) {
-                    sb.append(board[i][j].value);
+                    sb.append(getCellValue(i, j));
                     sb.append('\t');
                 }
                 sb.append('\n');
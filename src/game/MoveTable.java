@@ -0,0 +1,273 @@
+package game;
+
+/**
+ * Tabel pergeseran yang sudah dihitung sebelumnya untuk papan 4x4 dalam bentuk
+ * bitboard. Satu baris papan (4 cell x 4 bit) adalah bilangan 16 bit, sehingga
+ * hasil geser dan skor dari semua 65536 kemungkinan baris dapat disimpan dalam
+ * tabel. Satu kali geser papan cukup dilakukan dengan 4 kali pencarian di
+ * tabel tanpa alokasi objek.
+ *
+ * Untuk UP/DOWN dipakai tabel transpos: kunci tabel adalah satu kolom yang
+ * dibaca dari baris teratas ke baris terbawah, sedangkan isi tabel adalah
+ * kolom hasil geser yang sudah disebar kembali ke posisi bitboard-nya.
+ *
+ * @author Jiang Han
+ */
+final class MoveTable {
+
+    private static final int BOARD_SIZE = GameModel.BOARD_SIZE;
+    private static final int CELL_BITS = 4;
+    private static final int CELL_MASK = 0xF;
+    private static final int ROW_BITS = BOARD_SIZE * CELL_BITS;
+    private static final int ROW_MASK = (1 << ROW_BITS) - 1;
+    // Eksponen terbesar yang muat dalam satu cell (2^15 = 32768)
+    private static final int MAX_EXPONENT = CELL_MASK;
+
+    private static final char[] LEFT_ROW = new char[1 << ROW_BITS];
+    private static final char[] RIGHT_ROW = new char[1 << ROW_BITS];
+    private static final long[] UP_COLUMN = new long[1 << ROW_BITS];
+    private static final long[] DOWN_COLUMN = new long[1 << ROW_BITS];
+    private static final int[] LEFT_SCORE = new int[1 << ROW_BITS];
+    private static final int[] RIGHT_SCORE = new int[1 << ROW_BITS];
+    // Bitmask aksi LEFT/RIGHT yang mengubah sebuah baris
+    private static final byte[] ROW_ACTIONS = new byte[1 << ROW_BITS];
+    // Bitmask aksi UP/DOWN yang mengubah sebuah kolom
+    private static final byte[] COLUMN_ACTIONS = new byte[1 << ROW_BITS];
+
+    static {
+        Cell[] line = new Cell[BOARD_SIZE];
+        for (int j = 0; j < BOARD_SIZE; j++) {
+            line[j] = new Cell();
+        }
+
+        for (int row = 0; row <= ROW_MASK; row++) {
+            // Geser ke kiri (ke arah cell ke-0)
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                line[j].value = toValue(getCell(row, j));
+            }
+            LEFT_SCORE[row] = slideLine(line);
+            int leftRow = 0;
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                leftRow |= toExponent(line[j].value) << (CELL_BITS * j);
+            }
+
+            // Geser ke kanan (ke arah cell terakhir)
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                line[j].value = toValue(getCell(row, BOARD_SIZE - 1 - j));
+            }
+            RIGHT_SCORE[row] = slideLine(line);
+            int rightRow = 0;
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                rightRow |= toExponent(line[j].value) << (CELL_BITS * (BOARD_SIZE - 1 - j));
+            }
+
+            LEFT_ROW[row] = (char) leftRow;
+            RIGHT_ROW[row] = (char) rightRow;
+            UP_COLUMN[row] = spreadColumn(leftRow);
+            DOWN_COLUMN[row] = spreadColumn(rightRow);
+
+            // Aksi valid jika ada tile yang berpindah atau bergabung
+            ROW_ACTIONS[row] = (byte) ((leftRow != row ? 1 << GameAction.LEFT.id : 0)
+                    | (rightRow != row ? 1 << GameAction.RIGHT.id : 0));
+            COLUMN_ACTIONS[row] = (byte) ((leftRow != row ? 1 << GameAction.UP.id : 0)
+                    | (rightRow != row ? 1 << GameAction.DOWN.id : 0));
+        }
+    }
+
+    private MoveTable() {
+    }
+
+    /**
+     * Menggeser seluruh papan ke arah tertentu. Method ini tidak menambahkan
+     * tile baru ke papan.
+     *
+     * @param board Papan dalam bentuk bitboard
+     * @param action Arah geser
+     * @return Papan hasil geser
+     */
+    static long slide(long board, GameAction action) {
+        long result = 0;
+        switch (action) {
+            case LEFT:
+                for (int i = 0; i < BOARD_SIZE; i++) {
+                    result |= (long) LEFT_ROW[getRow(board, i)] << (ROW_BITS * i);
+                }
+                break;
+            case RIGHT:
+                for (int i = 0; i < BOARD_SIZE; i++) {
+                    result |= (long) RIGHT_ROW[getRow(board, i)] << (ROW_BITS * i);
+                }
+                break;
+            case UP:
+                for (int j = 0; j < BOARD_SIZE; j++) {
+                    result |= UP_COLUMN[getColumn(board, j)] << (CELL_BITS * j);
+                }
+                break;
+            case DOWN:
+                for (int j = 0; j < BOARD_SIZE; j++) {
+                    result |= DOWN_COLUMN[getColumn(board, j)] << (CELL_BITS * j);
+                }
+                break;
+        }
+        return result;
+    }
+
+    /**
+     * Menghitung skor yang didapatkan dari penggabungan tile jika papan
+     * digeser ke arah tertentu.
+     *
+     * @param board Papan dalam bentuk bitboard
+     * @param action Arah geser
+     * @return Skor yang didapatkan
+     */
+    static int score(long board, GameAction action) {
+        int score = 0;
+        switch (action) {
+            case LEFT:
+                for (int i = 0; i < BOARD_SIZE; i++) {
+                    score += LEFT_SCORE[getRow(board, i)];
+                }
+                break;
+            case RIGHT:
+                for (int i = 0; i < BOARD_SIZE; i++) {
+                    score += RIGHT_SCORE[getRow(board, i)];
+                }
+                break;
+            case UP:
+                for (int j = 0; j < BOARD_SIZE; j++) {
+                    score += LEFT_SCORE[getColumn(board, j)];
+                }
+                break;
+            case DOWN:
+                for (int j = 0; j < BOARD_SIZE; j++) {
+                    score += RIGHT_SCORE[getColumn(board, j)];
+                }
+                break;
+        }
+        return score;
+    }
+
+    /**
+     * Menghitung bitmask dari aksi yang valid pada sebuah papan. Bit ke-i
+     * bernilai 1 jika aksi dengan id i menggeser atau menggabungkan minimal
+     * satu tile.
+     *
+     * @param board Papan dalam bentuk bitboard
+     * @return Bitmask dari aksi yang valid
+     */
+    static int actionMask(long board) {
+        int mask = 0;
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            mask |= ROW_ACTIONS[getRow(board, i)] | COLUMN_ACTIONS[getColumn(board, i)];
+        }
+        return mask;
+    }
+
+    /**
+     * Mengambil baris ke-i dari papan sebagai bilangan 16 bit.
+     */
+    static int getRow(long board, int i) {
+        return (int) (board >>> (ROW_BITS * i)) & ROW_MASK;
+    }
+
+    /**
+     * Mengambil kolom ke-j dari papan sebagai bilangan 16 bit. Nibble ke-i
+     * dari hasilnya adalah cell pada baris ke-i.
+     */
+    static int getColumn(long board, int j) {
+        long shifted = board >>> (CELL_BITS * j);
+        return (int) (shifted & 0xFL
+                | (shifted >>> 12) & 0xF0L
+                | (shifted >>> 24) & 0xF00L
+                | (shifted >>> 36) & 0xF000L);
+    }
+
+    /**
+     * Menyebar kolom 16 bit ke posisi kolom ke-0 pada bitboard.
+     */
+    private static long spreadColumn(int column) {
+        long result = 0;
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            result |= (long) getCell(column, i) << (ROW_BITS * i);
+        }
+        return result;
+    }
+
+    private static int getCell(int row, int j) {
+        return (row >>> (CELL_BITS * j)) & CELL_MASK;
+    }
+
+    private static int toValue(int exponent) {
+        return (exponent == 0) ? 0 : 1 << exponent;
+    }
+
+    /**
+     * Tile yang melebihi 2^15 tidak muat dalam satu cell, sehingga nilainya
+     * ditahan di 2^15 (skornya tetap dihitung penuh).
+     */
+    private static int toExponent(int value) {
+        return (value == 0) ? 0 : Math.min(MAX_EXPONENT, 31 - Integer.numberOfLeadingZeros(value));
+    }
+
+    /**
+     * Menggeser garis papan permainan dari indeks besar ke arah indeks kecil
+     *
+     * @param line Array cell yang membentuk garis papan
+     * @return Skor yang didapatkan dari hasil penggabungan saat digeser
+     */
+    private static int slideLine(Cell[] line) {
+        int score = 0;
+        // Join tile yang sama (tidak harus sebelahan)
+        int ptr = 0;
+        while (ptr < BOARD_SIZE - 1) {
+            // Cari cell terdepan yang tidak kosong yang masih boleh bergabung
+            while (ptr < BOARD_SIZE - 1 && line[ptr].value == 0) {
+                ptr++;
+            }
+            if (ptr < BOARD_SIZE - 1) {
+                int ptr2 = ptr + 1;
+                // Cari cell terdepan setelah ptr yang tidak kosong
+                while (ptr2 < BOARD_SIZE && line[ptr2].value == 0) {
+                    ptr2++;
+                }
+                if (ptr2 < BOARD_SIZE) {
+                    if (line[ptr].value == line[ptr2].value) {
+                        line[ptr].value += line[ptr2].value;
+                        score += line[ptr].value;
+                        line[ptr2].value = 0;
+                        ptr = ptr2 + 1;
+                    } else {
+                        ptr = ptr2;
+                    }
+                } else {
+                    break;
+                }
+            }
+        }
+
+        // Shift tile kalau kosong
+        ptr = 0;
+        while (ptr < BOARD_SIZE - 1) {
+            // Cari cell terdepan yang kosong
+            while (ptr < BOARD_SIZE - 1 && line[ptr].value != 0) {
+                ptr++;
+            }
+            if (ptr < BOARD_SIZE - 1) {
+                int ptr2 = ptr + 1;
+                // Cari cell terdepan setelah ptr yang tidak kosong
+                while (ptr2 < BOARD_SIZE && line[ptr2].value == 0) {
+                    ptr2++;
+                }
+                if (ptr2 < BOARD_SIZE) {
+                    line[ptr].value = line[ptr2].value;
+                    line[ptr2].value = 0;
+                    ptr++;
+                } else {
+                    break;
+                }
+            }
+        }
+
+        return score;
+    }
+}
@@ -0,0 +1,28 @@
+package game;
+
+import game.GameModel.GameState;
+
+/**
+ * Salah satu kemungkinan hasil dari munculnya tile baru pada sebuah
+ * afterstate (state setelah tile digeser, tetapi sebelum tile baru muncul).
+ *
+ * @author Jiang Han
+ */
+public class SpawnOutcome {
+
+    // Posisi cell tempat tile baru muncul (baris * BOARD_SIZE + kolom)
+    public final int position;
+    // Nilai tile baru
+    public final int value;
+    // Peluang terjadinya hasil ini
+    public final double probability;
+    // State yang dihasilkan
+    public final GameState state;
+
+    SpawnOutcome(int position, int value, double probability, GameState state) {
+        this.position = position;
+        this.value = value;
+        this.probability = probability;
+        this.state = state;
+    }
+}
@@ -0,0 +1,196 @@
+package game;
+
+/**
+ * Enumerasi dari 8 simetri papan 4x4 (grup dihedral: 4 rotasi dan 4
+ * pencerminan). Jika papan ditransformasi dengan sebuah simetri dan aksinya
+ * dipetakan dengan simetri yang sama, hasil pergeseran dan skornya juga sama
+ * dengan hasil pergeseran papan asli yang ditransformasi, sehingga kedua papan
+ * secara strategis identik:
+ * <pre>
+ * slideBoard(apply(board), apply(action)) == apply(slideBoard(board, action))
+ * </pre>
+ *
+ * Transformasi dilakukan langsung pada bitboard (lihat
+ * GameState.getPackedBoard()) tanpa alokasi objek.
+ *
+ * @author Jiang Han
+ */
+public enum Symmetry {
+    IDENTITY(GameAction.LEFT, GameAction.RIGHT, GameAction.UP, GameAction.DOWN),
+    /**
+     * Rotasi 90 derajat searah jarum jam.
+     */
+    ROTATE_90(GameAction.UP, GameAction.DOWN, GameAction.RIGHT, GameAction.LEFT),
+    ROTATE_180(GameAction.RIGHT, GameAction.LEFT, GameAction.DOWN, GameAction.UP),
+    /**
+     * Rotasi 270 derajat searah jarum jam (90 derajat berlawanan arah).
+     */
+    ROTATE_270(GameAction.DOWN, GameAction.UP, GameAction.LEFT, GameAction.RIGHT),
+    /**
+     * Pencerminan kiri-kanan (urutan kolom dibalik).
+     */
+    FLIP_HORIZONTAL(GameAction.RIGHT, GameAction.LEFT, GameAction.UP, GameAction.DOWN),
+    /**
+     * Pencerminan atas-bawah (urutan baris dibalik).
+     */
+    FLIP_VERTICAL(GameAction.LEFT, GameAction.RIGHT, GameAction.DOWN, GameAction.UP),
+    /**
+     * Pencerminan terhadap diagonal utama (baris menjadi kolom).
+     */
+    TRANSPOSE(GameAction.UP, GameAction.DOWN, GameAction.LEFT, GameAction.RIGHT),
+    /**
+     * Pencerminan terhadap diagonal dari kanan atas ke kiri bawah.
+     */
+    ANTI_TRANSPOSE(GameAction.DOWN, GameAction.UP, GameAction.RIGHT, GameAction.LEFT);
+
+    // Cache dari values() supaya tidak membuat array baru setiap dipanggil
+    private static final Symmetry[] SYMMETRIES = values();
+
+    // Elemen ke-i adalah hasil pemetaan aksi dengan id i
+    private final GameAction[] actions;
+    private final int[] actionBits;
+
+    Symmetry(GameAction... actions) {
+        this.actions = actions;
+        this.actionBits = new int[actions.length];
+        for (int i = 0; i < actions.length; i++) {
+            actionBits[i] = 1 << actions[i].id;
+        }
+    }
+
+    /**
+     * Mentransformasi papan dengan simetri ini.
+     *
+     * @param board Papan dalam bentuk bitboard
+     * @return Papan hasil transformasi dalam bentuk bitboard
+     */
+    public long apply(long board) {
+        switch (this) {
+            case ROTATE_90:
+                return flipHorizontal(transpose(board));
+            case ROTATE_180:
+                return flipHorizontal(flipVertical(board));
+            case ROTATE_270:
+                return flipVertical(transpose(board));
+            case FLIP_HORIZONTAL:
+                return flipHorizontal(board);
+            case FLIP_VERTICAL:
+                return flipVertical(board);
+            case TRANSPOSE:
+                return transpose(board);
+            case ANTI_TRANSPOSE:
+                return flipHorizontal(flipVertical(transpose(board)));
+            default:
+                return board;
+        }
+    }
+
+    /**
+     * Memetakan aksi pada papan asli ke aksi yang bersesuaian pada papan
+     * hasil transformasi.
+     *
+     * @param action Aksi pada papan asli
+     * @return Aksi pada papan hasil transformasi
+     */
+    public GameAction apply(GameAction action) {
+        return actions[action.id];
+    }
+
+    /**
+     * Memetakan bitmask aksi (lihat GameState.availableActionMask()) pada
+     * papan asli ke bitmask aksi pada papan hasil transformasi.
+     *
+     * @param actionMask Bitmask aksi pada papan asli
+     * @return Bitmask aksi pada papan hasil transformasi
+     */
+    public int applyToMask(int actionMask) {
+        int mapped = 0;
+        while (actionMask != 0) {
+            mapped |= actionBits[Integer.numberOfTrailingZeros(actionMask)];
+            actionMask &= actionMask - 1;
+        }
+        return mapped;
+    }
+
+    /**
+     * @return Simetri yang mengembalikan papan hasil transformasi ke papan
+     * asli
+     */
+    public Symmetry inverse() {
+        switch (this) {
+            case ROTATE_90:
+                return ROTATE_270;
+            case ROTATE_270:
+                return ROTATE_90;
+            default:
+                return this;
+        }
+    }
+
+    /**
+     * Mencari simetri yang menghasilkan bentuk kanonik dari sebuah papan,
+     * yaitu bitboard terkecil (sebagai bilangan tak bertanda) dari 8 hasil
+     * transformasinya. Jika beberapa simetri menghasilkan bitboard yang sama,
+     * dipilih yang pertama sesuai urutan enum, sehingga papan yang sudah
+     * kanonik selalu menghasilkan IDENTITY.
+     *
+     * @param board Papan dalam bentuk bitboard
+     * @return Simetri ke bentuk kanonik
+     */
+    public static Symmetry canonicalOf(long board) {
+        Symmetry best = IDENTITY;
+        long bestBoard = board;
+        for (int i = 1; i < SYMMETRIES.length; i++) {
+            long transformed = SYMMETRIES[i].apply(board);
+            if (Long.compareUnsigned(transformed, bestBoard) < 0) {
+                best = SYMMETRIES[i];
+                bestBoard = transformed;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Mengembalikan bentuk kanonik dari sebuah papan. Dua papan memiliki
+     * bentuk kanonik yang sama jika dan hanya jika keduanya simetris.
+     *
+     * @param board Papan dalam bentuk bitboard
+     * @return Bitboard terkecil dari 8 hasil transformasi papan
+     */
+    public static long canonicalBoard(long board) {
+        long best = board;
+        for (int i = 1; i < SYMMETRIES.length; i++) {
+            long transformed = SYMMETRIES[i].apply(board);
+            if (Long.compareUnsigned(transformed, best) < 0) {
+                best = transformed;
+            }
+        }
+        return best;
+    }
+
+    // Nibble pada posisi (baris, kolom) dipindah ke (kolom, baris)
+    private static long transpose(long board) {
+        long a = (board & 0xF0F00F0FF0F00F0FL)
+                | ((board & 0x0000F0F00000F0F0L) << 12)
+                | ((board & 0x0F0F00000F0F0000L) >>> 12);
+        return (a & 0xFF00FF0000FF00FFL)
+                | ((a & 0x00FF00FF00000000L) >>> 24)
+                | ((a & 0x00000000FF00FF00L) << 24);
+    }
+
+    // Urutan nibble di setiap baris (16 bit) dibalik
+    private static long flipHorizontal(long board) {
+        return ((board & 0x000F000F000F000FL) << 12)
+                | ((board & 0x00F000F000F000F0L) << 4)
+                | ((board & 0x0F000F000F000F00L) >>> 4)
+                | ((board & 0xF000F000F000F000L) >>> 12);
+    }
+
+    // Urutan baris (16 bit) dibalik
+    private static long flipVertical(long board) {
+        return (board << 48)
+                | ((board & 0xFFFF0000L) << 16)
+                | ((board >>> 16) & 0xFFFF0000L)
+                | (board >>> 48);
+    }
+}
@@ -0,0 +1,83 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Anggaran tick yang dipakai bersama oleh beberapa thread. Setiap thread
+ * memakai GameModel-nya sendiri (lihat GameModel.share()) yang mengambil tick
+ * dari anggaran ini per batch. Tick di dalam satu batch dipakai tanpa
+ * sinkronisasi, sehingga counter atomik hanya disentuh sekali per batch.
+ * Jumlah tick yang diambil dari anggaran tidak pernah melebihi total
+ * anggaran.
+ *
+ * @author Jiang Han
+ */
+public final class TickBudget {
+
+    /**
+     * Ukuran batch default. Satu random playout biasanya memakai ratusan tick,
+     * sehingga batch sebesar ini jarang membuat thread saling menunggu.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    private final AtomicInteger remaining;
+    private final int batchSize;
+
+    TickBudget(int tick, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.remaining = new AtomicInteger(tick);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Mengambil 1 batch tick dari anggaran, atau lebih jika dibutuhkan. Jika
+     * sisa anggaran tidak cukup, seluruh sisanya yang diambil.
+     *
+     * @param minimum Jumlah tick minimum yang dibutuhkan
+     * @return Jumlah tick yang berhasil diambil, 0 jika anggaran habis
+     */
+    int lease(int minimum) {
+        int wanted = Math.max(batchSize, minimum);
+        while (true) {
+            int current = remaining.get();
+            if (current == 0) {
+                return 0;
+            }
+            int leased = Math.min(wanted, current);
+            if (remaining.compareAndSet(current, current - leased)) {
+                return leased;
+            }
+        }
+    }
+
+    /**
+     * Mengembalikan tick yang tidak terpakai ke anggaran.
+     */
+    void release(int tick) {
+        if (tick > 0) {
+            remaining.addAndGet(tick);
+        }
+    }
+
+    /**
+     * Mengambil seluruh sisa anggaran.
+     *
+     * @return Jumlah tick yang diambil
+     */
+    int drain() {
+        return remaining.getAndSet(0);
+    }
+
+    /**
+     * @return Sisa tick yang belum diambil oleh model manapun
+     */
+    public int getRemaining() {
+        return remaining.get();
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+}
@@ -0,0 +1,176 @@
+package io;
+
+import controller.GameRecord;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Jurnal append-only berisi hasil setiap permainan yang sudah selesai, supaya
+ * sweep eksperimen yang terhenti dapat dilanjutkan tanpa mengulang permainan
+ * yang sudah dimainkan. Berbeda dengan ExperimentLogger yang ditujukan untuk
+ * dibaca manusia, jurnal ini dibaca kembali oleh program.
+ *
+ * Setiap baris jurnal adalah salah satu dari:
+ * <pre>
+ * game &lt;key&gt; &lt;index&gt; &lt;seed&gt; &lt;score&gt; &lt;steps&gt; &lt;maxTile&gt; &lt;duration&gt;
+ * done &lt;key&gt;
+ * </pre>
+ * dengan kolom dipisahkan tab dan key adalah ExperimentConfig.getKey(). Baris
+ * "done" menandakan summary dari eksperimen tersebut sudah ditulis. Setiap
+ * baris langsung dipaksa ke disk, dan baris terakhir yang terpotong (misalnya
+ * karena JVM mati saat menulis) diabaikan lalu dibuang saat jurnal dibuka.
+ *
+ * @author Jiang Han
+ */
+public class ExperimentJournal implements Closeable {
+
+    private static final String GAME = "game";
+    private static final String DONE = "done";
+
+    private final FileChannel channel;
+    private final Map<String, Map<Integer, GameRecord>> records = new HashMap<>();
+    private final Set<String> finished = new HashSet<>();
+
+    /**
+     * Membuka jurnal pada path tertentu. Jika file sudah ada, isinya dibaca;
+     * jika belum, file baru dibuat.
+     *
+     * @param path Path dari file jurnal
+     * @throws IOException Jika file tidak dapat dibaca atau dibuat
+     */
+    public ExperimentJournal(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        byte[] content = Files.readAllBytes(path);
+        int end = 0;
+        for (int start = 0, i = 0; i < content.length; i++) {
+            if (content[i] == '\n') {
+                load(new String(content, start, i - start, StandardCharsets.UTF_8));
+                start = i + 1;
+                end = start;
+            }
+        }
+        // Buang baris terakhir yang terpotong supaya tidak tersambung dengan
+        // baris berikutnya
+        channel.truncate(end);
+        channel.position(end);
+    }
+
+    private void load(String line) {
+        String[] column = line.split("\t");
+        try {
+            if (column.length == 8 && column[0].equals(GAME)) {
+                GameRecord record = parseRecord(column, 2);
+                records.computeIfAbsent(column[1], key -> new HashMap<>())
+                        .put(record.getIndex(), record);
+            } else if (column.length == 2 && column[0].equals(DONE)) {
+                finished.add(column[1]);
+            }
+        } catch (NumberFormatException ex) {
+            // Baris rusak diabaikan, permainannya akan dimainkan ulang
+        }
+    }
+
+    /**
+     * Mengubah hasil permainan menjadi kolom-kolom teks yang dipisahkan tab:
+     * index, seed, score, steps, maxTile, duration.
+     *
+     * @param record Hasil permainan
+     * @return Representasi teks dari hasil permainan
+     */
+    public static String formatRecord(GameRecord record) {
+        return record.getIndex()
+                + "\t" + record.getSeed()
+                + "\t" + record.getScore()
+                + "\t" + record.getSteps()
+                + "\t" + record.getMaxTile()
+                + "\t" + record.getDuration();
+    }
+
+    /**
+     * Kebalikan dari formatRecord(GameRecord).
+     *
+     * @param column Kolom-kolom teks
+     * @param offset Posisi kolom index
+     * @return Hasil permainan
+     * @throws NumberFormatException Jika ada kolom yang bukan bilangan
+     */
+    public static GameRecord parseRecord(String[] column, int offset) {
+        return new GameRecord(
+                Integer.parseInt(column[offset]),
+                Long.parseLong(column[offset + 1]),
+                Integer.parseInt(column[offset + 2]),
+                Integer.parseInt(column[offset + 3]),
+                Integer.parseInt(column[offset + 4]),
+                Long.parseLong(column[offset + 5]));
+    }
+
+    /**
+     * @param key Key dari eksperimen
+     * @param index Nomor permainan
+     * @return Hasil permainan yang tercatat, atau null jika belum ada
+     */
+    public synchronized GameRecord getRecord(String key, int index) {
+        Map<Integer, GameRecord> games = records.get(key);
+        return games == null ? null : games.get(index);
+    }
+
+    /**
+     * @param key Key dari eksperimen
+     * @return True jika summary dari eksperimen tersebut sudah ditulis
+     */
+    public synchronized boolean isFinished(String key) {
+        return finished.contains(key);
+    }
+
+    /**
+     * Mencatat hasil sebuah permainan ke jurnal.
+     *
+     * @param key Key dari eksperimen
+     * @param record Hasil permainan
+     * @throws IOException Jika gagal menulis ke jurnal
+     */
+    public synchronized void append(String key, GameRecord record) throws IOException {
+        write(GAME + "\t" + key + "\t" + formatRecord(record));
+        records.computeIfAbsent(key, k -> new HashMap<>()).put(record.getIndex(), record);
+    }
+
+    /**
+     * Menandai bahwa summary dari sebuah eksperimen sudah ditulis.
+     *
+     * @param key Key dari eksperimen
+     * @throws IOException Jika gagal menulis ke jurnal
+     */
+    public synchronized void markFinished(String key) throws IOException {
+        write(DONE + "\t" + key);
+        finished.add(key);
+    }
+
+    private void write(String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -21,11 +21,11 @@ import java.util.logging.Logger;
  */
 public class ExperimentLogger {
 
-    private Path dirPath;
-    private Path summaryPath;
-    private Path filePath;
+    private final Path dirPath;
+    private final Path summaryPath;
     private final String dirName;
     private int fileCounter = 0;
+    private GameLog currentLog;
 
     /**
      * Konstruktor ini menginisialisasi nama file, menciptakan file baru, lalu
@@ -37,7 +37,8 @@ public class ExperimentLogger {
      * Nama file-file baru tersebut sama dengan nama folder eksperimen dengan
      * tambahan nomor file sebagai akhiran. nextFile() harus dipanggil sebelum
      * menggunakan method log(String), log(GameState), atau log(GameAction,
-     * GameState).
+     * GameState). Untuk permainan yang dijalankan bersamaan, setiap permainan
+     * sebaiknya memakai GameLog-nya sendiri dari openGame(int).
      *
      * @param codeName Nama dari experiment, akan dipakai sebagai awalan nama
      * folder dan file log
@@ -49,7 +50,7 @@ public class ExperimentLogger {
         LocalDateTime now = LocalDateTime.now();
         DateTimeFormatter formatter = DateTimeFormatter
                 .ofPattern("yyyyMMdd_HHmmss_SSS");
-        dirName = codeName + "-" + now.format(formatter);
+        String baseName = codeName + "-" + now.format(formatter);
 
         Path baseDirPath = Paths.get(baseDirectory);
 
@@ -59,12 +60,17 @@ public class ExperimentLogger {
             directoryFile.mkdir();
         }
 
-        //Buat folder untuk eksperimen (./log/[codename]-[date]_[time]_[ms])
-        dirPath = Paths.get(baseDirectory, dirName);
-        File innerDirectory = dirPath.toFile();
-        if (!innerDirectory.exists()) {
-            innerDirectory.mkdir();
+        //Buat folder untuk eksperimen (./log/[codename]-[date]_[time]_[ms]).
+        //Jika beberapa eksperimen dibuat pada milidetik yang sama, folder
+        //berikutnya diberi akhiran _2, _3, dan seterusnya.
+        String name = baseName;
+        File innerDirectory = Paths.get(baseDirectory, name).toFile();
+        for (int suffix = 2; !innerDirectory.mkdir() && innerDirectory.exists(); suffix++) {
+            name = baseName + "_" + suffix;
+            innerDirectory = Paths.get(baseDirectory, name).toFile();
         }
+        dirName = name;
+        dirPath = Paths.get(baseDirectory, dirName);
 
         summaryPath = dirPath.resolve("_SUMMARY.txt");
         try {
@@ -86,6 +92,33 @@ public class ExperimentLogger {
         }
     }
 
+    private ExperimentLogger(Path dirPath) {
+        this.dirPath = dirPath;
+        this.dirName = dirPath.getFileName().toString();
+        this.summaryPath = dirPath.resolve("_SUMMARY.txt");
+        dirPath.toFile().mkdirs();
+    }
+
+    /**
+     * Membuka folder eksperimen yang sudah dibuat oleh logger lain, misalnya
+     * oleh proses lain. File summary tidak dibuat ulang, dan file log
+     * permainan memakai penamaan yang sama dengan logger asalnya. Jika folder
+     * belum ada (misalnya di mesin lain), folder tersebut dibuat.
+     *
+     * @param dirPath Folder eksperimen, lihat getDirectory()
+     * @return Logger untuk folder tersebut
+     */
+    public static ExperimentLogger attach(Path dirPath) {
+        return new ExperimentLogger(dirPath);
+    }
+
+    /**
+     * @return Path absolut dari folder eksperimen
+     */
+    public Path getDirectory() {
+        return dirPath.toAbsolutePath();
+    }
+
     /**
      * Mencatat sebuah aksi dan state yang dihasilkan dari aksi tersebut ke file
      * log.
@@ -94,7 +127,7 @@ public class ExperimentLogger {
      * @param state State yang ingin dicatat
      */
     public void log(GameAction action, GameState state) {
-        log(String.format("Action: %s%n%s", action, state));
+        currentLog.log(action, state);
     }
 
     /**
@@ -103,15 +136,16 @@ public class ExperimentLogger {
      * @param data Data yang ingin dicatat
      */
     public void log(Object data) {
-        this.write(filePath, data.toString());
+        currentLog.log(data);
     }
 
     /**
-     * Menulis teks ke file log summary (_SUMMARY.txt).
+     * Menulis teks ke file log summary (_SUMMARY.txt). Aman dipanggil dari
+     * beberapa thread sekaligus.
      *
      * @param str Teks yang ingin dicatat ke file summary
      */
-    public void logSummary(String str) {
+    public synchronized void logSummary(String str) {
         this.write(summaryPath, str);
     }
 
@@ -139,12 +173,56 @@ public class ExperimentLogger {
      * GameState) dipakai.
      */
     public void nextFile() {
+        currentLog = openGame(fileCounter++);
+    }
+
+    /**
+     * Membuat file log untuk permainan ke-index. Nomor file sama dengan index
+     * + 1, sama seperti penomoran nextFile(). Setiap GameLog hanya menulis ke
+     * filenya sendiri, sehingga beberapa permainan dapat dicatat bersamaan
+     * dari thread yang berbeda.
+     *
+     * @param index Nomor permainan, dimulai dari 0
+     * @return Log untuk permainan tersebut
+     */
+    public GameLog openGame(int index) {
+        Path path = dirPath.resolve(dirName + "-" + (index + 1) + ".txt");
         try {
-            fileCounter++;
-            filePath = dirPath.resolve(dirName + "-" + fileCounter + ".txt");
-            Files.createFile(filePath);
+            Files.createFile(path);
         } catch (IOException ex) {
             Logger.getLogger(ExperimentLogger.class.getName()).log(Level.SEVERE, null, ex);
         }
+        return new GameLog(path);
+    }
+
+    /**
+     * File log dari satu permainan.
+     */
+    public class GameLog {
+
+        private final Path filePath;
+
+        private GameLog(Path filePath) {
+            this.filePath = filePath;
+        }
+
+        /**
+         * Mencatat sebuah aksi dan state yang dihasilkan dari aksi tersebut.
+         *
+         * @param action Aksi yang ingin dicatat
+         * @param state State yang ingin dicatat
+         */
+        public void log(GameAction action, GameState state) {
+            log(String.format("Action: %s%n%s", action, state));
+        }
+
+        /**
+         * Menulis sembarang data ke file log permainan ini.
+         *
+         * @param data Data yang ingin dicatat
+         */
+        public void log(Object data) {
+            write(filePath, data.toString());
+        }
     }
 }
@@ -33,6 +33,10 @@ public class Main {
                 case 1:
                     System.out.print("Number of games: ");
                     int iteration = Integer.parseInt(sc.nextLine().trim());
+                    System.out.print("Games in parallel [1]: ");
+                    input = sc.nextLine().trim();
+                    ExperimentController.setParallelism((input.isEmpty()) ? 1 : Integer.parseInt(input));
+                    
                     ExperimentController.randomAverage(iteration);
                     break;
                 case 2: 
@@ -62,6 +66,10 @@ public class Main {
                     input = sc.nextLine().trim();
                     boolean isSpaceLocalNorm = (input.isEmpty()) ? true : Integer.parseInt(input) == 1;
                     
+                    System.out.print("Games in parallel [1]: ");
+                    input = sc.nextLine().trim();
+                    ExperimentController.setParallelism((input.isEmpty()) ? 1 : Integer.parseInt(input));
+                    
                     ExperimentController.mctsAverage(iteration, maxTick, explorationConst, isRobustChild, isSpaceLocalNorm);
                     break;
                     
@@ -99,6 +107,10 @@ public class Main {
                     input = sc.nextLine().trim();
                     isSpaceLocalNorm = (input.isEmpty()) ? true : Integer.parseInt(input) == 1;
                     
+                    System.out.print("Games in parallel [1]: ");
+                    input = sc.nextLine().trim();
+                    ExperimentController.setParallelism((input.isEmpty()) ? 1 : Integer.parseInt(input));
+                    
                     ExperimentController.tdtsAverage(iteration, maxTick, explorationConst, gamma, lambda, isRobustChild, isSpaceLocalNorm);
                     break;
                     
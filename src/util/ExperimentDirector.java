@@ -3,8 +3,10 @@
  */
 package util;
 
-import controller.ExperimentController;
+import controller.ExperimentConfig;
+import controller.ExperimentSweep;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.logging.Level;
@@ -16,6 +18,11 @@ import java.util.logging.Logger;
  */
 public class ExperimentDirector {
 
+    // Jumlah permainan yang dijalankan bersamaan dalam satu sweep
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    // Master seed tetap supaya sweep yang terhenti dapat dilanjutkan dari jurnal
+    private static final long MASTER_SEED = 2048;
+
     public static void main(String[] args) {
 //        testLambdaTdts(new double[] {0, 0.1, 0.2, 0.4, 0.6, 0.8, 0.9, 0.95, 0.99, 0.999, 1});
 //        testLambdaTdts(new double[] {0, 0.1, 0.2, 0.4, 0.6, 0.8});
@@ -34,13 +41,17 @@ public class ExperimentDirector {
         boolean isSpaceLocal = true;
         boolean isRobustChild = false;
 
+        ExperimentSweep sweep = new ExperimentSweep(PARALLELISM)
+                .setJournal(Paths.get("log", "testLambdaTdts.journal"));
         for(int i = 0; i<maxIters.length; i++){
             for (int j = 0; j < lambda.length; j++) {
                 //MCTS
-                ExperimentController.tdtsAverage(numOfGames, maxIters[i], expConst, gamma, lambda[j], isRobustChild, isSpaceLocal);
+                sweep.add(ExperimentConfig.tdts(numOfGames, maxIters[i], expConst, gamma, lambda[j], isRobustChild, isSpaceLocal, MASTER_SEED));
             }
         }
         
+        sweep.run();
+
         try {
             HttpHelper.pingMe();
         } catch (IOException ex) {
@@ -62,12 +73,16 @@ public class ExperimentDirector {
         boolean isSpaceLocal = true;
         boolean isRobustChild = false;
 
+        ExperimentSweep sweep = new ExperimentSweep(PARALLELISM)
+                .setJournal(Paths.get("log", "testGammaTdts.journal"));
         for(int i = 0; i<maxIters.length; i++){
             for (int j = 0; j < gamma.length; j++) {
-                ExperimentController.tdtsAverage(numOfGames, maxIters[i], expConst, gamma[j], lambda, isRobustChild, isSpaceLocal);
+                sweep.add(ExperimentConfig.tdts(numOfGames, maxIters[i], expConst, gamma[j], lambda, isRobustChild, isSpaceLocal, MASTER_SEED));
             }
         }
         
+        sweep.run();
+
         try {
             HttpHelper.pingMe();
         } catch (IOException ex) {
@@ -105,13 +120,17 @@ public class ExperimentDirector {
         boolean isSpaceLocal = true;
         boolean isRobustChild = false;
 
+        ExperimentSweep sweep = new ExperimentSweep(PARALLELISM)
+                .setJournal(Paths.get("log", "testExplorationConstantMcts.journal"));
         for(int i = 0; i<maxIters.length; i++){
             for (int j = 0; j < explorationConstant.length; j++) {
                 //MCTS
-                ExperimentController.mctsAverage(numOfGames, maxIters[i], explorationConstant[j], isRobustChild, isSpaceLocal);
+                sweep.add(ExperimentConfig.mcts(numOfGames, maxIters[i], explorationConstant[j], isRobustChild, isSpaceLocal, MASTER_SEED));
             }
         }
         
+        sweep.run();
+
         try {
             HttpHelper.pingMe();
         } catch (IOException ex) {
@@ -151,13 +170,17 @@ public class ExperimentDirector {
 
         double gamma = 1, lambda = 1;
 
+        ExperimentSweep sweep = new ExperimentSweep(PARALLELISM)
+                .setJournal(Paths.get("log", "testExplorationConstantTdts.journal"));
         for(int i = 0; i<maxIters.length; i++){
             for (int j = 0; j < explorationConstant.length; j++) {
                 //TDTS
-                ExperimentController.tdtsAverage(numOfGames, maxIters[i], explorationConstant[j], gamma, lambda, isRobustChild, isSpaceLocal);
+                sweep.add(ExperimentConfig.tdts(numOfGames, maxIters[i], explorationConstant[j], gamma, lambda, isRobustChild, isSpaceLocal, MASTER_SEED));
             }
         }
         
+        sweep.run();
+
         try {
             HttpHelper.pingMe();
         } catch (IOException ex) {
@@ -178,20 +201,24 @@ public class ExperimentDirector {
         int numOfGames = 50;
         boolean isSpaceLocal = true;
 
+        ExperimentSweep sweep = new ExperimentSweep(PARALLELISM)
+                .setJournal(Paths.get("log", "testChildPolicy.journal"));
         //MCTS
         for (int i = 0; i < maxIters.length; i++) {
             for (int j = 0; j < isRobustChild.length; j++) {
-                ExperimentController.mctsAverage(numOfGames, maxIters[i], Math.sqrt(2), isRobustChild[j], isSpaceLocal);
+                sweep.add(ExperimentConfig.mcts(numOfGames, maxIters[i], Math.sqrt(2), isRobustChild[j], isSpaceLocal, MASTER_SEED));
             }
         }
 
         //TDTS
         for (int i = 0; i < maxIters.length; i++) {
             for (int j = 0; j < isRobustChild.length; j++) {
-                ExperimentController.tdtsAverage(numOfGames, maxIters[i], Math.sqrt(2), 1, 1, isRobustChild[j], isSpaceLocal);
+                sweep.add(ExperimentConfig.tdts(numOfGames, maxIters[i], Math.sqrt(2), 1, 1, isRobustChild[j], isSpaceLocal, MASTER_SEED));
             }
         }
 
+        sweep.run();
+
         try {
             HttpHelper.pingMe();
         } catch (IOException ex) {
@@ -206,20 +233,24 @@ public class ExperimentDirector {
         boolean[] isSpaceLocal = {false, true};
         int[] maxIters = {1000, 10000, 100000};
 
+        ExperimentSweep sweep = new ExperimentSweep(PARALLELISM)
+                .setJournal(Paths.get("log", "testNormMethods.journal"));
         //MCTS
         for (int i = 0; i < maxIters.length; i++) {
             for (int j = 0; j < isSpaceLocal.length; j++) {
-                ExperimentController.mctsAverage(100, maxIters[i], Math.sqrt(2), true, isSpaceLocal[j]);
+                sweep.add(ExperimentConfig.mcts(100, maxIters[i], Math.sqrt(2), true, isSpaceLocal[j], MASTER_SEED));
             }
         }
 
         //TDTS
         for (int i = 0; i < maxIters.length; i++) {
             for (int j = 0; j < isSpaceLocal.length; j++) {
-                ExperimentController.tdtsAverage(100, maxIters[i], Math.sqrt(2), 1, 1, true, isSpaceLocal[j]);
+                sweep.add(ExperimentConfig.tdts(100, maxIters[i], Math.sqrt(2), 1, 1, true, isSpaceLocal[j], MASTER_SEED));
             }
         }
 
+        sweep.run();
+
         try {
             HttpHelper.pingMe();
         } catch (IOException ex) {
@@ -0,0 +1,126 @@
+package util;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Random number generator yang cepat dengan algoritma xoroshiro128++. Berbeda
+ * dengan java.util.Random dan Math.random(), class ini tidak memakai
+ * sinkronisasi maupun state global, sehingga setiap thread (atau setiap
+ * permainan) sebaiknya memiliki objeknya sendiri. Karena merupakan turunan
+ * dari Random, objek class ini dapat dipakai di mana pun Random dipakai.
+ *
+ * State awal diturunkan dari seed dengan SplitMix64, sehingga seed yang sama
+ * selalu menghasilkan barisan bilangan yang sama.
+ *
+ * @author Jiang Han
+ */
+public class FastRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final AtomicLong SEED_UNIQUIFIER = new AtomicLong(System.nanoTime());
+
+    /*
+     * Sengaja tidak diberi nilai awal karena diisi oleh setSeed() yang sudah
+     * dipanggil di konstruktor Random.
+     */
+    private long s0;
+    private long s1;
+
+    /**
+     * Membuat random number generator dengan seed yang berbeda dari objek lain
+     * yang dibuat dengan konstruktor ini.
+     */
+    public FastRandom() {
+        super(mix(SEED_UNIQUIFIER.addAndGet(GOLDEN_GAMMA) ^ System.nanoTime()));
+    }
+
+    /**
+     * Membuat random number generator dengan seed tertentu.
+     *
+     * @param seed Seed awal
+     */
+    public FastRandom(long seed) {
+        super(seed);
+    }
+
+    /**
+     * Mengganti seed dari generator ini. Seperti Random.setSeed(), nilai
+     * nextGaussian() yang tersimpan dari pemanggilan sebelumnya juga dibuang,
+     * sehingga seed yang sama selalu menghasilkan barisan yang sama.
+     *
+     * @param seed Seed baru
+     */
+    @Override
+    public synchronized void setSeed(long seed) {
+        // Mengosongkan cache nextGaussian() milik Random
+        super.setSeed(seed);
+        long x = seed;
+        s0 = mix(x += GOLDEN_GAMMA);
+        s1 = mix(x + GOLDEN_GAMMA);
+        if ((s0 | s1) == 0) {
+            s1 = GOLDEN_GAMMA;
+        }
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public long nextLong() {
+        final long a = s0;
+        long b = s1;
+        final long result = Long.rotateLeft(a + b, 17) + a;
+
+        b ^= a;
+        s0 = Long.rotateLeft(a, 49) ^ b ^ (b << 21);
+        s1 = Long.rotateLeft(b, 28);
+        return result;
+    }
+
+    @Override
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Membuat random number generator baru yang seed-nya diambil dari
+     * generator ini. Berguna untuk memberikan generator tersendiri ke setiap
+     * thread atau komponen.
+     *
+     * @return Random number generator baru
+     */
+    public FastRandom split() {
+        return new FastRandom(nextLong());
+    }
+
+    /**
+     * Menurunkan seed untuk data ke-index dari sebuah master seed. Seed yang
+     * dihasilkan untuk setiap index saling berbeda, dan selalu sama untuk
+     * pasangan master seed dan index yang sama.
+     *
+     * @param masterSeed Master seed
+     * @param index Nomor data, misalnya nomor permainan dalam eksperimen
+     * @return Seed untuk data ke-index
+     */
+    public static long deriveSeed(long masterSeed, long index) {
+        return mix(masterSeed + (index + 1) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Fungsi pengacak SplitMix64
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
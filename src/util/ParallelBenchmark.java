@@ -0,0 +1,112 @@
+package util;
+
+import agent.GamePlayingAgent;
+import agent.mcts.MctsAgent;
+import agent.tdts.TdtsAgent;
+import game.GameModel;
+import game.GameModel.GameState;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Mengukur rata-rata waktu satu kali selectAction() terhadap jumlah thread.
+ * Semua konfigurasi diuji pada kumpulan state yang sama, yang didapatkan dari
+ * permainan acak dengan seed tetap.
+ *
+ * Argumen (opsional): jumlah tick per langkah [15000], jumlah state [20],
+ * jumlah thread maksimum [jumlah prosesor].
+ *
+ * @author Jiang Han
+ */
+public class ParallelBenchmark {
+
+    private static final long SEED = 2048;
+    // Jumlah keputusan yang tidak diukur supaya JIT sudah selesai
+    private static final int WARMUP_DECISIONS = 5;
+
+    public static void main(String[] args) {
+        int maxTick = args.length > 0 ? Integer.parseInt(args[0]) : 15000;
+        int stateCount = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+
+        List<GameState> states = generateStates(stateCount);
+        System.out.println("Root-parallel MCTS, " + maxTick + " ticks per decision, "
+                + states.size() + " states");
+        benchmark(threads -> new MctsAgent.Builder()
+                .setRandom(new FastRandom(SEED))
+                .setThreadCount(threads)
+                .build(), states, maxTick, maxThreads);
+
+        System.out.println();
+        System.out.println("Shared-tree TDTS, " + maxTick + " ticks per decision, "
+                + states.size() + " states");
+        benchmark(threads -> new TdtsAgent.Builder()
+                .setRandom(new FastRandom(SEED))
+                .setThreadCount(threads)
+                .build(), states, maxTick, maxThreads);
+    }
+
+    /**
+     * Mengukur waktu keputusan agen untuk jumlah thread 1, 2, 4, ... hingga
+     * maxThreads, lalu mencetak hasilnya dalam bentuk tabel.
+     *
+     * @param agentBuilder Pembuat agen dengan jumlah thread tertentu
+     * @param states State yang dipakai untuk pengukuran
+     * @param maxTick Jumlah tick per keputusan
+     * @param maxThreads Jumlah thread maksimum
+     */
+    public static void benchmark(IntFunction<GamePlayingAgent> agentBuilder,
+            List<GameState> states, int maxTick, int maxThreads) {
+        System.out.println(String.format("%8s %12s %8s", "Threads", "ms/decision", "Speedup"));
+        double baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+            GamePlayingAgent agent = agentBuilder.apply(threads);
+            double latency = measure(agent, states, maxTick);
+            if (threads == 1) {
+                baseline = latency;
+            }
+            System.out.println(String.format("%8d %12.3f %8.2f", threads, latency, baseline / latency));
+        }
+    }
+
+    private static int nextThreadCount(int threads, int maxThreads) {
+        return (threads < maxThreads && 2 * threads > maxThreads) ? maxThreads : 2 * threads;
+    }
+
+    /**
+     * @return Rata-rata waktu satu keputusan dalam milidetik
+     */
+    private static double measure(GamePlayingAgent agent, List<GameState> states, int maxTick) {
+        FastRandom rand = new FastRandom(SEED);
+        for (int i = 0; i < WARMUP_DECISIONS; i++) {
+            agent.selectAction(states.get(i % states.size()).copy(), new GameModel(maxTick, rand.split()));
+        }
+
+        long start = System.nanoTime();
+        for (GameState state : states) {
+            agent.selectAction(state.copy(), new GameModel(maxTick, rand.split()));
+        }
+        return (System.nanoTime() - start) / 1e6 / states.size();
+    }
+
+    /**
+     * Mengambil state-state dari satu permainan acak. Jika permainan berakhir
+     * sebelum state yang dibutuhkan cukup, permainan baru dimulai.
+     */
+    private static List<GameState> generateStates(int count) {
+        FastRandom rand = new FastRandom(SEED);
+        GameModel model = new GameModel(Integer.MAX_VALUE, rand.split());
+        List<GameState> states = new ArrayList<>(count);
+        GameState state = model.generateInitialState();
+        while (states.size() < count) {
+            if (state.isTerminal()) {
+                state = model.generateInitialState();
+            }
+            states.add(state);
+            state = model.applyAction(state, state.getRandomAvailableAction(rand));
+        }
+        return states;
+    }
+}
@@ -0,0 +1,73 @@
+import agent.ActionNode;
+import agent.StateNode;
+import game.GameAction;
+import game.GameModel.GameState;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Jiang Han
+ */
+public class ActionNodeTest {
+
+    private static ActionNode node() {
+        return new ActionNode(GameAction.LEFT, null) {
+            @Override
+            protected StateNode createChildNode(GameState state) {
+                return null;
+            }
+
+            @Override
+            public void updateUtility(double result) {
+            }
+
+            @Override
+            public double getUtility() {
+                return 0;
+            }
+        };
+    }
+
+    private static double value(int thread, int i, int threadCount) {
+        double value = i * threadCount + thread;
+        return i % 2 == 0 ? value : -value;
+    }
+
+    @Test
+    public void testConcurrentWidenBounds() throws InterruptedException {
+        //Beberapa thread memperlebar bound node yang sama secara bersamaan,
+        //seperti aksi-aksi saudara pada pohon bersama
+        final int threadCount = 4;
+        final int valueCount = 100000;
+        ActionNode node = node();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            final int thread = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < valueCount; i++) {
+                    node.widenBounds(value(thread, i, threadCount));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        double lower = Double.POSITIVE_INFINITY;
+        double upper = Double.NEGATIVE_INFINITY;
+        for (int t = 0; t < threadCount; t++) {
+            for (int i = 0; i < valueCount; i++) {
+                lower = Math.min(lower, value(t, i, threadCount));
+                upper = Math.max(upper, value(t, i, threadCount));
+            }
+        }
+        Assert.assertEquals(lower, node.getLowerBound(), 0);
+        Assert.assertEquals(upper, node.getUpperBound(), 0);
+    }
+}
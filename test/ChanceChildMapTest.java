@@ -0,0 +1,68 @@
+
+import agent.ActionNode;
+import agent.ChanceChildMap;
+import agent.StateNode;
+import game.GameAction;
+import game.GameModel;
+import game.GameModel.GameState;
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ *
+ * @author Jiang Han
+ */
+public class ChanceChildMapTest {
+
+    @Test
+    public void testPutAndGet() {
+        ChanceChildMap map = new ChanceChildMap();
+        StateNode[] nodes = new StateNode[2 * GameModel.BOARD_SIZE * GameModel.BOARD_SIZE];
+
+        // Semua kemungkinan tile baru (2 atau 4) pada papan kosong
+        for (int i = 0; i < nodes.length; i++) {
+            long board = (long) (i % 2 + 1) << (4 * (i / 2));
+            nodes[i] = new StateNode(new GameState()) {
+                @Override
+                protected ActionNode createActionNode(GameAction action) {
+                    return null;
+                }
+            };
+            Assert.assertNull(map.get(board));
+            map.put(board, nodes[i]);
+        }
+        Assert.assertEquals(nodes.length, map.size());
+
+        for (int i = 0; i < nodes.length; i++) {
+            long board = (long) (i % 2 + 1) << (4 * (i / 2));
+            Assert.assertSame(nodes[i], map.get(board));
+        }
+        Assert.assertNull(map.get(3L));
+
+        // Papan yang sama menggantikan child lama
+        map.put(1L, nodes[5]);
+        Assert.assertSame(nodes[5], map.get(1L));
+        Assert.assertEquals(nodes.length, map.size());
+    }
+
+    @Test
+    public void testCopy() {
+        ChanceChildMap map = new ChanceChildMap();
+        StateNode node = new StateNode(new GameState()) {
+            @Override
+            protected ActionNode createActionNode(GameAction action) {
+                return null;
+            }
+        };
+        map.put(1L, node);
+        ChanceChildMap copy = map.copy();
+        copy.put(2L, node);
+
+        // Map lama tidak berubah karena penambahan pada salinannya
+        Assert.assertSame(node, copy.get(1L));
+        Assert.assertSame(node, copy.get(2L));
+        Assert.assertNull(map.get(2L));
+        Assert.assertEquals(1, map.size());
+        Assert.assertEquals(2, copy.size());
+    }
+}
@@ -0,0 +1,71 @@
+import controller.GameRecord;
+import io.ExperimentJournal;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Jiang Han
+ */
+public class ExperimentJournalTest {
+
+    @Test
+    public void testReopen() throws IOException {
+        Path path = Files.createTempFile("journal", ".txt");
+        try {
+            try (ExperimentJournal journal = new ExperimentJournal(path)) {
+                journal.append("a", new GameRecord(0, -5L, 1024, 100, 128, 30));
+                journal.append("a", new GameRecord(2, 7L, 2048, 200, 256, 40));
+                journal.append("b", new GameRecord(0, 9L, 512, 50, 64, 10));
+                journal.markFinished("b");
+            }
+
+            try (ExperimentJournal journal = new ExperimentJournal(path)) {
+                GameRecord record = journal.getRecord("a", 2);
+                Assert.assertEquals(2, record.getIndex());
+                Assert.assertEquals(7L, record.getSeed());
+                Assert.assertEquals(2048, record.getScore());
+                Assert.assertEquals(200, record.getSteps());
+                Assert.assertEquals(256, record.getMaxTile());
+                Assert.assertEquals(40, record.getDuration());
+                Assert.assertEquals(-5L, journal.getRecord("a", 0).getSeed());
+                Assert.assertNull(journal.getRecord("a", 1));
+                Assert.assertNull(journal.getRecord("c", 0));
+                Assert.assertFalse(journal.isFinished("a"));
+                Assert.assertTrue(journal.isFinished("b"));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testTruncatedLine() throws IOException {
+        Path path = Files.createTempFile("journal", ".txt");
+        try {
+            try (ExperimentJournal journal = new ExperimentJournal(path)) {
+                journal.append("a", new GameRecord(0, 1L, 1024, 100, 128, 30));
+            }
+            //Baris terakhir terpotong saat JVM mati
+            Files.write(path, "game\ta\t1\t2\t20".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+            try (ExperimentJournal journal = new ExperimentJournal(path)) {
+                Assert.assertNotNull(journal.getRecord("a", 0));
+                Assert.assertNull(journal.getRecord("a", 1));
+                journal.append("a", new GameRecord(1, 2L, 2048, 200, 256, 40));
+            }
+
+            try (ExperimentJournal journal = new ExperimentJournal(path)) {
+                Assert.assertEquals(2048, journal.getRecord("a", 1).getScore());
+            }
+            Assert.assertEquals(2, Files.readAllLines(path).size());
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+import controller.GameExecutors;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ *
+ * @author Jiang Han
+ */
+public class GameExecutorsTest {
+
+    /**
+     * Pengganti Executors.newVirtualThreadPerTaskExecutor() supaya jalur
+     * refleksi dapat diuji di JDK yang tidak mendukung virtual thread.
+     */
+    public static ExecutorService newTaskExecutor() {
+        return Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Meniru JDK yang memiliki factory virtual thread tetapi fitur preview-nya
+     * tidak diaktifkan.
+     */
+    public static ExecutorService newDisabledExecutor() {
+        throw new UnsupportedOperationException("Preview features are not enabled");
+    }
+
+    public static Object newNonExecutor() {
+        return new Object();
+    }
+
+    @Test
+    public void testReflectiveFactory() throws InterruptedException, ExecutionException {
+        Method factory = GameExecutors.findExecutorFactory(GameExecutorsTest.class, "newTaskExecutor");
+        Assert.assertNotNull(factory);
+        ExecutorService executor = GameExecutors.invokeExecutorFactory(factory);
+        Assert.assertNotNull(executor);
+        try {
+            Assert.assertEquals(42, (int) executor.submit(() -> 42).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testUnusableFactory() {
+        Assert.assertNull(GameExecutors.findExecutorFactory(GameExecutorsTest.class, "newDisabledExecutor"));
+        Assert.assertNull(GameExecutors.findExecutorFactory(GameExecutorsTest.class, "newNonExecutor"));
+        Assert.assertNull(GameExecutors.findExecutorFactory(GameExecutorsTest.class, "newMissingExecutor"));
+        Assert.assertNull(GameExecutors.invokeExecutorFactory(null));
+    }
+
+    @Test
+    public void testLightweightUsesVirtualThreads() throws Exception {
+        Assume.assumeTrue(GameExecutors.isVirtualThreadAvailable());
+        Method isVirtual = Thread.class.getMethod("isVirtual");
+        ExecutorService executor = GameExecutors.newExecutor(GameExecutors.Mode.LIGHTWEIGHT, 2);
+        try {
+            Assert.assertEquals(Boolean.TRUE, executor.submit(() -> isVirtual.invoke(Thread.currentThread())).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLightweightFallsBackToPlatform() throws InterruptedException, ExecutionException {
+        Assume.assumeFalse(GameExecutors.isVirtualThreadAvailable());
+        ExecutorService executor = GameExecutors.newExecutor(GameExecutors.Mode.LIGHTWEIGHT, 2);
+        try {
+            String name = executor.submit(() -> Thread.currentThread().getName()).get();
+            Assert.assertTrue(name, name.startsWith("game-worker-"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -8,7 +8,10 @@ import java.util.logging.Logger;
 import game.GameModel;
 import game.GameAction;
 import game.GameModel.GameState;
+import game.SpawnOutcome;
+import game.TickBudget;
 import org.junit.Test;
+import util.FastRandom;
 import org.junit.Assert;
 
 /**
@@ -28,7 +31,7 @@ public class GameModelTest {
             {0, 2, 0, 0},
             {0, 0, 2, 0},
             {0, 0, 0, 0},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         List<GameAction> l1 = state.getAvailableActions();
         List<GameAction> l2 = Arrays.asList(GameAction.values());
         
@@ -39,7 +42,7 @@ public class GameModelTest {
             {2, 2, 2, 2},
             {2, 2, 2, 2},
             {2, 2, 2, 2},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(GameAction.values()));
 
         board = new int[][]{
@@ -47,7 +50,7 @@ public class GameModelTest {
             {4, 2, 4, 2},
             {2, 4, 2, 4},
             {4, 2, 4, 2},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[0]));
     }
 
@@ -62,7 +65,7 @@ public class GameModelTest {
             {4, 8, 8, 2},
             {2, 4, 2, 4},
             {4, 2, 4, 2},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.LEFT, GameAction.RIGHT}));
 
         board = new int[][]{
@@ -70,7 +73,7 @@ public class GameModelTest {
             {8, 8, 4, 2},
             {2, 4, 2, 4},
             {4, 2, 4, 2},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.LEFT, GameAction.RIGHT}));
 
         board = new int[][]{
@@ -78,7 +81,7 @@ public class GameModelTest {
             {4, 2, 8, 8},
             {2, 4, 2, 4},
             {4, 2, 4, 2},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.LEFT, GameAction.RIGHT}));
 
         board = new int[][]{
@@ -86,7 +89,7 @@ public class GameModelTest {
             {4, 2, 4, 2},
             {2, 4, 2, 4},
             {4, 2, 4, 2},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(GameAction.values()));
 
         board = new int[][]{
@@ -94,7 +97,7 @@ public class GameModelTest {
             {4, 2, 8, 2},
             {2, 4, 2, 4},
             {4, 2, 4, 2},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.UP, GameAction.DOWN}));
 
         board = new int[][]{
@@ -102,7 +105,7 @@ public class GameModelTest {
             {4, 2, 8, 2},
             {2, 4, 8, 4},
             {4, 2, 4, 2},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.UP, GameAction.DOWN}));
 
         board = new int[][]{
@@ -110,7 +113,7 @@ public class GameModelTest {
             {4, 2, 4, 2},
             {2, 4, 2, 8},
             {4, 2, 4, 8},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.UP, GameAction.DOWN}));
     }
 
@@ -125,7 +128,7 @@ public class GameModelTest {
             {0, 0, 0, 0},
             {0, 0, 0, 0},
             {2, 2, 0, 0},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.LEFT, GameAction.RIGHT, GameAction.UP}));
         
         board = new int[][]{
@@ -133,7 +136,7 @@ public class GameModelTest {
             {0, 0, 0, 0},
             {0, 0, 0, 0},
             {0, 0, 0, 0},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.LEFT, GameAction.RIGHT, GameAction.DOWN}));
 
         board = new int[][]{
@@ -141,7 +144,7 @@ public class GameModelTest {
             {0, 0, 0, 0},
             {0, 0, 0, 0},
             {0, 0, 0, 0},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.LEFT, GameAction.RIGHT, GameAction.DOWN}));
 
         board = new int[][]{
@@ -149,7 +152,7 @@ public class GameModelTest {
             {0, 0, 0, 0},
             {0, 0, 0, 0},
             {0, 0, 2, 2},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.LEFT, GameAction.RIGHT, GameAction.UP}));
 
         board = new int[][]{
@@ -157,7 +160,7 @@ public class GameModelTest {
             {0, 0, 0, 0},
             {2, 0, 0, 0},
             {2, 0, 0, 0},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.RIGHT, GameAction.UP, GameAction.DOWN}));
 
         board = new int[][]{
@@ -165,7 +168,7 @@ public class GameModelTest {
             {0, 0, 0, 0},
             {0, 0, 0, 2},
             {0, 0, 0, 2},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.LEFT, GameAction.UP, GameAction.DOWN}));
 
         board = new int[][]{
@@ -173,7 +176,7 @@ public class GameModelTest {
             {0, 0, 0, 2},
             {0, 0, 0, 0},
             {0, 0, 0, 0},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.LEFT, GameAction.UP, GameAction.DOWN}));
 
         board = new int[][]{
@@ -181,7 +184,7 @@ public class GameModelTest {
             {2, 0, 0, 0},
             {0, 0, 0, 0},
             {0, 0, 0, 0},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.RIGHT, GameAction.UP, GameAction.DOWN}));
     }
 
@@ -197,7 +200,7 @@ public class GameModelTest {
             {4, 0, 0, 0},
             {0, 0, 0, 0},
             {0, 0, 0, 0},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.RIGHT, GameAction.DOWN}));
 
         board = new int[][]{
@@ -205,7 +208,7 @@ public class GameModelTest {
             {0, 0, 0, 0},
             {0, 0, 0, 0},
             {0, 0, 0, 0},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.RIGHT, GameAction.DOWN}));
 
         board = new int[][]{
@@ -213,7 +216,7 @@ public class GameModelTest {
             {0, 0, 0, 0},
             {0, 0, 0, 0},
             {0, 0, 0, 0},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.LEFT, GameAction.DOWN}));
 
         board = new int[][]{
@@ -221,7 +224,7 @@ public class GameModelTest {
             {0, 0, 0, 2},
             {0, 0, 0, 0},
             {0, 0, 0, 0},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.LEFT, GameAction.DOWN}));
 
         board = new int[][]{
@@ -229,7 +232,7 @@ public class GameModelTest {
             {0, 0, 0, 0},
             {0, 0, 0, 4},
             {0, 0, 0, 2},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.LEFT, GameAction.UP}));
 
         board = new int[][]{
@@ -237,7 +240,7 @@ public class GameModelTest {
             {0, 0, 0, 0},
             {0, 0, 0, 0},
             {0, 0, 4, 2},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.LEFT, GameAction.UP}));
 
         board = new int[][]{
@@ -245,7 +248,7 @@ public class GameModelTest {
             {0, 0, 0, 0},
             {0, 0, 0, 0},
             {4, 2, 0, 0},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.RIGHT, GameAction.UP}));
 
         board = new int[][]{
@@ -253,7 +256,7 @@ public class GameModelTest {
             {0, 0, 0, 0},
             {2, 0, 0, 0},
             {4, 0, 0, 0},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.RIGHT, GameAction.UP}));
     }
 
@@ -269,7 +272,7 @@ public class GameModelTest {
             {4, 0, 0, 0},
             {2, 0, 0, 0},
             {4, 0, 0, 0},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.RIGHT}));
 
         board = new int[][]{
@@ -277,7 +280,7 @@ public class GameModelTest {
             {0, 4, 0, 0},
             {0, 2, 0, 0},
             {0, 4, 0, 0},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.LEFT, GameAction.RIGHT}));
         
         board = new int[][]{
@@ -285,7 +288,7 @@ public class GameModelTest {
             {0, 0, 0, 4},
             {0, 0, 0, 2},
             {0, 0, 0, 4},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.LEFT}));
         
         board = new int[][]{
@@ -293,7 +296,7 @@ public class GameModelTest {
             {0, 0, 0, 0},
             {0, 0, 0, 0},
             {2, 4, 2, 4},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.UP}));
         
         board = new int[][]{
@@ -301,7 +304,7 @@ public class GameModelTest {
             {0, 0, 0, 0},
             {2, 4, 2, 4},
             {0, 0, 0, 0},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.UP, GameAction.DOWN}));
         
         board = new int[][]{
@@ -309,7 +312,7 @@ public class GameModelTest {
             {0, 0, 0, 0},
             {0, 0, 0, 0},
             {0, 0, 0, 0},};
-        state= model.new GameState(board);
+        state= new GameState(board);
         Assert.assertEquals(state.getAvailableActions(), Arrays.asList(new GameAction[]{GameAction.DOWN}));
     }
 
@@ -330,8 +333,8 @@ public class GameModelTest {
             {2, 64, 32, 4},
             {2048, 64, 0, 0},};
         
-        state= model.new GameState(board);
-        expectedState= model.new GameState(expectedBoard, 4+2048);       
+        state= new GameState(board);
+        expectedState= new GameState(expectedBoard, 4+2048);       
         try {
             Method slideTiles = model.getClass().getDeclaredMethod("slideTiles", GameState.class, GameAction.class);
             slideTiles.setAccessible(true);
@@ -352,8 +355,8 @@ public class GameModelTest {
             {32, 32, 0, 0},
             {32, 32, 32, 0},};
 
-        state= model.new GameState(board);
-        expectedState= model.new GameState(expectedBoard, 4 + 8 + 64 + 32);
+        state= new GameState(board);
+        expectedState= new GameState(expectedBoard, 4 + 8 + 64 + 32);
         try {
             Method slideTiles = model.getClass().getDeclaredMethod("slideTiles", GameState.class, GameAction.class);
             slideTiles.setAccessible(true);
@@ -382,8 +385,8 @@ public class GameModelTest {
             {2, 64, 32, 4},
             {0, 0, 2048, 64},};
 
-        state= model.new GameState(board);
-        expectedState= model.new GameState(expectedBoard, 4+2048);       
+        state= new GameState(board);
+        expectedState= new GameState(expectedBoard, 4+2048);       
         try {
             Method slideTiles = model.getClass().getDeclaredMethod("slideTiles", GameState.class, GameAction.class);
             slideTiles.setAccessible(true);
@@ -403,8 +406,8 @@ public class GameModelTest {
             {0, 0, 4, 8},
             {0, 0, 32, 32},
             {0, 32, 32, 32},};
-        state= model.new GameState(board);
-        expectedState= model.new GameState(expectedBoard, 4 + 8 + 64 + 32);       
+        state= new GameState(board);
+        expectedState= new GameState(expectedBoard, 4 + 8 + 64 + 32);       
         try {
             Method slideTiles = model.getClass().getDeclaredMethod("slideTiles", GameState.class, GameAction.class);
             slideTiles.setAccessible(true);
@@ -431,8 +434,8 @@ public class GameModelTest {
             {4, 64, 32, 4},
             {2, 1024, 64, 0},
             {1024, 0, 0, 0},};
-        state= model.new GameState(board);
-        expectedState= model.new GameState(expectedBoard, 4);       
+        state= new GameState(board);
+        expectedState= new GameState(expectedBoard, 4);       
         try {
             Method slideTiles = model.getClass().getDeclaredMethod("slideTiles", GameState.class, GameAction.class);
             slideTiles.setAccessible(true);
@@ -452,8 +455,8 @@ public class GameModelTest {
             {4, 4, 32, 32},
             {8, 0, 0, 32},
             {0, 0, 0, 0},};
-        state= model.new GameState(board);
-        expectedState= model.new GameState(expectedBoard, 4 + 8 + 64 + 32);       
+        state= new GameState(board);
+        expectedState= new GameState(expectedBoard, 4 + 8 + 64 + 32);       
         try {
             Method slideTiles = model.getClass().getDeclaredMethod("slideTiles", GameState.class, GameAction.class);
             slideTiles.setAccessible(true);
@@ -480,8 +483,8 @@ public class GameModelTest {
             {4, 16, 8, 0},
             {2, 64, 32, 4},
             {1024, 1024, 64, 4},};
-        state= model.new GameState(board);
-        expectedState= model.new GameState(expectedBoard, 4);       
+        state= new GameState(board);
+        expectedState= new GameState(expectedBoard, 4);       
         try {
             Method slideTiles = model.getClass().getDeclaredMethod("slideTiles", GameState.class, GameAction.class);
             slideTiles.setAccessible(true);
@@ -501,8 +504,8 @@ public class GameModelTest {
             {4, 0, 0, 32},
             {4, 4, 32, 32},
             {8, 8, 32, 32},};
-        state= model.new GameState(board);
-        expectedState= model.new GameState(expectedBoard, 4 + 8 + 64 + 32);       
+        state= new GameState(board);
+        expectedState= new GameState(expectedBoard, 4 + 8 + 64 + 32);       
         try {
             Method slideTiles = model.getClass().getDeclaredMethod("slideTiles", GameState.class, GameAction.class);
             slideTiles.setAccessible(true);
@@ -512,4 +515,119 @@ public class GameModelTest {
             Logger.getLogger(GameModelTest.class.getName()).log(Level.SEVERE, null, ex);
         }
     }
+
+    @Test
+    public void testSeededModel() {
+        GameModel model1 = new GameModel(100, new FastRandom(2048));
+        GameModel model2 = new GameModel(100, new FastRandom(2048));
+
+        GameState state1 = model1.generateInitialState();
+        GameState state2 = model2.generateInitialState();
+        Assert.assertEquals(state1, state2);
+
+        // Model dengan seed yang sama menghasilkan permainan yang sama
+        FastRandom actionRand = new FastRandom(1);
+        while (!state1.isTerminal() && model1.isUsable()) {
+            GameAction action = state1.getRandomAvailableAction(actionRand);
+            state1 = model1.applyAction(state1, action);
+            state2 = model2.applyAction(state2, action);
+            Assert.assertEquals(state1, state2);
+        }
+    }
+
+    @Test
+    public void testSlideAndSpawn() {
+        int board[][];
+        GameModel model = new GameModel(12);
+
+        board = new int[][]{
+            {2, 2, 4, 8},
+            {4, 0, 4, 4},
+            {16, 16, 16, 16},
+            {32, 16, 16, 32},};
+        GameState state = new GameState(board);
+        GameState afterstate = model.applySlide(state, GameAction.LEFT);
+        Assert.assertEquals(new GameState(new int[][]{
+            {4, 4, 8, 0},
+            {8, 4, 0, 0},
+            {32, 32, 0, 0},
+            {32, 32, 32, 0},}, 4 + 8 + 64 + 32), afterstate);
+        Assert.assertNull(model.applySlide(new GameState(new int[][]{
+            {2, 4, 2, 4},
+            {4, 2, 4, 2},
+            {2, 4, 2, 4},
+            {4, 2, 4, 2},}), GameAction.LEFT));
+
+        // 6 cell kosong, setiap cell bisa diisi 2 atau 4
+        List<SpawnOutcome> outcomes = model.enumerateSpawns(afterstate);
+        Assert.assertEquals(12, outcomes.size());
+        double totalProbability = 0;
+        for (SpawnOutcome outcome : outcomes) {
+            totalProbability += outcome.probability;
+            Assert.assertEquals(outcome.value, outcome.state.getCellValue(
+                    outcome.position / GameModel.BOARD_SIZE, outcome.position % GameModel.BOARD_SIZE));
+            Assert.assertEquals(afterstate.getScore(), outcome.state.getScore());
+        }
+        Assert.assertEquals(1.0, totalProbability, 1e-9);
+        Assert.assertFalse(model.isUsable());
+
+        // Tick yang tersisa (10) tidak cukup untuk 12 hasil
+        Assert.assertNull(new GameModel(10).enumerateSpawns(afterstate));
+
+        // applySlide gratis, sampleSpawn memakai 1 tick
+        GameModel smallModel = new GameModel(1);
+        Assert.assertNotNull(smallModel.applySlide(state, GameAction.RIGHT));
+        GameState nextState = smallModel.sampleSpawn(afterstate);
+        Assert.assertEquals(5, nextState.emptyCellCount());
+        Assert.assertFalse(smallModel.isUsable());
+        Assert.assertNull(smallModel.sampleSpawn(afterstate));
+    }
+
+    @Test
+    public void testSharedBudget() throws InterruptedException {
+        int totalTick = 10000;
+        int threadCount = 4;
+        GameModel model = new GameModel(totalTick, new FastRandom(5));
+        TickBudget budget = model.share(16);
+        Assert.assertEquals(0, model.getTickUsed());
+        Assert.assertEquals(totalTick, budget.getRemaining());
+
+        GameModel[] threadModels = new GameModel[threadCount];
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            GameModel threadModel = model.fork(budget);
+            threadModels[i] = threadModel;
+            threads[i] = new Thread(() -> {
+                FastRandom rand = new FastRandom(7);
+                GameState state = threadModel.generateInitialState();
+                while (threadModel.isUsable()) {
+                    if (state.isTerminal()) {
+                        state = threadModel.generateInitialState();
+                    }
+                    state = threadModel.applyAction(state, state.getRandomAvailableAction(rand));
+                }
+                threadModel.release();
+            });
+            threads[i].start();
+        }
+
+        int totalUsed = 0;
+        for (int i = 0; i < threadCount; i++) {
+            threads[i].join();
+            Assert.assertFalse(threadModels[i].isUsable());
+            totalUsed += threadModels[i].getTickUsed();
+        }
+        Assert.assertEquals(totalTick, totalUsed);
+        Assert.assertEquals(0, budget.getRemaining());
+
+        //Tick yang tidak terpakai kembali ke model asal
+        GameModel partial = new GameModel(100, new FastRandom(5));
+        TickBudget partialBudget = partial.share(16);
+        GameModel threadModel = partial.fork(partialBudget);
+        Assert.assertTrue(threadModel.isUsable());
+        threadModel.release();
+        Assert.assertEquals(0, threadModel.getTickUsed());
+        partial.reclaim(partialBudget);
+        Assert.assertEquals(100, partial.getTickLeft());
+    }
 }
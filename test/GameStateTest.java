@@ -2,6 +2,7 @@
 import game.GameModel;
 import game.GameAction;
 import game.GameModel.GameState;
+import java.util.Random;
 import org.junit.Test;
 import org.junit.Assert;
 
@@ -23,8 +24,8 @@ public class GameStateTest {
             {4, 3, 2, 1},
             {5, 6, 7, 8},
             {8, 7, 6, 5},};
-        state = model.new GameState(board);
-        GameModel.GameState state2 = model.new GameState(board);
+        state = new GameState(board);
+        GameModel.GameState state2 = new GameState(board);
         Assert.assertTrue(state.equals(state2));   
     }
     
@@ -40,7 +41,7 @@ public class GameStateTest {
             {0, 2, 0, 0},
             {0, 0, 2, 0},
             {0, 0, 0, 0},};
-        state = model.new GameState(board);
+        state = new GameState(board);
         Assert.assertTrue(state.isActionValid(GameAction.LEFT));
         Assert.assertTrue(state.isActionValid(GameAction.RIGHT));
         Assert.assertTrue(state.isActionValid(GameAction.UP));
@@ -51,7 +52,7 @@ public class GameStateTest {
             {4, 2, 4, 2},
             {2, 4, 2, 4},
             {4, 2, 4, 2},};
-        state = model.new GameState(board);
+        state = new GameState(board);
         Assert.assertFalse(state.isActionValid(GameAction.LEFT));
         Assert.assertFalse(state.isActionValid(GameAction.RIGHT));
         Assert.assertFalse(state.isActionValid(GameAction.UP));
@@ -62,7 +63,7 @@ public class GameStateTest {
             {2, 2, 2, 2},
             {2, 2, 2, 2},
             {2, 2, 2, 2},};
-        state = model.new GameState(board);
+        state = new GameState(board);
         Assert.assertTrue(state.isActionValid(GameAction.LEFT));
         Assert.assertTrue(state.isActionValid(GameAction.RIGHT));
         Assert.assertTrue(state.isActionValid(GameAction.UP));
@@ -73,7 +74,7 @@ public class GameStateTest {
             {4, 0, 0, 0},
             {4, 8, 0, 0},
             {8, 2, 32, 4},};
-        state = model.new GameState(board);
+        state = new GameState(board);
         Assert.assertTrue(state.isActionValid(GameAction.LEFT));
         Assert.assertTrue(state.isActionValid(GameAction.RIGHT));
         Assert.assertTrue(state.isActionValid(GameAction.UP));
@@ -92,7 +93,7 @@ public class GameStateTest {
             {0, 0, 2, 0},
             {0, 0, 0, 0},};
         
-        state = model.new GameState(board);
+        state = new GameState(board);
         Assert.assertEquals(2, state.getLargestTile());
         
         board = new int[][]{
@@ -101,7 +102,7 @@ public class GameStateTest {
             {2, 8, 64, 8},
             {4, 2, 16, 4},};
         
-        state = model.new GameState(board);
+        state = new GameState(board);
         Assert.assertEquals(64, state.getLargestTile());
         
         board = new int[][]{
@@ -110,7 +111,74 @@ public class GameStateTest {
             {4, 4096, 8, 2},
             {512, 0, 0, 2},};
         
-        state = model.new GameState(board);
+        state = new GameState(board);
         Assert.assertEquals(4096, state.getLargestTile());
     }
+
+    @Test
+    public void testCopy() {
+        int board[][];
+        GameModel.GameState state;
+
+        board = new int[][]{
+            {2, 4, 4096, 512},
+            {1024, 2048, 16, 32768},
+            {4, 0, 8, 2},
+            {512, 0, 0, 2},};
+        state = new GameState(board, 1234);
+        GameModel.GameState copy = state.copy();
+        Assert.assertEquals(state, copy);
+        Assert.assertEquals(state.hashCode(), copy.hashCode());
+        Assert.assertEquals(32768, copy.getCellValue(1, 3));
+        Assert.assertEquals(0, copy.getCellValue(2, 1));
+        Assert.assertEquals(1234, copy.getScore());
+
+        // Skor yang berbeda menghasilkan state yang berbeda
+        Assert.assertFalse(state.equals(new GameState(board, 0)));
+    }
+
+    @Test
+    public void testAvailableActionMask() {
+        int board[][];
+        GameModel.GameState state;
+
+        board = new int[][]{
+            {2, 4, 2, 4},
+            {4, 8, 8, 2},
+            {2, 4, 2, 4},
+            {4, 2, 4, 2},};
+        state = new GameState(board);
+        Assert.assertEquals((1 << GameAction.LEFT.id) | (1 << GameAction.RIGHT.id), state.availableActionMask());
+        Random rand = new Random(0);
+        for (int i = 0; i < 100; i++) {
+            GameAction action = state.getRandomAvailableAction(rand);
+            Assert.assertTrue(action == GameAction.LEFT || action == GameAction.RIGHT);
+        }
+
+        board = new int[][]{
+            {2, 4, 2, 4},
+            {4, 2, 4, 2},
+            {2, 4, 2, 4},
+            {4, 2, 4, 2},};
+        state = new GameState(board);
+        Assert.assertEquals(0, state.availableActionMask());
+        Assert.assertNull(state.getRandomAvailableAction(rand));
+    }
+
+    @Test
+    public void testEmptyCells() {
+        int board[][];
+        GameModel.GameState state;
+
+        board = new int[][]{
+            {0, 2, 0, 4},
+            {32768, 0, 8, 2},
+            {2, 4, 2, 4},
+            {0, 2, 4, 0},};
+        state = new GameState(board);
+        Assert.assertEquals(5, state.emptyCellCount());
+        Assert.assertEquals((1 << 0) | (1 << 2) | (1 << 5) | (1 << 12) | (1 << 15), state.emptyCellMask());
+
+        Assert.assertEquals(16, new GameState().emptyCellCount());
+    }
 }
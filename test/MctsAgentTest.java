@@ -1,10 +1,18 @@
-
+import agent.ActionNode;
+import agent.ChanceChildMap;
+import agent.StateNode;
 import agent.mcts.MctsAgent;
 import game.GameModel;
 import game.GameAction;
 import game.GameModel.GameState;
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import org.junit.Assert;
 import org.junit.Test;
-//import org.junit.Assert;
+import util.FastRandom;
 
 /**
  *
@@ -12,15 +20,154 @@ import org.junit.Test;
  */
 public class MctsAgentTest {
 
+    private static final GameState FIXED_STATE = new GameState(0x1231361443111400L, 480);
+    private static final int TICKS = 200000;
+    //Lebih dari 1 supaya virtual loss yang tertinggal terlihat di visit count
+    private static final int VIRTUAL_LOSS = 3;
+
     public void testSelect() {
-        
+
     }
 
     @Test
     public void testExpand() {
     }
-    
+
     @Test
     public void testBackPropagate() {
     }
+
+    @Test
+    public void testSharedTreeBackups() throws ReflectiveOperationException {
+        assertSharedTreeConsistent(1);
+    }
+
+    @Test
+    public void testSharedTreeLeafPlayoutBackups() throws ReflectiveOperationException {
+        assertSharedTreeConsistent(3);
+    }
+
+    /**
+     * Dengan tabel transposisi, parent dari node pada subpohon yang dipakai
+     * ulang dapat menunjuk ke aksi di bagian pohon lama yang dilepas. Setelah
+     * tree reuse, parent dari setiap node harus berada di dalam pohon baru.
+     */
+    @Test
+    public void testTranspositionTreeReuseParents() throws ReflectiveOperationException {
+        MctsAgent agent = new MctsAgent.Builder()
+                .setRandom(new FastRandom(1))
+                .setTranspositionTable(1 << 16)
+                .setTreeReuse(true)
+                .build();
+        GameAction action = agent.selectAction(FIXED_STATE.copy(), new GameModel(TICKS, new FastRandom(2)));
+        StateNode nextRoot = null;
+        ChanceChildMap nextStates = getChildren(getSearchRoot(agent).getChildNode(action));
+        for (int slot = 0; slot < nextStates.capacity(); slot++) {
+            StateNode child = nextStates.valueAt(slot);
+            if (child != null && (nextRoot == null || child.getVisitCount() > nextRoot.getVisitCount())) {
+                nextRoot = child;
+            }
+        }
+
+        //Tanpa tick, pohon baru hanya berisi subpohon yang dipakai ulang
+        agent.selectAction(nextRoot.state.copy(), new GameModel(0, new FastRandom(3)));
+        StateNode root = getSearchRoot(agent);
+        Assert.assertSame(nextRoot, root);
+        Assert.assertNull(root.parent);
+
+        Set<StateNode> reachable = Collections.newSetFromMap(new IdentityHashMap<>());
+        ArrayDeque<StateNode> stack = new ArrayDeque<>();
+        reachable.add(root);
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            StateNode node = stack.pop();
+            for (GameAction nodeAction : GameAction.values()) {
+                ActionNode actionNode = node.getChildNode(nodeAction);
+                if (actionNode == null) {
+                    continue;
+                }
+                ChanceChildMap children = getChildren(actionNode);
+                for (int slot = 0; slot < children.capacity(); slot++) {
+                    StateNode child = children.valueAt(slot);
+                    if (child != null && reachable.add(child)) {
+                        stack.push(child);
+                    }
+                }
+            }
+        }
+        Assert.assertTrue(reachable.size() > 1);
+        for (StateNode node : reachable) {
+            if (node != root) {
+                Assert.assertTrue(reachable.contains(node.parent.parent));
+            }
+        }
+    }
+
+    /**
+     * Menjalankan pencarian pada pohon bersama dari state yang tetap, lalu
+     * memeriksa bahwa visit count setiap aksi sama dengan jumlah backup yang
+     * selesai melewatinya (tidak ada virtual loss yang tertinggal) dan semua
+     * tick habis dipakai tanpa melebihi anggaran.
+     */
+    private static void assertSharedTreeConsistent(int leafPlayouts) throws ReflectiveOperationException {
+        MctsAgent agent = new MctsAgent.Builder()
+                .setRandom(new FastRandom(1))
+                .setThreadCount(4)
+                .setSharedTree(true)
+                .setVirtualLoss(VIRTUAL_LOSS)
+                .setLeafPlayouts(leafPlayouts)
+                .setTreeReuse(true)
+                .build();
+        GameModel model = new GameModel(TICKS, new FastRandom(2));
+        agent.selectAction(FIXED_STATE.copy(), model);
+
+        Assert.assertEquals(0, model.getTickLeft());
+        Assert.assertFalse(model.isUsable());
+
+        StateNode root = getSearchRoot(agent);
+        Assert.assertTrue(root.getVisitCount() > 0);
+        Assert.assertEquals(root.getVisitCount(), assertBackupsComplete(root));
+    }
+
+    /**
+     * Memeriksa subtree dari node tertentu. Setiap backup yang melewati
+     * sebuah aksi juga melewati tepat 1 child dari aksi tersebut, sehingga
+     * visit count aksi harus sama dengan jumlah visit count child-nya.
+     *
+     * @return Jumlah visit count dari aksi-aksi node tersebut
+     */
+    private static int assertBackupsComplete(StateNode node) throws ReflectiveOperationException {
+        int actionVisits = 0;
+        for (GameAction action : GameAction.values()) {
+            ActionNode actionNode = node.getChildNode(action);
+            if (actionNode == null) {
+                continue;
+            }
+            ChanceChildMap children = getChildren(actionNode);
+            int backups = 0;
+            for (int slot = 0; slot < children.capacity(); slot++) {
+                StateNode child = children.valueAt(slot);
+                if (child != null) {
+                    backups += child.getVisitCount();
+                    int childActionVisits = assertBackupsComplete(child);
+                    Assert.assertTrue(child.getVisitCount() >= childActionVisits);
+                }
+            }
+            Assert.assertEquals(backups, actionNode.getVisitCount());
+            actionVisits += actionNode.getVisitCount();
+        }
+        return actionVisits;
+    }
+
+    private static StateNode getSearchRoot(MctsAgent agent) throws ReflectiveOperationException {
+        Field previousRoot = MctsAgent.class.getDeclaredField("previousRoot");
+        previousRoot.setAccessible(true);
+        return (StateNode) previousRoot.get(agent);
+    }
+
+    private static ChanceChildMap getChildren(ActionNode action) throws ReflectiveOperationException {
+        Field children = ActionNode.class.getDeclaredField("children");
+        children.setAccessible(true);
+        return (ChanceChildMap) children.get(action);
+    }
 }
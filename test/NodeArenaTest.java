@@ -0,0 +1,68 @@
+import agent.NodeArena;
+import game.GameAction;
+import game.GameModel;
+import game.GameModel.GameState;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Jiang Han
+ */
+public class NodeArenaTest {
+
+    @Test
+    public void testAddAndFindChild() {
+        GameState state = new GameState(new int[][]{
+            {2, 2, 0, 0},
+            {0, 0, 0, 0},
+            {0, 0, 0, 0},
+            {0, 0, 0, 4}
+        }, 8);
+        NodeArena arena = new NodeArena(3);
+        int root = arena.newRoot(state);
+        Assert.assertEquals(NodeArena.NO_NODE, arena.getParent(root));
+        Assert.assertEquals(state.availableActionMask(), arena.getActionMask(root));
+
+        int left = NodeArena.actionOf(root, GameAction.LEFT);
+        Assert.assertEquals(root, NodeArena.stateOf(left));
+        Assert.assertEquals(GameAction.LEFT, NodeArena.gameActionOf(left));
+        Assert.assertEquals(GameModel.slideBoard(state.getPackedBoard(), GameAction.LEFT), arena.getAfterBoard(left));
+        Assert.assertEquals(12, arena.getAfterScore(left));
+
+        long board1 = arena.getAfterBoard(left) | (1L << 4);
+        long board2 = arena.getAfterBoard(left) | (1L << 8);
+        Assert.assertEquals(NodeArena.NO_NODE, arena.findChild(left, board1));
+        int child1 = arena.addChild(left, board1);
+        int child2 = arena.addChild(left, board2);
+        Assert.assertEquals(child1, arena.findChild(left, board1));
+        Assert.assertEquals(child2, arena.findChild(left, board2));
+        Assert.assertEquals(left, arena.getParent(child1));
+        Assert.assertEquals(12, arena.getScore(child1));
+
+        //Arena penuh
+        Assert.assertFalse(arena.hasRoom(1));
+        Assert.assertEquals(NodeArena.NO_NODE, arena.addChild(left, board1 | (1L << 12)));
+    }
+
+    @Test
+    public void testReset() {
+        NodeArena arena = new NodeArena(2);
+        int root = arena.newRoot(new GameState(0x21L, 0));
+        int action = NodeArena.actionOf(root, GameAction.RIGHT);
+        arena.incrementActionVisitCount(action);
+        arena.setValue(action, 5);
+        arena.updateBounds(action, 5);
+        arena.addChild(action, arena.getAfterBoard(action) | (1L << 4));
+
+        arena.reset();
+        Assert.assertEquals(0, arena.size());
+        root = arena.newRoot(new GameState(0x21L, 0));
+        action = NodeArena.actionOf(root, GameAction.RIGHT);
+        Assert.assertEquals(0, arena.getActionVisitCount(action));
+        Assert.assertEquals(0, arena.getValue(action), 0);
+        Assert.assertEquals(Double.POSITIVE_INFINITY, arena.getLowerBound(action), 0);
+        Assert.assertEquals(NodeArena.NO_NODE, arena.findChild(action, arena.getAfterBoard(action) | (1L << 4)));
+        Assert.assertEquals(NodeArena.bytesForCapacity(2), 2L * NodeArena.bytesPerNode());
+    }
+}
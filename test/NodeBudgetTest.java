@@ -0,0 +1,140 @@
+import agent.ActionNode;
+import agent.NodeBudget;
+import agent.StateNode;
+import agent.TranspositionTable;
+import game.GameAction;
+import game.GameModel;
+import game.GameModel.GameState;
+import org.junit.Assert;
+import org.junit.Test;
+import util.FastRandom;
+
+/**
+ *
+ * @author Jiang Han
+ */
+public class NodeBudgetTest {
+
+    private static class TestStateNode extends StateNode {
+
+        TestStateNode(GameState state, ActionNode action) {
+            super(state, action);
+        }
+
+        @Override
+        protected ActionNode createActionNode(GameAction action) {
+            return new TestActionNode(action, this);
+        }
+
+        ActionNode getLeft() {
+            return getOrCreateChildNode(GameAction.LEFT);
+        }
+    }
+
+    private static class TestActionNode extends ActionNode {
+
+        TestActionNode(GameAction action, StateNode parent) {
+            super(action, parent);
+        }
+
+        @Override
+        protected StateNode createChildNode(GameState state) {
+            return new TestStateNode(state, this);
+        }
+
+        @Override
+        public void updateUtility(double result) {
+        }
+
+        @Override
+        public double getUtility() {
+            return 0;
+        }
+    }
+
+    @Test
+    public void testStopExpanding() {
+        GameModel model = new GameModel(100, new FastRandom(1));
+        TestStateNode root = new TestStateNode(new GameState(0x1111L, 0), null);
+        NodeBudget budget = new NodeBudget(3);
+        budget.reset(root);
+        Assert.assertEquals(1, budget.size());
+
+        // Afterstate dari LEFT memiliki 12 cell kosong, sehingga anak-anaknya
+        // cepat melampaui batas
+        for (int i = 0; i < 50; i++) {
+            StateNode child = root.getLeft().simulateAction(model, null, budget);
+            Assert.assertSame(root.getLeft(), child.parent);
+        }
+        Assert.assertTrue(budget.isFull());
+        Assert.assertEquals(3, budget.size());
+        budget.reset(root);
+        Assert.assertEquals(3, budget.size());
+    }
+
+    @Test
+    public void testEvict() {
+        GameModel model = new GameModel(1000, new FastRandom(2));
+        TestStateNode root = new TestStateNode(new GameState(0x1111L, 0), null);
+        NodeBudget budget = new NodeBudget(8);
+        budget.reset(root);
+        // Child ke-k dikunjungi sebanyak k kali
+        StateNode[] children = new StateNode[7];
+        for (int k = 0; k < children.length;) {
+            StateNode child = root.getLeft().simulateAction(model, null, budget);
+            if (child.getVisitCount() == 0 && root.getLeft().getChildNode(child.state) == child) {
+                for (int v = 0; v <= k; v++) {
+                    child.incrementVisitCount();
+                }
+                children[k++] = child;
+            }
+        }
+        Assert.assertTrue(budget.isFull());
+
+        // Batas 8 dipangkas menjadi 6 node: root dan 5 child terbanyak
+        budget.evict(root);
+        Assert.assertEquals(6, budget.size());
+        Assert.assertEquals(2, budget.getEvictedCount());
+        for (int k = 0; k < children.length; k++) {
+            StateNode found = root.getLeft().getChildNode(children[k].state);
+            Assert.assertEquals(k >= 2 ? children[k] : null, found);
+        }
+        Assert.assertFalse(budget.isFull());
+    }
+
+    @Test
+    public void testResetCountsTranspositionsOnce() {
+        GameModel model = new GameModel(100, new FastRandom(3));
+        TranspositionTable table = new TranspositionTable(64, TranspositionTable.ReplacementPolicy.LEAST_VISITED);
+        NodeBudget budget = new NodeBudget(100);
+        // Setiap state hanya berisi 1 tile di kolom kedua, sehingga LEFT dan
+        // RIGHT sama-sama valid tanpa skor. Kedua aksi diarahkan ke state
+        // berikutnya yang sama, sehingga jumlah jalur berlipat ganda di
+        // setiap tingkat.
+        int depth = 15;
+        TestStateNode root = new TestStateNode(new GameState(1L << 4, 0), null);
+        StateNode node = root;
+        for (int level = 2; level <= depth; level++) {
+            long board = (long) level << 4;
+            ActionNode left = node.getOrCreateChildNode(GameAction.LEFT);
+            left.getAfterstate(model);
+            StateNode next = left.getOrCreateChildNode(board, table, budget);
+            ActionNode right = node.getOrCreateChildNode(GameAction.RIGHT);
+            right.getAfterstate(model);
+            Assert.assertSame(next, right.getOrCreateChildNode(board, table, budget));
+            node = next;
+        }
+
+        budget.reset(root);
+        Assert.assertEquals(depth, budget.size());
+    }
+
+    @Test
+    public void testLimitForBytes() {
+        Assert.assertEquals(0, NodeBudget.limitForBytes(0));
+        Assert.assertEquals(1000, NodeBudget.limitForBytes(1000L * NodeBudget.BYTES_PER_NODE));
+        Assert.assertEquals(Integer.MAX_VALUE, NodeBudget.limitForBytes(Long.MAX_VALUE));
+        NodeBudget budget = new NodeBudget(NodeBudget.limitForBytes(1L << 20));
+        Assert.assertTrue(budget.getEstimatedBytes() <= 1L << 20);
+    }
+}
@@ -0,0 +1,136 @@
+import agent.GamePlayingAgent;
+import agent.mcts.MctsAgent;
+import agent.tdts.TdtsAgent;
+import game.GameModel;
+import game.GameModel.GameState;
+import java.lang.management.ManagementFactory;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import util.FastRandom;
+
+/**
+ * Memastikan iterasi pencarian pada pohon yang sudah penuh tidak melakukan
+ * alokasi. Dua pencarian dengan seed yang sama hanya berbeda jumlah tick,
+ * sehingga pencarian yang lebih panjang mengulang pencarian yang lebih pendek
+ * lalu melanjutkan iterasi pada pohon yang sudah mencapai batas node. Selisih
+ * alokasi keduanya adalah alokasi dari iterasi tambahan tersebut.
+ *
+ * Dengan batas node sekecil mungkin, semua action node dari pohon sudah dibuat
+ * sebelum pencarian yang lebih pendek selesai, sehingga alokasi kedua
+ * pencarian harus sama persis. Pohon berukuran wajar dengan beberapa tingkat
+ * diuji dari posisi akhir permainan yang hanya memiliki 2 cell kosong,
+ * sehingga seleksi menuruni beberapa tingkat dan simulasi dimulai dari
+ * berbagai kedalaman. Pada pohon tersebut, node di tepi pohon yang jarang
+ * terpilih masih sesekali membuat action node-nya (paling banyak 4 per node),
+ * sehingga yang diuji adalah rata-rata alokasi per tick tambahan: jauh di
+ * bawah 1 objek per iterasi, yang satu iterasinya memakai puluhan tick.
+ *
+ * Deoptimization oleh JIT sesekali membuat objek yang sebelumnya dihilangkan
+ * oleh escape analysis, sehingga yang dibandingkan adalah alokasi terkecil
+ * dari beberapa pencarian.
+ *
+ * @author Jiang Han
+ */
+public class SearchAllocationTest {
+
+    private static final int NODE_BUDGET = 2;
+    private static final int REPETITIONS = 5;
+    private static final int SHORT_TICKS = 20000;
+    private static final int LONG_TICKS = 100000;
+
+    private static final GameState LATE_GAME = new GameState(0x1231361443111400L, 480);
+    private static final int LARGE_NODE_BUDGET = 256;
+    private static final int LARGE_SHORT_TICKS = 250000;
+    private static final int LARGE_LONG_TICKS = 1000000;
+    // Satu objek terkecil (16 byte) per iterasi sekitar 45 tick sudah
+    // melebihi 0.3 byte per tick, sedangkan pembuatan action node di tepi
+    // pohon kurang dari 0.02 byte per tick
+    private static final double MAX_BYTES_PER_TICK = 0.1;
+
+    private interface AgentFactory {
+
+        GamePlayingAgent create();
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS
+            = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long minSearchAllocation(AgentFactory factory, GameState state, int tick) {
+        long min = Long.MAX_VALUE;
+        for (int k = 0; k < REPETITIONS; k++) {
+            min = Math.min(min, searchAllocation(factory, state, tick));
+        }
+        return min;
+    }
+
+    private static long searchAllocation(AgentFactory factory, GameState state, int tick) {
+        GamePlayingAgent agent = factory.create();
+        GameState copy = state.copy();
+        GameModel model = new GameModel(tick, new FastRandom(2));
+        long before = allocatedBytes();
+        agent.selectAction(copy, model);
+        return allocatedBytes() - before;
+    }
+
+    private static void warmUp(AgentFactory factory, GameState state, int tick) {
+        Assume.assumeTrue(THREADS.isThreadAllocatedMemorySupported());
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+        //Pemanasan supaya method-method pencarian sudah dikompilasi
+        for (int k = 0; k < 20; k++) {
+            searchAllocation(factory, state, tick);
+        }
+    }
+
+    private static void assertSteadyStateAllocationFree(AgentFactory factory) {
+        GameState state = new GameModel(0, new FastRandom(3)).generateInitialState();
+        warmUp(factory, state, SHORT_TICKS);
+        long shortSearch = minSearchAllocation(factory, state, SHORT_TICKS);
+        long longSearch = minSearchAllocation(factory, state, LONG_TICKS);
+        Assert.assertEquals(shortSearch, longSearch);
+    }
+
+    private static void assertLargeTreeAllocationBounded(AgentFactory factory) {
+        warmUp(factory, LATE_GAME, SHORT_TICKS);
+        long shortSearch = minSearchAllocation(factory, LATE_GAME, LARGE_SHORT_TICKS);
+        long longSearch = minSearchAllocation(factory, LATE_GAME, LARGE_LONG_TICKS);
+        double bytesPerTick = (double) (longSearch - shortSearch) / (LARGE_LONG_TICKS - LARGE_SHORT_TICKS);
+        Assert.assertTrue("Allocated " + bytesPerTick + " bytes per extra tick", bytesPerTick <= MAX_BYTES_PER_TICK);
+    }
+
+    @Test
+    public void testMctsIteration() {
+        assertSteadyStateAllocationFree(() -> new MctsAgent.Builder()
+                .setRandom(new FastRandom(1))
+                .setNodeBudget(NODE_BUDGET)
+                .build());
+    }
+
+    @Test
+    public void testTdtsIteration() {
+        assertSteadyStateAllocationFree(() -> new TdtsAgent.Builder()
+                .setRandom(new FastRandom(1))
+                .setNodeBudget(NODE_BUDGET)
+                .build());
+    }
+
+    @Test
+    public void testMctsLargeTreeIteration() {
+        assertLargeTreeAllocationBounded(() -> new MctsAgent.Builder()
+                .setRandom(new FastRandom(1))
+                .setNodeBudget(LARGE_NODE_BUDGET)
+                .build());
+    }
+
+    @Test
+    public void testTdtsLargeTreeIteration() {
+        assertLargeTreeAllocationBounded(() -> new TdtsAgent.Builder()
+                .setRandom(new FastRandom(1))
+                .setNodeBudget(LARGE_NODE_BUDGET)
+                .build());
+    }
+}
@@ -0,0 +1,88 @@
+import game.GameAction;
+import game.GameModel;
+import game.GameModel.GameState;
+import game.Symmetry;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import util.FastRandom;
+
+/**
+ *
+ * @author Jiang Han
+ */
+public class SymmetryTest {
+
+    private static long randomBoard(Random rand) {
+        long board = 0;
+        for (int position = 0; position < 16; position++) {
+            if (rand.nextInt(3) != 0) {
+                board |= (long) (1 + rand.nextInt(15)) << (4 * position);
+            }
+        }
+        return board;
+    }
+
+    @Test
+    public void testRotate90() {
+        GameState state = new GameState(new int[][]{
+            {2, 4, 8, 16},
+            {0, 0, 0, 32},
+            {0, 0, 0, 64},
+            {0, 0, 0, 128}
+        }, 0);
+        GameState rotated = new GameState(new int[][]{
+            {0, 0, 0, 2},
+            {0, 0, 0, 4},
+            {0, 0, 0, 8},
+            {128, 64, 32, 16}
+        }, 0);
+        Assert.assertEquals(rotated, state.transform(Symmetry.ROTATE_90));
+        Assert.assertEquals(GameAction.UP, Symmetry.ROTATE_90.apply(GameAction.LEFT));
+    }
+
+    @Test
+    public void testSlideCommutes() {
+        Random rand = new FastRandom(2048);
+        for (int k = 0; k < 200; k++) {
+            long board = randomBoard(rand);
+            for (Symmetry symmetry : Symmetry.values()) {
+                long transformed = symmetry.apply(board);
+                Assert.assertEquals(board, symmetry.inverse().apply(transformed));
+                Assert.assertEquals(symmetry.applyToMask(GameModel.availableActionMask(board)),
+                        GameModel.availableActionMask(transformed));
+                for (GameAction action : GameAction.values()) {
+                    GameAction mapped = symmetry.apply(action);
+                    Assert.assertEquals(symmetry.apply(GameModel.slideBoard(board, action)),
+                            GameModel.slideBoard(transformed, mapped));
+                    Assert.assertEquals(GameModel.slideScore(board, action),
+                            GameModel.slideScore(transformed, mapped));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCanonical() {
+        Random rand = new FastRandom(7);
+        for (int k = 0; k < 200; k++) {
+            GameState state = new GameState(randomBoard(rand), 100);
+            GameState canonical = state.canonical();
+            Set<Long> boards = new HashSet<>();
+            for (Symmetry symmetry : Symmetry.values()) {
+                GameState transformed = state.transform(symmetry);
+                boards.add(transformed.getPackedBoard());
+                Assert.assertEquals(canonical, transformed.canonical());
+                Assert.assertTrue(Long.compareUnsigned(canonical.getPackedBoard(),
+                        transformed.getPackedBoard()) <= 0);
+            }
+            Assert.assertEquals(100, canonical.getScore());
+            Assert.assertEquals(Symmetry.canonicalBoard(state.getPackedBoard()), canonical.getPackedBoard());
+            Assert.assertEquals(Symmetry.IDENTITY, canonical.canonicalSymmetry());
+            //Papan acak hampir selalu tidak simetris terhadap dirinya sendiri
+            Assert.assertTrue(boards.size() > 1);
+        }
+    }
+}
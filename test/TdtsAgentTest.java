@@ -0,0 +1,165 @@
+import agent.ActionNode;
+import agent.ChanceChildMap;
+import agent.StateNode;
+import agent.tdts.TdtsAgent;
+import game.GameAction;
+import game.GameModel;
+import game.GameModel.GameState;
+import java.lang.reflect.Field;
+import org.junit.Assert;
+import org.junit.Test;
+import util.FastRandom;
+
+/**
+ * Memeriksa pohon TDTS setelah pencarian pada pohon bersama. Pohon dibaca
+ * lewat refleksi dari root yang disimpan untuk tree reuse.
+ *
+ * @author Jiang Han
+ */
+public class TdtsAgentTest {
+
+    private static final GameState FIXED_STATE = new GameState(0x1231361443111400L, 480);
+    private static final int TICKS = 200000;
+    //Lebih dari 1 supaya virtual loss yang tertinggal terlihat di visit count
+    private static final int VIRTUAL_LOSS = 3;
+
+    @Test
+    public void testSharedTreeUpdates() throws ReflectiveOperationException {
+        assertSharedTreeConsistent(1);
+    }
+
+    @Test
+    public void testSharedTreeLeafPlayoutUpdates() throws ReflectiveOperationException {
+        assertSharedTreeConsistent(3);
+    }
+
+    /**
+     * Dengan 1 worker, virtual loss tidak pernah terlihat oleh worker lain dan
+     * step size 1/(jumlah update) sama dengan 1/(visit count), sehingga pohon
+     * bersama harus sama persis dengan pohon dari pencarian tanpa
+     * paralelisasi. Worker dan model-nya mendapatkan seed dari generator
+     * agen dan model utama, sehingga pencarian tanpa paralelisasi diberi
+     * generator dengan seed yang sama.
+     */
+    @Test
+    public void testSingleWorkerMatchesSingleThread() throws ReflectiveOperationException {
+        TdtsAgent sharedAgent = new TdtsAgent.Builder()
+                .setRandom(new FastRandom(1))
+                .setSharedTree(true)
+                .setVirtualLoss(VIRTUAL_LOSS)
+                .setTreeReuse(true)
+                .build();
+        GameModel sharedModel = new GameModel(TICKS, new FastRandom(2));
+        GameAction sharedAction = sharedAgent.selectAction(FIXED_STATE.copy(), sharedModel);
+
+        TdtsAgent agent = new TdtsAgent.Builder()
+                .setRandom(new FastRandom(new FastRandom(1).nextLong()))
+                .setTreeReuse(true)
+                .build();
+        GameModel model = new GameModel(TICKS, new FastRandom(new FastRandom(2).nextLong()));
+        GameAction action = agent.selectAction(FIXED_STATE.copy(), model);
+
+        Assert.assertEquals(action, sharedAction);
+        assertSameTree(getSearchRoot(agent), getSearchRoot(sharedAgent));
+    }
+
+    /**
+     * Menjalankan pencarian pada pohon bersama dari state yang tetap, lalu
+     * memeriksa bahwa setiap aksi menerima update sebanyak visit count-nya,
+     * tidak ada virtual loss yang tertinggal, dan semua tick habis dipakai
+     * tanpa melebihi anggaran.
+     */
+    private static void assertSharedTreeConsistent(int leafPlayouts) throws ReflectiveOperationException {
+        TdtsAgent agent = new TdtsAgent.Builder()
+                .setRandom(new FastRandom(1))
+                .setThreadCount(4)
+                .setVirtualLoss(VIRTUAL_LOSS)
+                .setLeafPlayouts(leafPlayouts)
+                .setTreeReuse(true)
+                .build();
+        GameModel model = new GameModel(TICKS, new FastRandom(2));
+        agent.selectAction(FIXED_STATE.copy(), model);
+
+        Assert.assertEquals(0, model.getTickLeft());
+        Assert.assertFalse(model.isUsable());
+
+        StateNode root = getSearchRoot(agent);
+        Assert.assertTrue(root.getVisitCount() > 0);
+        Assert.assertEquals(root.getVisitCount(), assertUpdatesComplete(root));
+    }
+
+    /**
+     * Memeriksa subtree dari node tertentu. Setiap backup yang melewati
+     * sebuah aksi menerapkan 1 update dan juga melewati tepat 1 child dari
+     * aksi tersebut.
+     *
+     * @return Jumlah visit count dari aksi-aksi node tersebut
+     */
+    private static int assertUpdatesComplete(StateNode node) throws ReflectiveOperationException {
+        int actionVisits = 0;
+        for (GameAction action : GameAction.values()) {
+            ActionNode actionNode = node.getChildNode(action);
+            if (actionNode == null) {
+                continue;
+            }
+            Assert.assertEquals(getUpdateCount(actionNode), actionNode.getVisitCount());
+            ChanceChildMap children = getChildren(actionNode);
+            int backups = 0;
+            for (int slot = 0; slot < children.capacity(); slot++) {
+                StateNode child = children.valueAt(slot);
+                if (child != null) {
+                    backups += child.getVisitCount();
+                    int childActionVisits = assertUpdatesComplete(child);
+                    Assert.assertTrue(child.getVisitCount() >= childActionVisits);
+                }
+            }
+            Assert.assertEquals(backups, actionNode.getVisitCount());
+            actionVisits += actionNode.getVisitCount();
+        }
+        return actionVisits;
+    }
+
+    private static void assertSameTree(StateNode expected, StateNode actual) throws ReflectiveOperationException {
+        Assert.assertEquals(expected.state, actual.state);
+        Assert.assertEquals(expected.getVisitCount(), actual.getVisitCount());
+        for (GameAction action : GameAction.values()) {
+            ActionNode expectedAction = expected.getChildNode(action);
+            ActionNode actualAction = actual.getChildNode(action);
+            if (expectedAction == null) {
+                Assert.assertNull(actualAction);
+                continue;
+            }
+            Assert.assertNotNull(actualAction);
+            Assert.assertEquals(expectedAction.getVisitCount(), actualAction.getVisitCount());
+            Assert.assertEquals(expectedAction.getUtility(), actualAction.getUtility(), 0);
+            ChanceChildMap expectedChildren = getChildren(expectedAction);
+            Assert.assertEquals(expectedChildren.size(), getChildren(actualAction).size());
+            for (int slot = 0; slot < expectedChildren.capacity(); slot++) {
+                StateNode child = expectedChildren.valueAt(slot);
+                if (child != null) {
+                    StateNode actualChild = actualAction.getChildNode(child.state);
+                    Assert.assertNotNull(actualChild);
+                    assertSameTree(child, actualChild);
+                }
+            }
+        }
+    }
+
+    private static StateNode getSearchRoot(TdtsAgent agent) throws ReflectiveOperationException {
+        Field previousRoot = TdtsAgent.class.getDeclaredField("previousRoot");
+        previousRoot.setAccessible(true);
+        return (StateNode) previousRoot.get(agent);
+    }
+
+    private static ChanceChildMap getChildren(ActionNode action) throws ReflectiveOperationException {
+        Field children = ActionNode.class.getDeclaredField("children");
+        children.setAccessible(true);
+        return (ChanceChildMap) children.get(action);
+    }
+
+    private static int getUpdateCount(ActionNode action) throws ReflectiveOperationException {
+        Field updateCount = action.getClass().getDeclaredField("updateCount");
+        updateCount.setAccessible(true);
+        return updateCount.getInt(action);
+    }
+}
@@ -0,0 +1,87 @@
+import agent.ActionNode;
+import agent.StateNode;
+import agent.TranspositionTable;
+import agent.TranspositionTable.ReplacementPolicy;
+import game.GameAction;
+import game.GameModel.GameState;
+import game.Symmetry;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Jiang Han
+ */
+public class TranspositionTableTest {
+
+    private static StateNode node(long board, int score, int visitCount) {
+        StateNode node = new StateNode(new GameState(board, score)) {
+            @Override
+            protected ActionNode createActionNode(GameAction action) {
+                return null;
+            }
+        };
+        for (int i = 0; i < visitCount; i++) {
+            node.incrementVisitCount();
+        }
+        return node;
+    }
+
+    @Test
+    public void testPutAndGet() {
+        TranspositionTable table = new TranspositionTable(64, ReplacementPolicy.LEAST_VISITED);
+        StateNode node = node(0x1234L, 16, 0);
+        Assert.assertNull(table.get(node.state));
+        table.put(node);
+        Assert.assertSame(node, table.get(new GameState(0x1234L, 16)));
+        //Papan sama dengan skor berbeda adalah state yang berbeda
+        Assert.assertNull(table.get(new GameState(0x1234L, 20)));
+        Assert.assertEquals(1, table.size());
+        Assert.assertEquals(1, table.getHitCount());
+
+        table.clear();
+        Assert.assertEquals(0, table.size());
+        Assert.assertNull(table.get(node.state));
+    }
+
+    @Test
+    public void testSymmetric() {
+        StateNode node = node(0x1230L, 16, 0);
+        GameState rotated = node.state.transform(Symmetry.ROTATE_90);
+        TranspositionTable plain = new TranspositionTable(64, ReplacementPolicy.LEAST_VISITED);
+        TranspositionTable symmetric = new TranspositionTable(64, ReplacementPolicy.LEAST_VISITED, true);
+        plain.put(node);
+        symmetric.put(node);
+        Assert.assertNull(plain.get(rotated));
+        Assert.assertSame(node, symmetric.get(rotated));
+        Assert.assertNull(symmetric.get(new GameState(rotated.getPackedBoard(), 20)));
+    }
+
+    @Test
+    public void testReplacementPolicy() {
+        //Kapasitas 1 bucket, sehingga semua state masuk ke bucket yang sama
+        for (ReplacementPolicy policy : ReplacementPolicy.values()) {
+            TranspositionTable table = new TranspositionTable(TranspositionTable.BUCKET_SIZE, policy);
+            StateNode[] nodes = new StateNode[TranspositionTable.BUCKET_SIZE];
+            for (int i = 0; i < nodes.length; i++) {
+                //Node yang dimasukkan pertama paling banyak dikunjungi
+                nodes[i] = node(i + 1, 0, nodes.length - i);
+                table.put(nodes[i]);
+            }
+            StateNode extra = node(0xFFL, 0, 0);
+            table.put(extra);
+
+            StateNode expectedVictim = policy == ReplacementPolicy.OLDEST ? nodes[0] : nodes[nodes.length - 1];
+            Assert.assertEquals(1, table.getReplacementCount());
+            Assert.assertEquals(TranspositionTable.BUCKET_SIZE, table.size());
+            Assert.assertSame(extra, table.get(extra.state));
+            for (StateNode node : nodes) {
+                if (node == expectedVictim) {
+                    Assert.assertNull(table.get(node.state));
+                } else {
+                    Assert.assertSame(node, table.get(node.state));
+                }
+            }
+        }
+    }
+}